@@ -0,0 +1,58 @@
+package benchmark;
+
+/**
+ * A benchmark of one hot path. BenchmarkRunner runs it once for each of its
+ * population sizes, and times each call to run().
+ */
+public abstract class Benchmark {
+	
+	private final String name;
+	private final int[] populationSizes;
+	
+	/**
+	 * @param name
+	 * @param populationSizes The numbers of objects to run the benchmark with.
+	 */
+	protected Benchmark(String name, int... populationSizes) {
+		if (populationSizes.length == 0) {
+			throw new IllegalArgumentException("A benchmark needs at least one population size.");
+		}
+		this.name = name;
+		this.populationSizes = populationSizes.clone();
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public int[] getPopulationSizes() {
+		return populationSizes.clone();
+	}
+	
+	/**
+	 * Creates the objects for one population size. This is not timed.
+	 * @param populationSize
+	 */
+	public abstract void setUp(int populationSize);
+	
+	/**
+	 * Returns true if setUpInvocation() must be called before every call to run(),
+	 * e.g. because run() destroys the objects that it works on.
+	 * @return
+	 */
+	public boolean hasInvocationSetUp() {
+		return false;
+	}
+	
+	/**
+	 * Restores the state that run() changes. This is not timed.
+	 */
+	public void setUpInvocation() {}
+	
+	/**
+	 * Runs the hot path once over the whole population.
+	 * @return A value that depends on the work done, so that the JIT cannot
+	 *         remove the work.
+	 */
+	public abstract long run();
+}
@@ -0,0 +1,237 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import blasteroids.AsteroidBenchmarks;
+import blasteroids.CollisionPassBenchmarks;
+import physics.Broadphase;
+import tankbattle.WallPassBenchmarks;
+
+/**
+ * Runs the physics and geometry benchmarks and prints the time and the
+ * allocation of each one.
+ * 
+ * Usage: BenchmarkRunner [name filter...]
+ * Only benchmarks whose names contain one of the filters are run.
+ * Run with the same JVM flags as the game, e.g. -Xmx, so that the results match.
+ */
+public class BenchmarkRunner {
+	
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	// Iterations of each benchmark
+	private static final int warmupIterations = 5, measurementIterations = 5;
+	private static final long warmupNanos = 200 * NANOS_PER_MILLI,
+			measurementNanos = 500 * NANOS_PER_MILLI;
+	
+	/** Consumes the benchmark results so that the JIT cannot remove the work. */
+	private static volatile long sink;
+	
+	// Allocation counting
+	private final com.sun.management.ThreadMXBean threadBean;
+	private final long threadId = Thread.currentThread().getId();
+	private long allocationOverhead = 0;
+	
+	public BenchmarkRunner() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean &&
+				((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+			threadBean = (com.sun.management.ThreadMXBean)bean;
+			threadBean.setThreadAllocatedMemoryEnabled(true);
+			
+			// Measure what reading the counter allocates by itself
+			getAllocatedBytes();
+			long before = getAllocatedBytes();
+			allocationOverhead = getAllocatedBytes() - before;
+		} else {
+			threadBean = null;
+		}
+	}
+	
+	/**
+	 * Gets every benchmark.
+	 * @return
+	 */
+	public static Benchmark[] getBenchmarks() {
+		return new Benchmark[] {
+				new VectorBenchmarks.GetRotated(),
+				new VectorBenchmarks.SetAngle(),
+				new PhysicsObjectBenchmarks.Move(),
+				new PhysicsObjectBenchmarks.IsTouchingWrapped(),
+				new BodyStoreBenchmarks.Integrate(),
+				new RectangleBenchmarks.IsTouching(),
+				new RectangleBenchmarks.IsTouchingRectangle(),
+				new RectangleBenchmarks.GetSurfaceNormal(),
+				new RectangleBenchmarks.AgainstRectangle(),
+				new AsteroidBenchmarks.BounceWrapped(),
+				new AsteroidBenchmarks.Split(),
+				new CollisionPassBenchmarks.CollideBulletToAsteroid(Broadphase.GRID, false),
+				new CollisionPassBenchmarks.CollideBulletToAsteroid(Broadphase.GRID, true),
+				new CollisionPassBenchmarks.CollideBulletToAsteroid(Broadphase.SWEEP_AND_PRUNE, false),
+				new CollisionPassBenchmarks.CollideAsteroidToAsteroid(Broadphase.GRID),
+				new CollisionPassBenchmarks.CollideAsteroidToAsteroid(Broadphase.SWEEP_AND_PRUNE),
+				new WallPassBenchmarks.CollideBulletToWall(Broadphase.NESTED_LOOPS),
+				new WallPassBenchmarks.CollideBulletToWall(Broadphase.TREE),
+				new WallPassBenchmarks.CollideBulletToWall(Broadphase.SWEEP_AND_PRUNE),
+		};
+	}
+	
+	public static void main(String[] args) {
+		BenchmarkRunner runner = new BenchmarkRunner();
+		
+		System.out.println(String.format("%-40s %6s %14s %10s %12s %12s %10s",
+				"Benchmark", "Size", "ns/op", "error", "ns/object", "B/op", "MB/s"));
+		for (Benchmark benchmark : getBenchmarks()) {
+			if (!matches(benchmark, args)) {
+				continue;
+			}
+			for (int populationSize : benchmark.getPopulationSizes()) {
+				System.out.println(runner.run(benchmark, populationSize));
+			}
+		}
+	}
+	
+	private static boolean matches(Benchmark benchmark, String[] filters) {
+		if (filters.length == 0) {
+			return true;
+		}
+		for (String filter : filters) {
+			if (benchmark.getName().contains(filter)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Warms up and then measures one benchmark at one population size.
+	 * @param benchmark
+	 * @param populationSize
+	 * @return
+	 */
+	public Result run(Benchmark benchmark, int populationSize) {
+		benchmark.setUp(populationSize);
+		
+		for (int i = 0; i < warmupIterations; i++) {
+			runIteration(benchmark, warmupNanos);
+		}
+		
+		Result result = new Result(benchmark.getName(), populationSize);
+		for (int i = 0; i < measurementIterations; i++) {
+			result.add(runIteration(benchmark, measurementNanos));
+		}
+		return result;
+	}
+	
+	/**
+	 * Calls run() repeatedly for about the given time.
+	 * @param benchmark
+	 * @param durationNanos
+	 * @return The time and the bytes allocated per call to run().
+	 */
+	private double[] runIteration(Benchmark benchmark, long durationNanos) {
+		long operations = 0, timedNanos = 0, allocatedBytes = 0;
+		final long end = System.nanoTime() + durationNanos;
+		
+		if (benchmark.hasInvocationSetUp()) {
+			// Time each call by itself, leaving out the set up
+			do {
+				benchmark.setUpInvocation();
+				long bytesBefore = getAllocatedBytes();
+				long start = System.nanoTime();
+				sink += benchmark.run();
+				long stop = System.nanoTime();
+				allocatedBytes += getAllocatedBytes() - bytesBefore - allocationOverhead;
+				timedNanos += stop - start;
+				operations++;
+			} while (System.nanoTime() < end);
+		} else {
+			// Time all the calls together
+			long bytesBefore = getAllocatedBytes();
+			long start = System.nanoTime();
+			long stop;
+			do {
+				sink += benchmark.run();
+				operations++;
+				stop = System.nanoTime();
+			} while (stop < end);
+			allocatedBytes = getAllocatedBytes() - bytesBefore - allocationOverhead;
+			timedNanos = stop - start;
+		}
+		
+		return new double[] { (double)timedNanos / operations, (double)allocatedBytes / operations };
+	}
+	
+	/**
+	 * Gets the number of bytes allocated by this thread so far, or 0 if the
+	 * JVM cannot count them.
+	 * @return
+	 */
+	private long getAllocatedBytes() {
+		return threadBean != null ? threadBean.getThreadAllocatedBytes(threadId) : 0;
+	}
+	
+	/**
+	 * The measurements of one benchmark at one population size.
+	 */
+	public static class Result {
+		private final String name;
+		private final int populationSize;
+		private double nanosSum = 0, nanosSquaredSum = 0, bytesSum = 0;
+		private int iterations = 0;
+		
+		private Result(String name, int populationSize) {
+			this.name = name;
+			this.populationSize = populationSize;
+		}
+		
+		private void add(double[] iteration) {
+			nanosSum += iteration[0];
+			nanosSquaredSum += iteration[0] * iteration[0];
+			bytesSum += Math.max(iteration[1], 0d);
+			iterations++;
+		}
+		
+		/**
+		 * Gets the mean time of one call to run().
+		 * @return
+		 */
+		public double getNanosPerOperation() {
+			return nanosSum / iterations;
+		}
+		
+		/**
+		 * Gets the standard deviation of the iterations' mean times.
+		 * @return
+		 */
+		public double getNanosError() {
+			double mean = getNanosPerOperation();
+			return Math.sqrt(Math.max(nanosSquaredSum / iterations - mean * mean, 0d));
+		}
+		
+		/**
+		 * Gets the mean bytes allocated by one call to run().
+		 * @return
+		 */
+		public double getBytesPerOperation() {
+			return bytesSum / iterations;
+		}
+		
+		/**
+		 * Gets the allocation rate while running, in megabytes per second.
+		 * @return
+		 */
+		public double getAllocationRate() {
+			return getBytesPerOperation() / getNanosPerOperation() * 1000d;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("%-40s %6d %14.1f %10.1f %12.2f %12.1f %10.1f",
+					name, populationSize, getNanosPerOperation(), getNanosError(),
+					getNanosPerOperation() / populationSize, getBytesPerOperation(),
+					getAllocationRate());
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import java.util.Random;
+
+import blasteroids.Asteroid;
+import blasteroids.Bullet;
+import geometry.Vector2D;
+import physics.PhysicsConstants;
+
+/**
+ * Helpers for filling benchmarks with objects in a world the size of the games'.
+ * All the objects come from a seeded Random so every run measures the same scene.
+ */
+public final class BenchmarkWorld {
+	
+	/** The size of the Blasteroids and Tank Battle worlds. */
+	public static final long WIDTH = PhysicsConstants.distance(400),
+			HEIGHT = PhysicsConstants.distance(400 * 4 / 3);
+	
+	private static final long SEED = 0x4855L;
+	
+	private BenchmarkWorld() {
+		throw new AssertionError();
+	}
+	
+	public static Random newRandom() {
+		return new Random(SEED);
+	}
+	
+	public static Asteroid[] randomAsteroids(Random random, int count) {
+		Asteroid[] asteroids = new Asteroid[count];
+		for (int i = 0; i < count; i++) {
+			Asteroid asteroid = new Asteroid(random.nextInt(4));
+			asteroid.position.x = (long)(random.nextDouble() * WIDTH);
+			asteroid.position.y = (long)(random.nextDouble() * HEIGHT);
+			asteroid.velocity = new Vector2D(PhysicsConstants.velocity(15d + 25d * random.nextDouble()),
+					2d * Math.PI * random.nextDouble(), true);
+			asteroids[i] = asteroid;
+		}
+		return asteroids;
+	}
+	
+	public static Bullet[] randomBullets(Random random, int count) {
+		Bullet[] bullets = new Bullet[count];
+		for (int i = 0; i < count; i++) {
+			Bullet bullet = new Bullet(null);
+			bullet.position.x = (long)(random.nextDouble() * WIDTH);
+			bullet.position.y = (long)(random.nextDouble() * HEIGHT);
+			bullet.velocity = new Vector2D(PhysicsConstants.velocity(200d),
+					2d * Math.PI * random.nextDouble(), true);
+			bullets[i] = bullet;
+		}
+		return bullets;
+	}
+}
@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.util.Random;
+
+import blasteroids.Asteroid;
+import blasteroids.Bullet;
+import physics.BodyStore;
+
+/**
+ * Benchmarks of the structure-of-arrays BodyStore.
+ */
+public final class BodyStoreBenchmarks {
+	
+	private BodyStoreBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * BodyStore.integrate() and wrap() over a store of asteroids and bullets,
+	 * the same work as PhysicsObjectBenchmarks.Move does with objects.
+	 */
+	public static class Integrate extends Benchmark {
+		private static final long deltaTime = 1000 / 60;
+		
+		private BodyStore store;
+		
+		public Integrate() {
+			super("BodyStore.integrate", 256, 4096, 65536);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			Asteroid[] asteroids = BenchmarkWorld.randomAsteroids(random, populationSize / 2);
+			Bullet[] bullets = BenchmarkWorld.randomBullets(random, populationSize - asteroids.length);
+			store = new BodyStore(populationSize);
+			for (Asteroid asteroid : asteroids) {
+				store.add(asteroid, 0);
+			}
+			for (Bullet bullet : bullets) {
+				store.add(bullet, 1);
+			}
+		}
+		
+		@Override
+		public long run() {
+			store.integrate(deltaTime);
+			store.wrap(BenchmarkWorld.WIDTH, BenchmarkWorld.HEIGHT);
+			return store.getX(0) + store.getX(store.size() - 1);
+		}
+	}
+}
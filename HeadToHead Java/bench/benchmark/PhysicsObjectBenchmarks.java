@@ -0,0 +1,77 @@
+package benchmark;
+
+import java.util.Random;
+
+import blasteroids.Asteroid;
+import physics.PhysicsObject;
+
+/**
+ * Benchmarks of the PhysicsObject methods that run for every object every tick.
+ */
+public final class PhysicsObjectBenchmarks {
+	
+	private PhysicsObjectBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * PhysicsObject.move() and wrapPosition() over a population of asteroids.
+	 */
+	public static class Move extends Benchmark {
+		private static final long deltaTime = 1000 / 60;
+		
+		private PhysicsObject[] objects;
+		
+		public Move() {
+			super("PhysicsObject.move", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			objects = BenchmarkWorld.randomAsteroids(BenchmarkWorld.newRandom(), populationSize);
+		}
+		
+		@Override
+		public long run() {
+			long sum = 0;
+			for (PhysicsObject object : objects) {
+				object.move(deltaTime);
+				object.wrapPosition(BenchmarkWorld.WIDTH, BenchmarkWorld.HEIGHT);
+				sum += object.position.x;
+			}
+			return sum;
+		}
+	}
+	
+	/**
+	 * PhysicsObject.isTouchingWrapped() for every pair in a population of asteroids,
+	 * as collideAsteroidToAsteroid() does.
+	 */
+	public static class IsTouchingWrapped extends Benchmark {
+		private Asteroid[] asteroids;
+		
+		public IsTouchingWrapped() {
+			super("PhysicsObject.isTouchingWrapped", 16, 64, 256);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			asteroids = BenchmarkWorld.randomAsteroids(random, populationSize);
+		}
+		
+		@Override
+		public long run() {
+			long touching = 0;
+			for (int a = 0; a < asteroids.length - 1; a++) {
+				for (int b = a + 1; b < asteroids.length; b++) {
+					if (asteroids[a].isTouchingWrapped(asteroids[b],
+							BenchmarkWorld.WIDTH, BenchmarkWorld.HEIGHT)) {
+						touching++;
+					}
+				}
+			}
+			return touching;
+		}
+	}
+}
@@ -0,0 +1,200 @@
+package benchmark;
+
+import java.util.Random;
+
+import blasteroids.Bullet;
+import geometry.SpaceVector2DLong;
+import physics.Impact;
+import physics.PhysicsConstants;
+import physics.SeparatingAxisCache;
+import physics.SweptCircle;
+import tankbattle.Wall;
+
+/**
+ * Benchmarks of the rotated rectangle tests that Tank Battle runs against its walls.
+ */
+public final class RectangleBenchmarks {
+	
+	private RectangleBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * Creates walls at random positions and angles, and a bullet near each one,
+	 * so that most tests get past the bounding box check.
+	 * @param random
+	 * @param walls Filled with the walls.
+	 * @param bullets Filled with the bullets, bullets[i] being near walls[i].
+	 */
+	private static void createScene(Random random, Wall[] walls, Bullet[] bullets) {
+		for (int i = 0; i < walls.length; i++) {
+			Wall wall = new Wall(random.nextBoolean() ? PhysicsConstants.distance(50) : PhysicsConstants.distance(100));
+			wall.position.x = (long)(random.nextDouble() * BenchmarkWorld.WIDTH);
+			wall.position.y = (long)(random.nextDouble() * BenchmarkWorld.HEIGHT);
+			wall.angle = random.nextInt(12) * Math.PI / 6d;
+			walls[i] = wall;
+			
+			Bullet bullet = new Bullet(null);
+			long reach = wall.getRadius() + bullet.getRadius();
+			bullet.position.x = wall.position.x + (long)((2d * random.nextDouble() - 1d) * reach);
+			bullet.position.y = wall.position.y + (long)((2d * random.nextDouble() - 1d) * reach);
+			bullets[i] = bullet;
+		}
+	}
+	
+	/**
+	 * Creates pairs of walls at random positions and angles, each pair close
+	 * enough that most tests get past the bounding box check.
+	 * @param random
+	 * @param walls Filled with the first wall of each pair.
+	 * @param others Filled with the second wall of each pair.
+	 */
+	private static void createWallPairs(Random random, Wall[] walls, Wall[] others) {
+		Bullet[] bullets = new Bullet[walls.length];
+		createScene(random, walls, bullets);
+		for (int i = 0; i < walls.length; i++) {
+			Wall other = new Wall(PhysicsConstants.distance(50));
+			other.position.set(bullets[i].position);
+			other.angle = random.nextDouble() * 2d * Math.PI;
+			others[i] = other;
+		}
+	}
+	
+	/**
+	 * RotatableRectanglePhysicsObject.isTouching() of each wall with a nearby bullet.
+	 */
+	public static class IsTouching extends Benchmark {
+		private Wall[] walls;
+		private Bullet[] bullets;
+		
+		public IsTouching() {
+			super("RotatableRectangle.isTouching", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			walls = new Wall[populationSize];
+			bullets = new Bullet[populationSize];
+			createScene(BenchmarkWorld.newRandom(), walls, bullets);
+		}
+		
+		@Override
+		public long run() {
+			long touching = 0;
+			for (int i = 0; i < walls.length; i++) {
+				if (walls[i].isTouching(bullets[i])) {
+					touching++;
+				}
+			}
+			return touching;
+		}
+	}
+	
+	/**
+	 * RotatableRectanglePhysicsObject.getSurfaceNormal() of each wall at a nearby bullet.
+	 */
+	public static class GetSurfaceNormal extends Benchmark {
+		private Wall[] walls;
+		private Bullet[] bullets;
+		
+		public GetSurfaceNormal() {
+			super("RotatableRectangle.getSurfaceNormal", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			walls = new Wall[populationSize];
+			bullets = new Bullet[populationSize];
+			createScene(BenchmarkWorld.newRandom(), walls, bullets);
+		}
+		
+		@Override
+		public long run() {
+			long sum = 0;
+			for (int i = 0; i < walls.length; i++) {
+				SpaceVector2DLong normal = walls[i].getSurfaceNormal(bullets[i].position);
+				sum += normal.position.x + Double.doubleToRawLongBits(normal.vector.y);
+			}
+			return sum;
+		}
+	}
+	
+	/**
+	 * RotatableRectanglePhysicsObject.isTouching() of pairs of nearby walls,
+	 * tested again every run with the same separating axis cache, as Tank
+	 * Battle tests its tanks every tick.
+	 */
+	public static class IsTouchingRectangle extends Benchmark {
+		private Wall[] walls, others;
+		private SeparatingAxisCache axisCache;
+		
+		public IsTouchingRectangle() {
+			super("RotatableRectangle.isTouching(rectangle)", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			walls = new Wall[populationSize];
+			others = new Wall[populationSize];
+			createWallPairs(BenchmarkWorld.newRandom(), walls, others);
+			axisCache = new SeparatingAxisCache(populationSize);
+		}
+		
+		@Override
+		public long run() {
+			long touching = 0;
+			for (int i = 0; i < walls.length; i++) {
+				if (walls[i].isTouching(others[i], axisCache)) {
+					touching++;
+				}
+			}
+			return touching;
+		}
+	}
+	
+	/**
+	 * SweptCircle.againstRectangle() of each wall with a bullet moving past it,
+	 * as far as a Tank Battle bullet moves in a tick.
+	 */
+	public static class AgainstRectangle extends Benchmark {
+		private Wall[] walls;
+		private Bullet[] bullets;
+		private long[] moves;
+		private final Impact impact = new Impact();
+		
+		public AgainstRectangle() {
+			super("SweptCircle.againstRectangle", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			walls = new Wall[populationSize];
+			bullets = new Bullet[populationSize];
+			createScene(random, walls, bullets);
+			
+			// Move each bullet back, so that it moves to where it was put
+			long speed = (long)(PhysicsConstants.velocity(150d) * 1000d / 60d);
+			moves = new long[2 * populationSize];
+			for (int i = 0; i < populationSize; i++) {
+				double angle = random.nextDouble() * 2d * Math.PI;
+				moves[2 * i] = (long)(speed * Math.cos(angle));
+				moves[2 * i + 1] = (long)(speed * Math.sin(angle));
+				bullets[i].position.x -= moves[2 * i];
+				bullets[i].position.y -= moves[2 * i + 1];
+			}
+		}
+		
+		@Override
+		public long run() {
+			long hits = 0;
+			for (int i = 0; i < walls.length; i++) {
+				if (SweptCircle.againstRectangle(bullets[i].position.x, bullets[i].position.y,
+						moves[2 * i], moves[2 * i + 1], bullets[i].getRadius(), walls[i], impact)) {
+					hits++;
+				}
+			}
+			return hits;
+		}
+	}
+}
@@ -0,0 +1,237 @@
+package benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import blasteroids.BlasteroidsTickAllocationCheck;
+import headtohead.HeadToHeadGame;
+import headtohead.Player;
+import headtohead.TurboRunner;
+import tankbattle.TankBattleTickAllocationCheck;
+
+/**
+ * Checks that a game's physics ticks allocate nothing once it has warmed up.
+ * Matches are played with demo input, as TurboRunner plays them, and the
+ * bytes that each call to physicsTick() allocates are counted.
+ * 
+ * Only the quiet ticks are checked, which are the ticks where nothing is
+ * created or destroyed, e.g. no asteroid splits, no ship breaks into
+ * fragments and no one scores, and which are not the first tick of a match.
+ * The other ticks may allocate, e.g. the pieces of a split asteroid or the
+ * text of a new score. Bullets come from a pool, so shooting is quiet.
+ * 
+ * Each match is played three times, once to warm up and twice to check, and
+ * a quiet tick fails only if it allocated both times. A seeded match replays
+ * exactly, and so does anything its code allocates, but now and then the JVM
+ * itself allocates a few bytes on the simulation thread, e.g. while compiled
+ * code is being replaced, and that lands on a different tick each time.
+ * 
+ * Usage: TickAllocationCheck [blasteroids|tankbattle] [matches] [seed]
+ * Exits with status 1 if any quiet tick allocated.
+ */
+public abstract class TickAllocationCheck {
+	
+	private final HeadToHeadGame game;
+	private final TurboRunner runner;
+	
+	private final com.sun.management.ThreadMXBean threadBean;
+	private final long threadId = Thread.currentThread().getId();
+	private long allocationOverhead = 0;
+	
+	/** The census before and after a tick, with the players' scores at the end. */
+	private long[] census, nextCensus;
+	
+	/** The quiet ticks that allocated in each play of a match, and the bytes of the second play by tick. */
+	private final BitSet firstPlay = new BitSet(), secondPlay = new BitSet();
+	private long[] tickBytes = new long[1024];
+	
+	// Totals of the checked matches
+	private long ticks = 0, quietTicks = 0, allocatingQuietTicks = 0, quietBytes = 0;
+	
+	protected TickAllocationCheck(HeadToHeadGame game) {
+		this.game = game;
+		runner = new TurboRunner(game);
+		
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean) ||
+				!((com.sun.management.ThreadMXBean)bean).isThreadAllocatedMemorySupported()) {
+			throw new UnsupportedOperationException("This JVM cannot count allocated bytes.");
+		}
+		threadBean = (com.sun.management.ThreadMXBean)bean;
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+		
+		// Measure what reading the counter allocates by itself
+		getAllocatedBytes();
+		long before = getAllocatedBytes();
+		allocationOverhead = getAllocatedBytes() - before;
+	}
+	
+	public HeadToHeadGame getGame() {
+		return game;
+	}
+	
+	/**
+	 * Gets the number of counts that takeCensus() stores.
+	 * @return
+	 */
+	protected abstract int getCensusSize();
+	
+	/**
+	 * Counts the things in the game that change when something is created or
+	 * destroyed, e.g. the number of asteroids and fragments. A tick is quiet
+	 * if the census is the same before and after it.
+	 * @param census The counts are stored in this, getCensusSize() of them.
+	 */
+	protected abstract void takeCensus(long[] census);
+	
+	/**
+	 * Plays a match to warm up, then twice more, and checks its quiet ticks.
+	 * @param seed
+	 * @param maxTicks The match is abandoned after this many ticks.
+	 */
+	public void checkMatch(long seed, long maxTicks) {
+		runner.runMatch(seed, maxTicks);
+		playMatch(seed, maxTicks, firstPlay);
+		long matchTicks = playMatch(seed, maxTicks, secondPlay);
+		ticks += matchTicks;
+		
+		firstPlay.and(secondPlay);
+		for (int tick = firstPlay.nextSetBit(0); tick >= 0; tick = firstPlay.nextSetBit(tick + 1)) {
+			allocatingQuietTicks++;
+			quietBytes += tickBytes[tick];
+			System.out.println(String.format("Match seed %d: quiet tick %d of %d allocated %d bytes",
+					seed, tick, matchTicks, tickBytes[tick]));
+		}
+	}
+	
+	/**
+	 * Plays a match and finds the quiet ticks that allocated.
+	 * @param seed
+	 * @param maxTicks The match is abandoned after this many ticks.
+	 * @param allocatingTicks The quiet ticks that allocated are set in this,
+	 *            counting from 1, and their bytes are stored in tickBytes.
+	 * @return The number of ticks that were run.
+	 */
+	private long playMatch(long seed, long maxTicks, BitSet allocatingTicks) {
+		if (census == null) {
+			census = new long[getCensusSize() + game.getPlayers().length];
+			nextCensus = new long[census.length];
+		}
+		allocatingTicks.clear();
+		runner.startMatch(seed);
+		Player[] players = game.getPlayers();
+		
+		int tick = 0;
+		census(players, census);
+		while (!game.isGameOver() && tick < maxTicks) {
+			long before = getAllocatedBytes();
+			game.physicsTick();
+			long bytes = getAllocatedBytes() - before - allocationOverhead;
+			tick++;
+			
+			census(players, nextCensus);
+			if (tick > 1 && Arrays.equals(census, nextCensus)) {
+				quietTicks++;
+				if (bytes > 0) {
+					allocatingTicks.set(tick);
+					if (tick >= tickBytes.length) {
+						tickBytes = Arrays.copyOf(tickBytes, 2 * tick);
+					}
+					tickBytes[tick] = bytes;
+				}
+			}
+			long[] swap = census;
+			census = nextCensus;
+			nextCensus = swap;
+		}
+		return tick;
+	}
+	
+	/**
+	 * Takes the game's census and adds the players' scores to it.
+	 * @param players
+	 * @param census
+	 */
+	private void census(Player[] players, long[] census) {
+		takeCensus(census);
+		for (int i = 0; i < players.length; i++) {
+			census[getCensusSize() + i] = players[i].score;
+		}
+	}
+	
+	/**
+	 * Gets the number of ticks in the checked matches, counting each match once.
+	 * @return
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+	
+	/**
+	 * Gets the number of quiet ticks in both checked plays of every match.
+	 * @return
+	 */
+	public long getQuietTicks() {
+		return quietTicks;
+	}
+	
+	/**
+	 * Gets the number of quiet ticks that allocated in both checked plays.
+	 * @return
+	 */
+	public long getAllocatingQuietTicks() {
+		return allocatingQuietTicks;
+	}
+	
+	/**
+	 * Gets the bytes allocated by those ticks in the second play.
+	 * @return
+	 */
+	public long getQuietBytes() {
+		return quietBytes;
+	}
+	
+	private long getAllocatedBytes() {
+		return threadBean.getThreadAllocatedBytes(threadId);
+	}
+	
+	/**
+	 * Creates the check for a game by name.
+	 * @param name
+	 * @return
+	 */
+	private static TickAllocationCheck createCheck(String name) {
+		switch (name.toLowerCase()) {
+			case "blasteroids":
+				return new BlasteroidsTickAllocationCheck();
+			case "tankbattle":
+				return new TankBattleTickAllocationCheck();
+			default:
+				throw new IllegalArgumentException("Unknown game: " + name);
+		}
+	}
+	
+	public static void main(String[] args) {
+		String name = args.length > 0 ? args[0] : "blasteroids";
+		int matches = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+		
+		TickAllocationCheck check = createCheck(name);
+		
+		// Give up on a match after an hour of game time
+		long maxTicks = 3600L * 1000000000L / check.getGame().getPhysicsTickNanos();
+		
+		for (int i = 0; i < matches; i++) {
+			check.checkMatch(seed + i, maxTicks);
+		}
+		
+		System.out.println(String.format("%s: %d ticks, %d quiet, %d quiet ticks allocated %d bytes",
+				name, check.getTicks(), check.getQuietTicks(), check.getAllocatingQuietTicks(),
+				check.getQuietBytes()));
+		if (check.getAllocatingQuietTicks() > 0) {
+			System.exit(1);
+		}
+	}
+}
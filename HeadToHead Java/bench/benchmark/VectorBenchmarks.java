@@ -0,0 +1,84 @@
+package benchmark;
+
+import java.util.Random;
+
+import geometry.Vector2D;
+import geometry.Vector2DLong;
+
+/**
+ * Benchmarks of the vector operations used by every collision test.
+ */
+public final class VectorBenchmarks {
+	
+	private VectorBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * Vector2DLong.getRotated(), which isTouching() and getSurfaceNormal() use
+	 * to move points into a rectangle's space.
+	 */
+	public static class GetRotated extends Benchmark {
+		private Vector2DLong[] vectors;
+		private double[] angles;
+		
+		public GetRotated() {
+			super("Vector2DLong.getRotated", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			vectors = new Vector2DLong[populationSize];
+			angles = new double[populationSize];
+			for (int i = 0; i < populationSize; i++) {
+				vectors[i] = new Vector2DLong((long)(random.nextDouble() * BenchmarkWorld.WIDTH),
+						(long)(random.nextDouble() * BenchmarkWorld.HEIGHT));
+				angles[i] = 2d * Math.PI * random.nextDouble();
+			}
+		}
+		
+		@Override
+		public long run() {
+			long sum = 0;
+			for (int i = 0; i < vectors.length; i++) {
+				Vector2DLong rotated = vectors[i].getRotated(angles[i]);
+				sum += rotated.x ^ rotated.y;
+			}
+			return sum;
+		}
+	}
+	
+	/**
+	 * Vector2D.setAngle(), which Tank Battle calls on every tank every tick.
+	 */
+	public static class SetAngle extends Benchmark {
+		private Vector2D[] vectors;
+		private double[] angles;
+		
+		public SetAngle() {
+			super("Vector2D.setAngle", 16, 256, 4096);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			vectors = new Vector2D[populationSize];
+			angles = new double[populationSize];
+			for (int i = 0; i < populationSize; i++) {
+				vectors[i] = new Vector2D(random.nextDouble(), 2d * Math.PI * random.nextDouble(), true);
+				angles[i] = 2d * Math.PI * random.nextDouble();
+			}
+		}
+		
+		@Override
+		public long run() {
+			long sum = 0;
+			for (int i = 0; i < vectors.length; i++) {
+				vectors[i].setAngle(angles[i]);
+				sum += Double.doubleToRawLongBits(vectors[i].x);
+			}
+			return sum;
+		}
+	}
+}
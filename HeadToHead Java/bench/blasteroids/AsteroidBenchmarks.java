@@ -0,0 +1,122 @@
+package blasteroids;
+
+import java.util.Random;
+
+import benchmark.Benchmark;
+import benchmark.BenchmarkWorld;
+import geometry.Vector2D;
+
+/**
+ * Benchmarks of the Asteroid collision responses. Both of them change the
+ * asteroids, so the asteroids are restored before every call.
+ */
+public final class AsteroidBenchmarks {
+	
+	private AsteroidBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * Asteroid.bounceWrapped() on pairs of overlapping asteroids, half of them
+	 * across the edge of the world.
+	 */
+	public static class BounceWrapped extends Benchmark {
+		private Asteroid[] asteroids;
+		private AsteroidState state;
+		
+		public BounceWrapped() {
+			super("Asteroid.bounceWrapped", 16, 256, 1024);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			asteroids = BenchmarkWorld.randomAsteroids(random, 2 * populationSize);
+			for (int i = 0; i < populationSize; i++) {
+				Asteroid a = asteroids[2 * i], b = asteroids[2 * i + 1];
+				
+				// Put b just touching a, heading towards it
+				double angle = 2d * Math.PI * random.nextDouble();
+				b.position = a.position.sum(new Vector2D(0.9d * (a.getRadius() + b.getRadius()), angle, true));
+				b.velocity = a.velocity.sum(new Vector2D(b.velocity.length(), angle + Math.PI, true));
+				
+				// Wrap every other pair across the edge
+				if (i % 2 == 1) {
+					b.position.x += BenchmarkWorld.WIDTH;
+				}
+				b.wrapPosition(BenchmarkWorld.WIDTH, BenchmarkWorld.HEIGHT);
+			}
+			state = new AsteroidState(asteroids);
+		}
+		
+		@Override
+		public boolean hasInvocationSetUp() {
+			return true;
+		}
+		
+		@Override
+		public void setUpInvocation() {
+			state.restore();
+		}
+		
+		@Override
+		public long run() {
+			long sum = 0;
+			for (int i = 0; i < asteroids.length; i += 2) {
+				asteroids[i].bounceWrapped(asteroids[i + 1], BenchmarkWorld.WIDTH, BenchmarkWorld.HEIGHT);
+				sum += asteroids[i].position.x;
+			}
+			return sum;
+		}
+	}
+	
+	/**
+	 * Asteroid.split() of each asteroid by a bullet.
+	 */
+	public static class Split extends Benchmark {
+		private Asteroid[] asteroids;
+		private Bullet[] bullets;
+		private AsteroidState state;
+		
+		public Split() {
+			super("Asteroid.split", 16, 256, 1024);
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			Random random = BenchmarkWorld.newRandom();
+			asteroids = BenchmarkWorld.randomAsteroids(random, populationSize);
+			bullets = BenchmarkWorld.randomBullets(random, populationSize);
+			for (int i = 0; i < populationSize; i++) {
+				// Make sure that every asteroid splits, rather than being destroyed
+				asteroids[i].size = Math.max(asteroids[i].size, 1);
+				
+				// Put the bullet on the edge of its asteroid
+				double angle = 2d * Math.PI * random.nextDouble();
+				bullets[i].position = asteroids[i].position.sum(
+						new Vector2D(asteroids[i].getRadius(), angle, true));
+			}
+			state = new AsteroidState(asteroids);
+		}
+		
+		@Override
+		public boolean hasInvocationSetUp() {
+			return true;
+		}
+		
+		@Override
+		public void setUpInvocation() {
+			state.restore();
+		}
+		
+		@Override
+		public long run() {
+			long sum = 0;
+			for (int i = 0; i < asteroids.length; i++) {
+				Asteroid otherHalf = asteroids[i].split(bullets[i]);
+				sum += otherHalf.position.x;
+			}
+			return sum;
+		}
+	}
+}
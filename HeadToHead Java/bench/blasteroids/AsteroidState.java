@@ -0,0 +1,40 @@
+package blasteroids;
+
+import geometry.Vector2D;
+import geometry.Vector2DLong;
+
+/**
+ * Saves the state of a population of asteroids, so that it can be restored.
+ */
+class AsteroidState {
+	private final Asteroid[] asteroids;
+	private final int[] sizes;
+	private final long[] x, y;
+	private final double[] vx, vy;
+	
+	AsteroidState(Asteroid[] asteroids) {
+		this.asteroids = asteroids;
+		int count = asteroids.length;
+		sizes = new int[count];
+		x = new long[count];
+		y = new long[count];
+		vx = new double[count];
+		vy = new double[count];
+		for (int i = 0; i < count; i++) {
+			sizes[i] = asteroids[i].size;
+			x[i] = asteroids[i].position.x;
+			y[i] = asteroids[i].position.y;
+			vx[i] = asteroids[i].velocity.x;
+			vy[i] = asteroids[i].velocity.y;
+		}
+	}
+	
+	void restore() {
+		for (int i = 0; i < asteroids.length; i++) {
+			Asteroid asteroid = asteroids[i];
+			asteroid.size = sizes[i];
+			asteroid.position = new Vector2DLong(x[i], y[i]);
+			asteroid.velocity = new Vector2D(vx[i], vy[i]);
+		}
+	}
+}
@@ -0,0 +1,30 @@
+package blasteroids;
+
+import benchmark.TickAllocationCheck;
+
+/**
+ * Checks the Blasteroids ticks. A tick is quiet if no asteroid splits or is
+ * destroyed, no ship dies, no fragments are made and no score marker appears.
+ */
+public class BlasteroidsTickAllocationCheck extends TickAllocationCheck {
+	
+	public BlasteroidsTickAllocationCheck() {
+		super(new BlasteroidsGame());
+	}
+	
+	@Override
+	protected int getCensusSize() {
+		return 3 + ((BlasteroidsGame)getGame()).spaceships.length;
+	}
+	
+	@Override
+	protected void takeCensus(long[] census) {
+		BlasteroidsGame game = (BlasteroidsGame)getGame();
+		census[0] = game.asteroids.size();
+		census[1] = game.fragments.size();
+		census[2] = game.scoreMarkers.size();
+		for (int i = 0; i < game.spaceships.length; i++) {
+			census[3 + i] = game.spaceships[i].getHealth();
+		}
+	}
+}
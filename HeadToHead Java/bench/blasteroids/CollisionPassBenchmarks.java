@@ -0,0 +1,106 @@
+package blasteroids;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import benchmark.Benchmark;
+import benchmark.BenchmarkWorld;
+import physics.Broadphase;
+
+/**
+ * Benchmarks of whole Blasteroids collision passes, run on a BlasteroidsGame
+ * that is restored to the same scene before every pass. Each pass can be run
+ * with either of the game's broadphases, and the bullet-asteroid pass with its
+ * detection on one thread or on several.
+ */
+public final class CollisionPassBenchmarks {
+	
+	private CollisionPassBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * A benchmark that fills a game with asteroids and bullets.
+	 */
+	private static abstract class PassBenchmark extends Benchmark {
+		protected BlasteroidsGame game;
+		private Asteroid[] asteroids;
+		private Bullet[] bullets;
+		private AsteroidState state;
+		private final Broadphase broadphase;
+		private final boolean parallel;
+		
+		protected PassBenchmark(String name, Broadphase broadphase, boolean parallel) {
+			super(name + "/" + broadphase.name().toLowerCase() + (parallel ? "/parallel" : ""),
+					8, 32, 128, 512, 2048);
+			this.broadphase = broadphase;
+			this.parallel = parallel;
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			game = new BlasteroidsGame();
+			game.setBroadphase(broadphase);
+			game.setParallelThreshold(parallel ? 0 : Integer.MAX_VALUE);
+			game.newGame();
+			
+			Random random = BenchmarkWorld.newRandom();
+			asteroids = BenchmarkWorld.randomAsteroids(random, populationSize);
+			bullets = BenchmarkWorld.randomBullets(random, populationSize);
+			state = new AsteroidState(asteroids);
+		}
+		
+		@Override
+		public boolean hasInvocationSetUp() {
+			return true;
+		}
+		
+		@Override
+		public void setUpInvocation() {
+			state.restore();
+			game.asteroids.clear();
+			game.asteroids.addAll(Arrays.asList(asteroids));
+			
+			// The pass returns the bullets it removes to the game's pool, so they must come from it
+			game.bulletPool.releaseAll(game.bullets);
+			for (Bullet template : bullets) {
+				Bullet bullet = game.bulletPool.acquire();
+				bullet.position.set(template.position);
+				bullet.velocity.set(template.velocity);
+				game.bullets.add(bullet);
+			}
+		}
+	}
+	
+	/**
+	 * BlasteroidsGame.collideBulletToAsteroid() with as many bullets as asteroids.
+	 */
+	public static class CollideBulletToAsteroid extends PassBenchmark {
+		
+		public CollideBulletToAsteroid(Broadphase broadphase, boolean parallel) {
+			super("Blasteroids.collideBulletToAsteroid", broadphase, parallel);
+		}
+		
+		@Override
+		public long run() {
+			game.collideBulletToAsteroid();
+			return game.asteroids.size() + game.bullets.size();
+		}
+	}
+	
+	/**
+	 * BlasteroidsGame.collideAsteroidToAsteroid().
+	 */
+	public static class CollideAsteroidToAsteroid extends PassBenchmark {
+		
+		public CollideAsteroidToAsteroid(Broadphase broadphase) {
+			super("Blasteroids.collideAsteroidToAsteroid", broadphase, false);
+		}
+		
+		@Override
+		public long run() {
+			game.collideAsteroidToAsteroid();
+			return game.asteroids.get(0).position.x;
+		}
+	}
+}
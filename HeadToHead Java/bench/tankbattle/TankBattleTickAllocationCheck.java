@@ -0,0 +1,30 @@
+package tankbattle;
+
+import benchmark.TickAllocationCheck;
+
+/**
+ * Checks the Tank Battle ticks. A tick is quiet if no tank is hit, no
+ * fragments are made, no score marker appears and the walls stay the same.
+ */
+public class TankBattleTickAllocationCheck extends TickAllocationCheck {
+	
+	public TankBattleTickAllocationCheck() {
+		super(new TankBattleGame());
+	}
+	
+	@Override
+	protected int getCensusSize() {
+		return 3 + ((TankBattleGame)getGame()).tanks.length;
+	}
+	
+	@Override
+	protected void takeCensus(long[] census) {
+		TankBattleGame game = (TankBattleGame)getGame();
+		census[0] = game.walls.size();
+		census[1] = game.fragments.size();
+		census[2] = game.scoreMarkers.size();
+		for (int i = 0; i < game.tanks.length; i++) {
+			census[3 + i] = game.tanks[i].getHealth();
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package tankbattle;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import benchmark.Benchmark;
+import benchmark.BenchmarkWorld;
+import blasteroids.Bullet;
+import physics.Broadphase;
+import physics.PhysicsConstants;
+
+/**
+ * Benchmarks of the Tank Battle wall passes on maps much denser than the
+ * game makes, run on a TankBattleGame that is restored to the same scene
+ * before every pass. Each pass can be run with any of the game's broadphases.
+ */
+public final class WallPassBenchmarks {
+	
+	private WallPassBenchmarks() {
+		throw new AssertionError();
+	}
+	
+	/**
+	 * A benchmark that fills a game with walls, and with as many bullets.
+	 */
+	private static abstract class PassBenchmark extends Benchmark {
+		protected TankBattleGame game;
+		private Bullet[] bullets;
+		private long[] x, y;
+		private double[] vx, vy;
+		private final Broadphase broadphase;
+		
+		protected PassBenchmark(String name, Broadphase broadphase) {
+			super(name + "/" + broadphase.name().toLowerCase(), 16, 64, 256, 1024);
+			this.broadphase = broadphase;
+		}
+		
+		@Override
+		public void setUp(int populationSize) {
+			game = new TankBattleGame();
+			game.setBroadphase(broadphase);
+			game.newGame();
+			
+			Random random = BenchmarkWorld.newRandom();
+			game.walls.clear();
+			for (int i = 0; i < populationSize; i++) {
+				Wall wall = new Wall(random.nextBoolean() ? PhysicsConstants.distance(50) : PhysicsConstants.distance(100));
+				wall.position.x = (long)(random.nextDouble() * BenchmarkWorld.WIDTH);
+				wall.position.y = (long)(random.nextDouble() * BenchmarkWorld.HEIGHT);
+				wall.angle = random.nextInt(12) * Math.PI / 6d;
+				game.walls.add(wall);
+			}
+			game.bakeWalls();
+			
+			bullets = BenchmarkWorld.randomBullets(random, populationSize);
+			x = new long[populationSize];
+			y = new long[populationSize];
+			vx = new double[populationSize];
+			vy = new double[populationSize];
+			for (int i = 0; i < populationSize; i++) {
+				x[i] = bullets[i].position.x;
+				y[i] = bullets[i].position.y;
+				vx[i] = bullets[i].velocity.x;
+				vy[i] = bullets[i].velocity.y;
+			}
+		}
+		
+		@Override
+		public boolean hasInvocationSetUp() {
+			return true;
+		}
+		
+		@Override
+		public void setUpInvocation() {
+			for (int i = 0; i < bullets.length; i++) {
+				bullets[i].position.set(x[i], y[i]);
+				bullets[i].velocity.set(vx[i], vy[i]);
+			}
+			game.bullets.clear();
+			game.bullets.addAll(Arrays.asList(bullets));
+		}
+	}
+	
+	/**
+	 * TankBattleGame.collideBulletToWall() with as many bullets as walls.
+	 */
+	public static class CollideBulletToWall extends PassBenchmark {
+		
+		public CollideBulletToWall(Broadphase broadphase) {
+			super("TankBattle.collideBulletToWall", broadphase);
+		}
+		
+		@Override
+		public long run() {
+			game.collideBulletToWall(PhysicsConstants.timeFromNanos(game.getPhysicsTickNanos()));
+			return game.bullets.get(0).position.x;
+		}
+	}
+}
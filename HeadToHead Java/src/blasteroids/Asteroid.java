@@ -41,7 +41,7 @@ public class Asteroid extends PhysicsObject implements IScorable {
 	}
 	
 	/**
-	 * Creates a new Asteroid with shallow copies of this asteroid's velocity
+	 * Creates a new Asteroid with copies of this asteroid's position, velocity
 	 * and acceleration vectors.
 	 * 
 	 * @return
@@ -49,43 +49,57 @@ public class Asteroid extends PhysicsObject implements IScorable {
 	public Asteroid shallowClone() {
 		Asteroid clone = new Asteroid(this.size);
 		clone.position = this.position.clone();
-		clone.velocity = this.velocity;
-		clone.acceleration = this.acceleration;
+		clone.velocity = this.velocity.clone();
+		clone.acceleration = this.acceleration.clone();
 		return clone;
 	}
 	
 	// TODO Turn this into a function in PhysicsObject
 	public void bounceWrapped(PhysicsObject object2, long width, long height) {
-		// Unwrap
-		unwrapPositions(this, object2, width, height);
+		// The offset to the nearest image of object2
+		final long deltaX = wrappedDelta(this.position.x - object2.position.x, width),
+				deltaY = wrappedDelta(this.position.y - object2.position.y, height);
 		
 		// Push the objects away from each other to prevent tangling
-		Vector2DLong relativePosition = this.position.difference(object2.position);
+		long relativeX = deltaX,
+				relativeY = deltaY;
+		long pushX = 0, pushY = 0;
 		long radiusSum = this.getRadius() + object2.getRadius();
-		double overlap = radiusSum - relativePosition.length();
+		double distance = Math.sqrt(relativeX * relativeX + relativeY * relativeY);
+		double overlap = radiusSum - distance;
 		if (overlap > 0d) {
 			final double minDistance = PhysicsConstants.distance(0.1d);
-			relativePosition.setLength(0.5d * overlap + minDistance);
-			this.position.add(relativePosition);
-			object2.position.subtract(relativePosition);
+			double scale = (0.5d * overlap + minDistance) / distance;
+			pushX = relativeX = (long)(scale * relativeX);
+			pushY = relativeY = (long)(scale * relativeY);
+			this.position.x += pushX;
+			this.position.y += pushY;
+			object2.position.x -= pushX;
+			object2.position.y -= pushY;
+			this.wrapPosition(width, height);
+			object2.wrapPosition(width, height);
 		}
 		
 		// Return if the objects are moving away from each other
-		Vector2D relativeVelocity = this.velocity.difference(object2.velocity);
-		double velocityAway = relativeVelocity.dotProduct(relativePosition);
+		double relativeVelocityX = this.velocity.x - object2.velocity.x,
+				relativeVelocityY = this.velocity.y - object2.velocity.y;
+		double velocityAway = relativeVelocityX * relativeX + relativeVelocityY * relativeY;
 		if (velocityAway > 0d) return;
 		
-		// Do elastic collision
-		// TODO Make this more efficient
-		Vector2D obj1VelocityFinal = getVelocity1Final(this, object2);
-		Vector2D obj2VelocityFinal = getVelocity1Final(object2, this);
-		
-		this.velocity = obj1VelocityFinal;
-		object2.velocity = obj2VelocityFinal;
-		
-		// Undo the effect of wrapping
-		this.wrapPosition(width, height);
-		object2.wrapPosition(width, height);
+		// Do elastic collision along the line between the centers
+		double position2Minus1X = deltaX + 2 * pushX,
+				position2Minus1Y = deltaY + 2 * pushY;
+		double numerator = relativeVelocityX * position2Minus1X + relativeVelocityY * position2Minus1Y;
+		double denominator = position2Minus1X * position2Minus1X + position2Minus1Y * position2Minus1Y;
+		double mass1 = this.getMass(),
+				mass2 = object2.getMass();
+		double impulse1 = 2d * mass2 / (mass1 + mass2) * numerator / denominator,
+				impulse2 = 2d * mass1 / (mass1 + mass2) * numerator / denominator;
+		
+		this.velocity.x -= impulse1 * position2Minus1X;
+		this.velocity.y -= impulse1 * position2Minus1Y;
+		object2.velocity.x += impulse2 * position2Minus1X;
+		object2.velocity.y += impulse2 * position2Minus1Y;
 	}
 	
 	// TODO Turn this into a function in PhysicsObject
@@ -0,0 +1,1060 @@
+package blasteroids;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import geometry.Vector2D;
+import geometry.Vector2DLong;
+import headtohead.DebugMode;
+import headtohead.HeadToHeadGame;
+import headtohead.IOwnable;
+import headtohead.IScorable;
+import headtohead.MatchRandom;
+import headtohead.Player;
+import headtohead.TimingWheel;
+import headtohead.WorldSnapshot;
+import physics.AgedRing;
+import physics.BodyStore;
+import physics.Broadphase;
+import physics.CollisionBuffer;
+import physics.ParallelDetection;
+import physics.PhysicsConstants;
+import physics.PhysicsObject;
+import physics.SpatialHash;
+import physics.SweepAndPrune;
+import sound.SoundName;
+
+/**
+ * The Blasteroids simulation. BlasteroidsGameCanvas draws it.
+ */
+public class BlasteroidsGame extends HeadToHeadGame {
+	
+	// Physics constants
+	private static final int gameTimerFPS = 60;
+	private static final double spaceshipMaxSpeed = PhysicsConstants.velocity(200d);
+	private static final double spaceshipThrust = PhysicsConstants.acceleration(180d);
+	private static final double spaceshipDrag = PhysicsConstants.integral(0.3d);
+	private static final double stepsPerHalfTurn = Math.round(gameTimerFPS / 3d);
+	private static final double asteroidMinSpeed = PhysicsConstants.velocity(15d),
+			asteroidMaxSpeed = PhysicsConstants.velocity(40d);
+	private static final double bulletMaxAge = PhysicsConstants.time(2.333d);
+	
+	@Override
+	public long getPhysicsTickNanos() {
+		return Math.round(1e9d / gameTimerFPS);
+	}
+	
+	// Physics objects
+	protected Spaceship[] spaceships;
+	protected List<Asteroid> asteroids;
+	protected AgedRing<Bullet> bullets;
+	protected List<Fragment> fragments;
+	
+	// Pools of the short-lived objects, so that shooting and dying do not create garbage
+	final Bullet.Pool bulletPool = new Bullet.Pool();
+	private final Fragment.Pool fragmentPool = new Fragment.Pool();
+	private final ScoreMarker.Pool scoreMarkerPool = new ScoreMarker.Pool();
+	
+	// Broadphase
+	private Broadphase broadphase = Broadphase.GRID;
+	/** The smallest size of a broadphase grid cell, about the diameter of a medium asteroid. */
+	private static final long hashCellSize = PhysicsConstants.distance(48);
+	private final SpatialHash<Asteroid> asteroidHash;
+	private final SpatialHash<Bullet> bulletHash;
+	private final List<Asteroid> nearbyAsteroids = new ArrayList<Asteroid>();
+	/** Holds the asteroids and the bullets when sweep and prune is used instead of the grids. */
+	private final SweepAndPrune<PhysicsObject> sweep;
+	private final List<Asteroid> hitAsteroids = new ArrayList<Asteroid>();
+	
+	// Collisions found by the detection passes, for the resolve passes to act on
+	private final CollisionBuffer collisions = new CollisionBuffer();
+	/** The slots of the bullets that have hit something, so that each bullet hits once. */
+	private final BitSet hitBulletSlots = new BitSet();
+	private final List<Spaceship> hitSpaceships = new ArrayList<Spaceship>();
+	
+	// Parallel detection
+	/** The fewest asteroids and bullets for which the grid's bullet-asteroid detection runs on several threads. */
+	private int parallelThreshold = 1024;
+	private final ParallelDetection parallelDetection = new ParallelDetection();
+	/** The bullets near an asteroid, for each partition of the parallel detection. */
+	private final List<List<Bullet>> nearbyBullets = new ArrayList<List<Bullet>>();
+	/** Every bullet-asteroid pair that touches, found on several threads, before each asteroid chooses one bullet. */
+	private final CollisionBuffer touchingBullets = new CollisionBuffer();
+	private final ParallelDetection.Detector bulletToAsteroidDetector = new ParallelDetection.Detector() {
+		@Override
+		public void detect(int partition, int start, int end, CollisionBuffer result) {
+			detectBulletToAsteroid(nearbyBullets.get(partition), start, end, null, result);
+		}
+	};
+	
+	// Structure-of-arrays motion
+	/** True if the asteroids move in asteroidBodies instead of one object at a time. */
+	private boolean asteroidsInStore = false;
+	/** The motion of each asteroid, at the asteroid's index in the list, while asteroidsInStore is true. */
+	private final BodyStore asteroidBodies = new BodyStore();
+	
+	// Game timing
+	static final int roundStartTicks = gameTimerFPS;
+	private long roundStartTick;
+	static final int roundOverTicks = (int)(1d * gameTimerFPS);
+	static final int gameOverTicks = roundOverTicks + (int)(2.5d * gameTimerFPS);
+	static final int roundsPerGame = 3;
+	/** The tick on which the round ended, or -1 if it is not over. */
+	private long roundOverTick;
+	private int round;
+	private final TimingWheel.Entry roundOverTimer = new TimingWheel.Entry(new Runnable() {
+		@Override
+		public void run() {
+			roundOverTimeElapsed();
+		}
+	});
+	private final TimingWheel.Entry gameOverTimer = new TimingWheel.Entry(new Runnable() {
+		@Override
+		public void run() {
+			// Game over time has elapsed
+			endGame();
+		}
+	});
+	
+	// Buttons
+	protected final int BUTTON_LEFT = 0, BUTTON_RIGHT = 1, BUTTON_SHOOT = 2;
+	protected int[] lastShotCounters;
+	protected boolean[] shootWasPressed;
+	
+	// Background
+	private long starsRandomSeed = 0;
+	
+	// Score/text
+	private static final int scoreMarkerTicks = (int)(0.5d * gameTimerFPS);
+	/** Ephemeral markers that show points as they are earned. */
+	protected AgedRing<ScoreMarker> scoreMarkers;
+	/** Permanent markers that show each player's score. */
+	protected List<ScoreMarker> playerScoreMarkers;
+	
+	public BlasteroidsGame() {
+		super(400);
+		
+		// Create lists
+		spaceships = new Spaceship[players.length];
+		asteroids = new ArrayList<Asteroid>();
+		bullets = new AgedRing<Bullet>();
+		fragments = new ArrayList<Fragment>();
+		
+		lastShotCounters = new int[players.length];
+		shootWasPressed = new boolean[players.length];
+		
+		scoreMarkers = new AgedRing<ScoreMarker>();
+		
+		// Create the broadphase grids
+		asteroidHash = new SpatialHash<Asteroid>(getGameWidthPhysics(), getGameHeightPhysics(), hashCellSize);
+		bulletHash = new SpatialHash<Bullet>(getGameWidthPhysics(), getGameHeightPhysics(), hashCellSize);
+		sweep = new SweepAndPrune<PhysicsObject>(getGameWidthPhysics(), getGameHeightPhysics(), true);
+		for (int i = 0; i < parallelDetection.getPartitionCount(); i++) {
+			nearbyBullets.add(new ArrayList<Bullet>());
+		}
+	}
+	
+	/**
+	 * Supports GRID, the default, and SWEEP_AND_PRUNE.
+	 */
+	@Override
+	public boolean setBroadphase(Broadphase broadphase) {
+		switch (broadphase) {
+			case GRID:
+			case SWEEP_AND_PRUNE:
+				break;
+			default:
+				return false;
+		}
+		
+		// Take the objects out of the old broadphase, so they can join the new one
+		asteroidHash.clear();
+		bulletHash.clear();
+		sweep.clear();
+		this.broadphase = broadphase;
+		return true;
+	}
+	
+	/**
+	 * Runs the grid's bullet-asteroid detection on several threads when there
+	 * are at least the given number of asteroids and bullets.
+	 */
+	@Override
+	public boolean setParallelThreshold(int bodies) {
+		if (bodies < 0) {
+			throw new IllegalArgumentException("The threshold cannot be negative.");
+		}
+		parallelThreshold = bodies;
+		return true;
+	}
+	
+	/**
+	 * Moves the asteroids in a BodyStore. The store holds the asteroids'
+	 * motion, and each asteroid gets its new position from the store after
+	 * every move, for the collision tests and the snapshot. Collisions that
+	 * change an asteroid copy it back into the store.
+	 */
+	@Override
+	public boolean setBodyStore(boolean enabled) {
+		asteroidsInStore = enabled;
+		storeAllAsteroids();
+		return true;
+	}
+	
+	/**
+	 * Fills the store with the asteroids, or empties it if the asteroids are
+	 * not kept in the store.
+	 */
+	private void storeAllAsteroids() {
+		asteroidBodies.clear();
+		if (!asteroidsInStore) {
+			return;
+		}
+		for (int i = 0; i < asteroids.size(); i++) {
+			asteroidBodies.add(asteroids.get(i), 0);
+		}
+	}
+	
+	/**
+	 * Copies an asteroid back into the store after a collision has changed it.
+	 * @param index The asteroid's index in the list.
+	 */
+	private void storeAsteroid(int index) {
+		if (asteroidsInStore) {
+			asteroidBodies.set(index, asteroids.get(index));
+		}
+	}
+	
+	@Override
+	protected void initializePlayers() {
+		super.initializePlayers();
+		
+		// Create score markers
+		playerScoreMarkers = new ArrayList<ScoreMarker>();
+		for (int i = 0; i < players.length; i++) {
+			Player player = players[i];
+			
+			Vector2DLong position1 = new Vector2DLong(
+					(long)((i != 0 ? 0.07d : 0.93d) * getGameWidthPhysics()),
+					(long)((i != 0 ? 0.90d : 0.10d) * getGameHeightPhysics()));
+			playerScoreMarkers.add(new ScoreMarker(String.valueOf(0),
+					position1, player, isPlayerInverted(player)));
+			
+			Vector2DLong position2 = new Vector2DLong(
+					(long)((i != 0 ? 0.93d : 0.07d) * getGameWidthPhysics()),
+					(long)((i != 0 ? 0.10d : 0.90d) * getGameHeightPhysics() +
+							PhysicsConstants.distance(i != 0 ? 15 : -15)));
+			playerScoreMarkers.add(new ScoreMarker(String.valueOf(0),
+					position2, player, !isPlayerInverted(player)));
+		}
+	}
+	
+	@Override
+	protected int[] getLeftHandedButtonRemap() {
+		return new int[] { 1, 2, 0 };
+	}
+	
+	@Override
+	public void newGame() {
+		super.newGame();
+		
+		// Reset the objects for a new round
+		round = 0;
+		for (int i = 0; i < spaceships.length; i++) {
+			spaceships[i] = null;
+		}
+		newRound();
+		
+		// Randomize the stars
+		starsRandomSeed = random.get(MatchRandom.Stream.BACKGROUND).nextLong();
+		
+		// Reset player scores
+		for (Player player : players) {
+			setPlayerScore(player, 0);
+		}
+		
+		// Reset all button press counters
+		for (Player player : players) {
+			player.getInputSource().resetPressCounters();
+		}
+	}
+	
+	@Override
+	public void newRound() {
+		// Create player ships
+		for (int i = 0; i < players.length; i++) {
+			Spaceship spaceship = spaceships[i];
+			
+			if (spaceship != null && spaceship.isAlive()) {
+				// Refill health
+				spaceship.setAlive(true);
+			} else {
+				// Make new ship
+				spaceship = new Spaceship((0.25d + 0.5d * i) * 2d * Math.PI, players[i]);
+				spaceship.position.x = getGameWidthPhysics() / 2;
+				spaceship.position.y = getGameHeightPhysics() * (1 + 8 * i) / 10;
+				spaceships[i] = spaceship;
+			}
+		}
+		
+		// Reset shot counters
+		for (int i = 0; i < players.length; i++) {
+			players[i].getButton(BUTTON_SHOOT).resetPressCounter();
+			lastShotCounters[i] = 0;
+		}
+		
+		// Create asteroids
+		asteroids.clear();
+		SplittableRandom random = this.random.get(MatchRandom.Stream.LAYOUT);
+		for (int i = 0; i < 3 + round; i++) {
+			boolean bigOne = random.nextDouble() < 0.10d;
+			
+			Asteroid asteroid = new Asteroid(bigOne ? 3 : 2);
+			
+			// Randomize position
+			final long minRadiusSqr = (long)Math.pow(
+					0.15d * getGameWidthPhysics() + asteroid.getRadius(), 2d);
+			if (DebugMode.isEnabled()) {
+				System.out.println("minRadiusSqr = " + minRadiusSqr);
+			}
+			boolean validPosition;
+			do {
+				asteroid.position.x = random.nextInt((int)getGameWidthPhysics());
+				asteroid.position.y = random.nextInt((int)getGameHeightPhysics());
+				
+				// Test the position and reroll if it's invalid
+				validPosition = true;
+				for (int p = 0; p < spaceships.length; p++) {
+					if (asteroid.distanceSquaredTo(spaceships[p]) > minRadiusSqr) continue;
+					validPosition = false;
+					break;
+				}
+			} while (!validPosition);
+			
+			asteroid.velocity = new Vector2D(random.nextDouble() *
+					(asteroidMaxSpeed - asteroidMinSpeed) + asteroidMinSpeed,
+					2d * Math.PI * random.nextDouble(), true);
+			
+			asteroids.add(asteroid);
+			
+			if (bigOne) {
+				i++;
+			}
+		}
+		if (DebugMode.isEnabled()) {
+			System.out.println();
+		}
+		storeAllAsteroids();
+		
+		// Clear lists
+		bulletPool.releaseAll(bullets);
+		fragmentPool.releaseAll(fragments);
+		scoreMarkerPool.releaseAll(scoreMarkers);
+		sound.clearRequests();
+		
+		// Reset the round timers
+		roundOverTimer.cancel();
+		gameOverTimer.cancel();
+		roundStartTick = timers.getTick();
+		roundOverTick = -1;
+		
+		round++;
+	}
+	
+	/**
+	 * Returns true if any button's press counter is greater than zero.
+	 * 
+	 * @return
+	 */
+	@SuppressWarnings("unused")
+	private boolean wasAnyButtonPressed() {
+		for (Player player : players) {
+			for (int i = 0; i < 3; i++) {
+				if (player.getButton(i).getPressCounter() > 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void physicsTick() {
+		try {
+			super.physicsTick();
+			
+			// Do the game tick
+			if (!isRoundOver()) {
+				physicsTickAlive();
+				
+				// Start the round over timer if someone died during this tick
+				if (isRoundOver()) {
+					roundOverTick = timers.getTick();
+					timers.schedule(roundOverTimer, roundOverTicks);
+				}
+			} else {
+				physicsTickDead();
+			}
+			
+			// Play all the sounds that were requested during this tick
+			sound.playRequestedSounds();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			newGame();
+		}
+	}
+	
+	/**
+	 * The normal game tick.
+	 */
+	private void physicsTickAlive() {
+		final long deltaTime = getDeltaTime();
+		
+		// Physics stuff
+		setThrusts();
+		moveEverything(deltaTime);
+		shootBullets();
+		
+		collideSpaceshipToSpaceship();
+		collideBulletToSpaceship();
+		collideAsteroidToSpaceship();
+		
+		collideAsteroidToAsteroid();
+		
+		collideBulletToAsteroid();
+	}
+	
+	/**
+	 * The game tick after someone has died.
+	 */
+	private void physicsTickDead() {
+		// Everything moves in slow motion
+		final long deltaTime = getDeltaTime() / 4;
+		
+		// Physics stuff
+		setThrusts();
+		moveEverything(deltaTime);
+		shootBullets();
+		
+		// No more spaceship or bullet collisions after someone is dead
+		collideAsteroidToAsteroid();
+	}
+	
+	/**
+	 * Starts the next round, or the end of the game, once the round over
+	 * time has elapsed.
+	 */
+	private void roundOverTimeElapsed() {
+		if (demoMode) {
+			// Start a new game for demo mode
+			newGame();
+			return;
+		}
+		
+		// It's not the final round if the scores are tied
+		boolean finalRound = round >= roundsPerGame &&
+				players.length >= 2 && !(players[0].score == players[1].score);
+		
+		if (finalRound) {
+			// Play the game over sound, and end the game after the game over time
+			sound.request(SoundName.GAMEOVER);
+			timers.schedule(gameOverTimer, gameOverTicks - roundOverTicks);
+		} else {
+			newRound();
+		}
+	}
+	
+	private void setThrusts() {
+		// Read buttons, set spaceship thrusts
+		for (int i = 0; i < players.length; i++) {
+			Player player = players[i];
+			Spaceship spaceship = spaceships[i];
+			
+			// Apply drag always
+			spaceship.velocity.scalarProduct(-spaceshipDrag, spaceship.acceleration);
+			
+			// Skip if dead
+			if (!spaceship.isAlive()) {
+				continue;
+			}
+			
+			// Apply thrust when shoot is held down
+			boolean shootPressed = player.getButton(BUTTON_SHOOT).isPressed();
+			boolean thrustOn = shootPressed && shootWasPressed[i];
+			if (thrustOn) {
+				spaceship.acceleration.addPolar(spaceshipThrust, spaceship.angle);
+			}
+			shootWasPressed[i] = shootPressed;
+			
+			// Turn
+			if (player.getButton(BUTTON_LEFT).isPressed()) {
+				spaceship.angle -= Math.PI / stepsPerHalfTurn;
+			} else if (player.getButton(BUTTON_RIGHT).isPressed()) {
+				spaceship.angle += Math.PI / stepsPerHalfTurn;
+			}
+		}
+	}
+	
+	private void moveEverything(long deltaTime) {
+		// Move asteroids
+		if (asteroidsInStore) {
+			asteroidBodies.integrate(deltaTime);
+			asteroidBodies.wrap(getGameWidthPhysics(), getGameHeightPhysics());
+			for (int i = 0; i < asteroids.size(); i++) {
+				asteroidBodies.get(i, asteroids.get(i));
+			}
+		} else {
+			for (int i = 0; i < asteroids.size(); i++) {
+				Asteroid asteroid = asteroids.get(i);
+				asteroid.move(deltaTime);
+				asteroid.wrapPosition(getGameWidthPhysics(), getGameHeightPhysics());
+			}
+		}
+		
+		// Move all spaceships
+		for (Spaceship spaceship : spaceships) {
+			spaceship.move(deltaTime);
+			
+			// Clamp the speed
+			if (spaceship.velocity.length() > spaceshipMaxSpeed) {
+				spaceship.velocity.setLength(spaceshipMaxSpeed);
+			}
+			
+			spaceship.wrapPosition(getGameWidthPhysics(), getGameHeightPhysics());
+		}
+		
+		// Move bullets
+		for (int i = 0; i < bullets.getSlotCount(); i++) {
+			Bullet bullet = bullets.getSlot(i);
+			if (bullet != null) {
+				bullet.move(deltaTime);
+				bullet.wrapPosition(getGameWidthPhysics(), getGameHeightPhysics());
+			}
+		}
+		
+		// Remove the bullets that are too old. They all age together, so they are at the head.
+		Bullet expired;
+		while ((expired = bullets.pollExpired(bulletMaxAge)) != null) {
+			bulletPool.release(expired);
+		}
+		
+		// Move fragments
+		for (int i = 0; i < fragments.size(); i++) {
+			fragments.get(i).move(deltaTime);
+		}
+	}
+	
+	/**
+	 * Shows an ephemeral score marker until scoreMarkerTicks have passed.
+	 * @param value
+	 * @param position
+	 * @param owner
+	 * @param inverted
+	 */
+	private void showScoreMarker(String value, Vector2DLong position, Player owner, boolean inverted) {
+		ScoreMarker scoreMarker = scoreMarkerPool.acquire();
+		scoreMarker.set(value, position, owner, inverted);
+		scoreMarkers.add(scoreMarker);
+		
+		scoreMarker.expireAfter(timers, scoreMarkerTicks, scoreMarkers, scoreMarkerPool);
+	}
+	
+	private void shootBullets() {
+		// Shoot new bullets
+		for (int i = 0; i < players.length; i++) {
+			Player player = players[i];
+			
+			// Cannot shoot when dead
+			if (!spaceships[i].isAlive()) {
+				continue;
+			}
+			
+			// Shoot a single bullet if the press counter increased
+			int shotCounter = player.getButton(BUTTON_SHOOT)
+					.getPressCounter();
+			if (shotCounter > lastShotCounters[i]) {
+				Bullet shot = spaceships[i].shoot(bulletPool);
+				if (shot != null) {
+					bullets.add(shot);
+					sound.request(SoundName.PEW);
+				}
+				lastShotCounters[i] = shotCounter;
+			}
+		}
+	}
+	
+	private void collideSpaceshipToSpaceship() {
+		// Find the spaceships that touch, each spaceship at most once
+		hitSpaceships.clear();
+		for (int a = 0; a < spaceships.length - 1; a++) {
+			Spaceship spaceshipA = spaceships[a];
+			if (!spaceshipA.isAlive() || hitSpaceships.contains(spaceshipA)) {
+				continue;
+			}
+			
+			for (int b = a + 1; b < spaceships.length; b++) {
+				Spaceship spaceshipB = spaceships[b];
+				if (!spaceshipB.isAlive() || hitSpaceships.contains(spaceshipB)) {
+					continue;
+				}
+				
+				if (spaceshipA.isTouching(spaceshipB)) {
+					collisions.add(a, b, spaceshipA, spaceshipB);
+					hitSpaceships.add(spaceshipA);
+					hitSpaceships.add(spaceshipB);
+					break;
+				}
+			}
+		}
+		
+		while (collisions.next()) {
+			Spaceship spaceshipA = spaceships[collisions.getA()],
+					spaceshipB = spaceships[collisions.getB()];
+			
+			// Both are dead
+			spaceshipA.setAlive(false);
+			spaceshipB.setAlive(false);
+			
+			spaceshipDied(spaceshipA);
+			spaceshipDied(spaceshipB);
+			
+			givePoints(spaceshipA, spaceshipB);
+			givePoints(spaceshipB, spaceshipA);
+		}
+	}
+	
+	private void collideBulletToSpaceship() {
+		// Find the spaceship-bullet collisions, each spaceship and each bullet at most once
+		hitBulletSlots.clear();
+		for (int s = 0; s < spaceships.length; s++) {
+			Spaceship spaceship = spaceships[s];
+			if (!spaceship.isAlive()) {
+				continue;
+			}
+			
+			for (int i = 0; i < bullets.getSlotCount(); i++) {
+				Bullet bullet = bullets.getSlot(i);
+				if (bullet == null || hitBulletSlots.get(i)) {
+					continue;
+				}
+				
+				// No friendly fire
+				if (bullet.getOwner() == spaceship.getOwner()) {
+					continue;
+				}
+				
+				if (bullet.isTouching(spaceship)) {
+					collisions.add(i, s, bullet, spaceship);
+					hitBulletSlots.set(i);
+					break;
+				}
+			}
+		}
+		
+		while (collisions.next()) {
+			Bullet bullet = bullets.getSlot(collisions.getA());
+			Spaceship spaceship = spaceships[collisions.getB()];
+			
+			// Bullet hits the spaceship
+			spaceship.takeHit();
+			
+			// Bullet owner gets points
+			givePoints(bullet, spaceship);
+			
+			if (spaceship.isAlive()) {
+				sound.request(SoundName.HIT);
+			} else {
+				spaceshipDied(spaceship);
+			}
+			
+			// Remove the bullet
+			bulletPool.release(bullets.removeSlot(collisions.getA()));
+		}
+	}
+	
+	private void collideAsteroidToSpaceship() {
+		// Find the spaceship-asteroid collisions, only the first asteroid for each spaceship
+		for (int s = 0; s < spaceships.length; s++) {
+			Spaceship spaceship = spaceships[s];
+			if (!spaceship.isAlive()) {
+				continue;
+			}
+			
+			for (int a = 0; a < asteroids.size(); a++) {
+				Asteroid asteroid = asteroids.get(a);
+				if (spaceship.isTouchingWrapped(asteroid, getGameWidthPhysics(), getGameHeightPhysics())) {
+					collisions.addWrapped(s, a, spaceship, asteroid, getGameWidthPhysics(), getGameHeightPhysics());
+					break; // Break to prevent hitting multiple asteroids
+				}
+			}
+		}
+		
+		while (collisions.next()) {
+			Spaceship spaceship = spaceships[collisions.getA()];
+			Asteroid asteroid = asteroids.get(collisions.getB());
+			
+			// Bounce off the asteroid and lose a life
+			// No points are awarded
+			
+			// Ship and asteroid bounce off each other
+			sound.request(SoundName.BUMP);
+			asteroid.bounceWrapped(spaceship, getGameWidthPhysics(), getGameHeightPhysics());
+			storeAsteroid(collisions.getB());
+			
+			// TODO Apply random angular velocity
+			// spaceship.angularVelocity += 1d;
+			
+			// Ship gets hurt
+			spaceship.takeHit();
+			
+			if (spaceship.isAlive()) {
+				sound.request(SoundName.BOUNCE);
+			} else {
+				spaceshipDied(spaceship);
+			}
+		}
+	}
+	
+	void collideAsteroidToAsteroid() {
+		if (broadphase == Broadphase.SWEEP_AND_PRUNE) {
+			sweepAsteroidToAsteroid();
+			return;
+		}
+		
+		// Calculate asteroid-asteroid collisions, only testing nearby asteroids
+		asteroidHash.sync(asteroids);
+		for (int a = 0; a < asteroids.size() - 1; a++) {
+			Asteroid asteroidA = asteroids.get(a);
+			asteroidHash.query(asteroidA.position.x, asteroidA.position.y, asteroidA.getRadius(),
+					nearbyAsteroids);
+			for (int i = 0; i < nearbyAsteroids.size(); i++) {
+				Asteroid asteroidB = nearbyAsteroids.get(i);
+				
+				// Test each pair once
+				if (asteroidHash.getIndex(asteroidB) <= a) {
+					continue;
+				}
+				
+				if (asteroidA.isTouchingWrapped(asteroidB, getGameWidthPhysics(), getGameHeightPhysics())) {
+					// Asteroids bounce off each other
+					sound.request(SoundName.BUMP);
+					asteroidA.bounceWrapped(asteroidB, getGameWidthPhysics(), getGameHeightPhysics());
+					asteroidHash.update(asteroidA);
+					asteroidHash.update(asteroidB);
+					storeAsteroid(a);
+					storeAsteroid(asteroidHash.getIndex(asteroidB));
+				}
+			}
+		}
+	}
+	
+	void collideBulletToAsteroid() {
+		if (broadphase == Broadphase.SWEEP_AND_PRUNE) {
+			sweepBulletToAsteroid();
+			return;
+		}
+		
+		// Find the bullet-asteroid collisions, only testing nearby bullets,
+		// and hitting each asteroid and each bullet at most once
+		bulletHash.sync(bullets);
+		hitBulletSlots.clear();
+		if (!parallelDetection.isParallel() || asteroids.size() + bullets.size() < parallelThreshold) {
+			detectBulletToAsteroid(nearbyBullets.get(0), 0, asteroids.size(), hitBulletSlots, collisions);
+		} else {
+			// Find every bullet that touches each asteroid on several threads,
+			// then hit each asteroid with the first of its bullets that has
+			// not hit an asteroid before it, as the loop on one thread does.
+			// The pairs are in asteroid order however the threads ran.
+			parallelDetection.run(asteroids.size(), bulletToAsteroidDetector, touchingBullets);
+			int lastHitAsteroid = -1;
+			while (touchingBullets.next()) {
+				int slot = touchingBullets.getA(), a = touchingBullets.getB();
+				if (a == lastHitAsteroid || hitBulletSlots.get(slot)) {
+					continue;
+				}
+				collisions.add(slot, a, touchingBullets.getPointX(), touchingBullets.getPointY(),
+						touchingBullets.getNormalX(), touchingBullets.getNormalY(), touchingBullets.getDepth());
+				hitBulletSlots.set(slot);
+				lastHitAsteroid = a;
+			}
+		}
+		
+		resolveBulletToAsteroid();
+	}
+	
+	/**
+	 * Finds the bullets that touch the asteroids in a range, in asteroid order
+	 * and then in the order the grid finds the bullets. Without hit bullets,
+	 * this only reads the asteroids, the bullets and the grid, so ranges can
+	 * be run on several threads at once.
+	 * @param nearby Scratch space for the grid's queries.
+	 * @param start The first asteroid.
+	 * @param end One past the last asteroid.
+	 * @param hitBulletSlots If not null, only the first bullet that is not in
+	 *            the set is added for each asteroid, and is put in the set.
+	 *            Otherwise every bullet that touches is added.
+	 * @param result The first id of each pair is the bullet's slot, and the
+	 *            second is the asteroid's index.
+	 */
+	private void detectBulletToAsteroid(List<Bullet> nearby, int start, int end, BitSet hitBulletSlots,
+			CollisionBuffer result) {
+		for (int a = start; a < end; a++) {
+			Asteroid asteroid = asteroids.get(a);
+			bulletHash.query(asteroid.position.x, asteroid.position.y, asteroid.getRadius(), nearby);
+			for (int i = 0; i < nearby.size(); i++) {
+				Bullet bullet = nearby.get(i);
+				int slot = bullets.getSlotOf(bullet);
+				if (hitBulletSlots != null && hitBulletSlots.get(slot)) {
+					continue;
+				}
+				
+				if (bullet.isTouchingWrapped(asteroid, getGameWidthPhysics(), getGameHeightPhysics())) {
+					result.addWrapped(slot, a, bullet, asteroid, getGameWidthPhysics(), getGameHeightPhysics());
+					if (hitBulletSlots != null) {
+						hitBulletSlots.set(slot);
+						break;
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Splits the asteroids and removes the bullets of the bullet-asteroid
+	 * collisions. The first id of each collision is the bullet's slot, and
+	 * the second is the asteroid's index.
+	 */
+	private void resolveBulletToAsteroid() {
+		boolean destroyedAny = false;
+		while (collisions.next()) {
+			Bullet bullet = bullets.getSlot(collisions.getA());
+			Asteroid asteroid = asteroids.get(collisions.getB());
+			
+			// Bullet hits this asteroid
+			sound.request(SoundName.CRACK);
+			givePoints(bullet, asteroid);
+			
+			// Split the asteroid in two
+			Asteroid otherHalf = asteroid.split(bullet);
+			if (otherHalf != null) {
+				asteroids.add(otherHalf);
+				storeAsteroid(collisions.getB());
+				if (asteroidsInStore) {
+					asteroidBodies.add(otherHalf, 0);
+				}
+			} else {
+				// The asteroid was destroyed. It is taken out of the list
+				// after the loop, so that the other ids still find their asteroids.
+				asteroids.set(collisions.getB(), null);
+				sweep.remove(asteroid);
+				destroyedAny = true;
+			}
+			
+			// Remove this bullet
+			bullets.removeSlot(collisions.getA());
+			bulletHash.remove(bullet);
+			sweep.remove(bullet);
+			bulletPool.release(bullet);
+		}
+		if (destroyedAny) {
+			if (asteroidsInStore) {
+				// Remove the bodies from the back, so that the indices of the others hold
+				for (int i = asteroids.size() - 1; i >= 0; i--) {
+					if (asteroids.get(i) == null) {
+						asteroidBodies.remove(i);
+					}
+				}
+			}
+			asteroids.removeAll(Collections.singleton(null));
+		}
+	}
+	
+	/**
+	 * Brings the sweep and prune boxes up to date with the asteroids and bullets.
+	 */
+	private void updateSweep() {
+		sweep.beginUpdate();
+		sweep.update(asteroids);
+		sweep.update(bullets);
+		sweep.endUpdate();
+	}
+	
+	private void sweepAsteroidToAsteroid() {
+		// Calculate asteroid-asteroid collisions, only testing the pairs whose boxes overlap
+		updateSweep();
+		for (int p = 0; p < sweep.getPairCount(); p++) {
+			PhysicsObject a = sweep.getPairA(p), b = sweep.getPairB(p);
+			if (!(a instanceof Asteroid && b instanceof Asteroid)) {
+				continue;
+			}
+			Asteroid asteroidA = (Asteroid)a, asteroidB = (Asteroid)b;
+			if (asteroidA.isTouchingWrapped(asteroidB, getGameWidthPhysics(), getGameHeightPhysics())) {
+				// Asteroids bounce off each other
+				sound.request(SoundName.BUMP);
+				asteroidA.bounceWrapped(asteroidB, getGameWidthPhysics(), getGameHeightPhysics());
+				storeAsteroid(sweep.getIndex(asteroidA));
+				storeAsteroid(sweep.getIndex(asteroidB));
+			}
+		}
+	}
+	
+	private void sweepBulletToAsteroid() {
+		// Find the bullet-asteroid collisions among the pairs whose boxes
+		// overlap, hitting each asteroid and each bullet at most once
+		updateSweep();
+		hitAsteroids.clear();
+		hitBulletSlots.clear();
+		for (int p = 0; p < sweep.getPairCount(); p++) {
+			PhysicsObject a = sweep.getPairA(p), b = sweep.getPairB(p);
+			Bullet bullet;
+			Asteroid asteroid;
+			if (a instanceof Bullet && b instanceof Asteroid) {
+				bullet = (Bullet)a;
+				asteroid = (Asteroid)b;
+			} else if (a instanceof Asteroid && b instanceof Bullet) {
+				bullet = (Bullet)b;
+				asteroid = (Asteroid)a;
+			} else {
+				continue;
+			}
+			
+			int slot = bullets.getSlotOf(bullet);
+			if (hitBulletSlots.get(slot) || hitAsteroids.contains(asteroid)) {
+				continue;
+			}
+			
+			if (bullet.isTouchingWrapped(asteroid, getGameWidthPhysics(), getGameHeightPhysics())) {
+				collisions.addWrapped(slot, sweep.getIndex(asteroid), bullet, asteroid,
+						getGameWidthPhysics(), getGameHeightPhysics());
+				hitBulletSlots.set(slot);
+				hitAsteroids.add(asteroid);
+			}
+		}
+		
+		resolveBulletToAsteroid();
+	}
+	
+	private void spaceshipDied(Spaceship spaceship) {
+		spaceship.addFragments(random.get(MatchRandom.Stream.FRAGMENTS), fragmentPool, fragments);
+		sound.request(SoundName.CRASH);
+	}
+	
+	private void givePoints(IOwnable playerObj, IScorable scoreObj) {
+		Player owner = playerObj.getOwner();
+		if (owner == null) {
+			return;
+		}
+		
+		// Add points and update score marker
+		int score = scoreObj.getScore();
+		setPlayerScore(owner, owner.score + score);
+		
+		// Create a score marker if the object is physical
+		if (scoreObj instanceof PhysicsObject) {
+			PhysicsObject physicsObj = (PhysicsObject)scoreObj;
+			showScoreMarker(String.valueOf(score),
+					physicsObj.position, owner, isPlayerInverted(owner));
+		}
+	}
+	
+	@SuppressWarnings("unused")
+	private void takePoints(IOwnable playerObj, IScorable scoreObj, PhysicsObject physicsObj) {
+		Player owner = playerObj.getOwner();
+		if (owner == null) {
+			return;
+		}
+		
+		// Subtract points and update score marker
+		int score = -scoreObj.getScore() / 2;
+		setPlayerScore(owner, owner.score + score);
+		
+		// Create a score marker if the object is physical
+		if (physicsObj != null) {
+			showScoreMarker(String.valueOf(score),
+					physicsObj.position, null/*owner*/, isPlayerInverted(owner));
+		}
+	}
+	
+	/**
+	 * Sets a player's score to the given value and updates the score markers.
+	 * 
+	 * @param player
+	 * @param newScore
+	 */
+	private void setPlayerScore(Player player, int newScore) {
+		player.score = Math.max(newScore, 0);
+		for (ScoreMarker scoreMarker : playerScoreMarkers) {
+			if (scoreMarker.getOwner() == player) {
+				scoreMarker.value = String.valueOf(player.score);
+			}
+		}
+	}
+	
+	private boolean isPlayerInverted(Player player) {
+		return player == players[0];
+	}
+	
+	public boolean isRoundOver() {
+		for (int i = 0; i < players.length; i++) {
+			if (!spaceships[i].isAlive()) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	protected WorldSnapshot createSnapshot() {
+		return new BlasteroidsSnapshot(getGameWidthPhysics(), getGameHeightPhysics(), players.length);
+	}
+	
+	@Override
+	protected void captureSnapshot(WorldSnapshot worldSnapshot) {
+		BlasteroidsSnapshot snapshot = (BlasteroidsSnapshot)worldSnapshot;
+		
+		// Physics objects
+		for (Asteroid asteroid : asteroids) {
+			snapshot.asteroids.add(asteroid, snapshot);
+		}
+		for (Spaceship spaceship : spaceships) {
+			if (spaceship != null && spaceship.isAlive()) {
+				snapshot.spaceships.add(spaceship, snapshot);
+			}
+		}
+		for (Fragment fragment : fragments) {
+			snapshot.fragments.add(fragment, snapshot);
+		}
+		for (Bullet bullet : bullets) {
+			snapshot.bullets.add(bullet, snapshot);
+		}
+		
+		// Score markers
+		for (ScoreMarker scoreMarker : scoreMarkers) {
+			addScoreMarker(snapshot.scoreMarkers, scoreMarker);
+		}
+		for (ScoreMarker scoreMarker : playerScoreMarkers) {
+			addScoreMarker(snapshot.playerScoreMarkers, scoreMarker);
+		}
+		
+		// Player state
+		for (int i = 0; i < players.length; i++) {
+			snapshot.health[i] = spaceships[i] != null ? spaceships[i].getHealth() : 0;
+			snapshot.scores[i] = players[i].score;
+		}
+		
+		// Game timing
+		snapshot.round = round;
+		snapshot.roundStartCounter = (int)timers.getTicksSince(roundStartTick);
+		snapshot.roundOverCounter = roundOverTick >= 0 ? (int)timers.getTicksSince(roundOverTick) : 0;
+		snapshot.demoMode = demoMode;
+		snapshot.starsRandomSeed = starsRandomSeed;
+	}
+	
+	private static void addScoreMarker(WorldSnapshot.TextList list, ScoreMarker scoreMarker) {
+		list.add(scoreMarker.value, scoreMarker.position.x, scoreMarker.position.y,
+				scoreMarker.getOwner(), scoreMarker.isInverted());
+	}
+}
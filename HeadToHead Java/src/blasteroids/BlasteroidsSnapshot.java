@@ -0,0 +1,47 @@
+package blasteroids;
+
+import headtohead.WorldSnapshot;
+
+/**
+ * Everything needed to draw a frame of Blasteroids.
+ */
+public class BlasteroidsSnapshot extends WorldSnapshot {
+	
+	// Physics objects
+	protected final BodyList asteroids, spaceships, fragments, bullets;
+	
+	// Score/text
+	protected final TextList scoreMarkers = new TextList(),
+			playerScoreMarkers = new TextList();
+	
+	// Player state
+	protected final int[] health, scores;
+	
+	// Game timing
+	protected int round, roundStartCounter, roundOverCounter;
+	protected boolean demoMode;
+	
+	// Background
+	protected long starsRandomSeed;
+	
+	public BlasteroidsSnapshot(long width, long height, int playerCount) {
+		asteroids = new BodyList(width, height);
+		spaceships = new BodyList(width, height);
+		fragments = new BodyList(0, 0);
+		bullets = new BodyList(width, height);
+		
+		health = new int[playerCount];
+		scores = new int[playerCount];
+	}
+	
+	@Override
+	public void clear(long number, long timeNanos) {
+		super.clear(number, timeNanos);
+		asteroids.clear();
+		spaceships.clear();
+		fragments.clear();
+		bullets.clear();
+		scoreMarkers.clear();
+		playerScoreMarkers.clear();
+	}
+}
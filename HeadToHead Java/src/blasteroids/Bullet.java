@@ -3,6 +3,7 @@ package blasteroids;
 import headtohead.IOwnable;
 import headtohead.Player;
 import physics.AgedPhysicsObject;
+import physics.ObjectPool;
 import physics.PhysicsConstants;
 
 public class Bullet extends AgedPhysicsObject implements IOwnable {
@@ -19,6 +20,16 @@ public class Bullet extends AgedPhysicsObject implements IOwnable {
 		return owner;
 	}
 	
+	public void setOwner(Player owner) {
+		this.owner = owner;
+	}
+	
+	@Override
+	protected void reset() {
+		super.reset();
+		owner = null;
+	}
+	
 	@Override
 	public long getRadius() {
 		return radius;
@@ -32,4 +43,14 @@ public class Bullet extends AgedPhysicsObject implements IOwnable {
 	public static void setRadius(long radius) {
 		Bullet.radius = radius;
 	}
+	
+	/**
+	 * A pool of bullets, which are created without an owner.
+	 */
+	public static class Pool extends ObjectPool<Bullet> {
+		@Override
+		protected Bullet create() {
+			return new Bullet(null);
+		}
+	}
 }
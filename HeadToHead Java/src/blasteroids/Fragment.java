@@ -6,9 +6,11 @@ import geometry.Vector2DLong;
 import headtohead.IOwnable;
 import headtohead.Player;
 import physics.IPolygon;
+import physics.IReshapeablePolygon;
+import physics.ObjectPool;
 import physics.RotatablePhysicsObject;
 
-public class Fragment extends RotatablePhysicsObject implements IOwnable, IPolygon {
+public class Fragment extends RotatablePhysicsObject implements IOwnable, IReshapeablePolygon {
 	
 	private Player owner;
 	
@@ -20,28 +22,57 @@ public class Fragment extends RotatablePhysicsObject implements IOwnable, IPolyg
 	 * @param owner
 	 */
 	public Fragment(Vector2DLong[] newOutline, Player owner) {
+		set(newOutline, owner);
+	}
+	
+	/**
+	 * Sets the outline and owner of this fragment, and puts it at the average
+	 * of the outline points, e.g. after it is taken from a pool.
+	 * @param newOutline The outline in physics units.
+	 * @param owner
+	 */
+	public void set(Vector2DLong[] newOutline, Player owner) {
 		// Make the position the average of the outline points
+		long sumX = 0, sumY = 0;
 		for (int i = 0; i < newOutline.length; i++) {
-			position.add(newOutline[i]);
+			sumX += newOutline[i].x;
+			sumY += newOutline[i].y;
 		}
-		position = position.scalarProduct(1d / newOutline.length);
+		final double scale = 1d / newOutline.length;
+		position.set((long)(scale * sumX), (long)(scale * sumY));
 		
 		// Copy the outline vectors, relative to the position
-		outlineRelativeVectors = new Vector2DLong[newOutline.length];
+		if (outlineRelativeVectors == null || outlineRelativeVectors.length != newOutline.length) {
+			outlineRelativeVectors = new Vector2DLong[newOutline.length];
+			for (int i = 0; i < outlineRelativeVectors.length; i++) {
+				outlineRelativeVectors[i] = new Vector2DLong();
+			}
+		}
 		for (int i = 0; i < outlineRelativeVectors.length; i++) {
-			outlineRelativeVectors[i] = newOutline[i].difference(position);
+			newOutline[i].difference(position, outlineRelativeVectors[i]);
 		}
 		
 		// Set the owner
 		this.owner = owner;
 	}
 	
+	@Override
+	protected void reset() {
+		super.reset();
+		owner = null;
+	}
+	
 	@Override
 	public Vector2DLong[] getOutlineVectors(long extrapolateTime) {
+		return getOutlineVectors(IPolygon.extrapolatePosition(this, extrapolateTime), angle);
+	}
+	
+	private Vector2DLong[] getOutlineVectors(Vector2DLong outlinePosition, double outlineAngle) {
+		final double cos = cos(outlineAngle), sin = sin(outlineAngle);
 		Vector2DLong[] outlineVectors = new Vector2DLong[outlineRelativeVectors.length];
-		Vector2DLong outlinePosition = IPolygon.extrapolatePosition(this, extrapolateTime);
 		for (int i = 0; i < outlineVectors.length; i++) {
-			outlineVectors[i] = outlinePosition.sum(outlineRelativeVectors[i].getRotated(angle));
+			outlineVectors[i] = outlineRelativeVectors[i].getRotated(cos, sin, new Vector2DLong());
+			outlineVectors[i].add(outlinePosition);
 		}
 		return outlineVectors;
 	}
@@ -51,6 +82,21 @@ public class Fragment extends RotatablePhysicsObject implements IOwnable, IPolyg
 		return IPolygon.vectorsToPolygon(getOutlineVectors(extrapolateTime));
 	}
 	
+	@Override
+	public Polygon getOutline(Vector2DLong outlinePosition, double outlineAngle) {
+		return IPolygon.vectorsToPolygon(getOutlineVectors(outlinePosition, outlineAngle));
+	}
+	
+	@Override
+	public int getOutlineSize() {
+		return outlineRelativeVectors.length;
+	}
+	
+	@Override
+	public Vector2DLong getRelativeOutlineVector(int i) {
+		return outlineRelativeVectors[i];
+	}
+	
 	@Override
 	public long getRadius() {
 		return 0;
@@ -71,4 +117,14 @@ public class Fragment extends RotatablePhysicsObject implements IOwnable, IPolyg
 		return "Fragment, velocity = " + velocity.length();
 	}
 	
+	
+	/**
+	 * A pool of fragments. Set the outline of a fragment after taking it.
+	 */
+	public static class Pool extends ObjectPool<Fragment> {
+		@Override
+		protected Fragment create() {
+			return new Fragment(new Vector2DLong[0], null);
+		}
+	}
 }
@@ -1,9 +1,13 @@
 package blasteroids;
 
+import java.util.Collection;
+
 import geometry.Vector2DLong;
 import headtohead.IOwnable;
 import headtohead.Player;
+import headtohead.TimingWheel;
 import physics.AgedPhysicsObject;
+import physics.ObjectPool;
 
 public class ScoreMarker extends AgedPhysicsObject implements IOwnable {
 	
@@ -13,13 +17,73 @@ public class ScoreMarker extends AgedPhysicsObject implements IOwnable {
 	
 	private boolean inverted = false;
 	
+	// Expiry, see expireAfter(). The timer is reused each time the marker is.
+	private final TimingWheel.Entry expiryTimer = new TimingWheel.Entry(new Runnable() {
+		@Override
+		public void run() {
+			expire();
+		}
+	});
+	private ObjectPool<ScoreMarker> expiryPool;
+	private Collection<? super ScoreMarker> expiryMarkers;
+	private long expiryHandle = ObjectPool.NO_HANDLE;
+	
 	public ScoreMarker(String value, Vector2DLong position, Player owner, boolean inverted) {
+		set(value, position, owner, inverted);
+	}
+	
+	/**
+	 * Sets everything about this marker, e.g. after it is taken from a pool.
+	 * @param value
+	 * @param position Copied into this marker's position.
+	 * @param owner
+	 * @param inverted
+	 */
+	public void set(String value, Vector2DLong position, Player owner, boolean inverted) {
 		this.value = value;
-		this.position = position.clone();
+		this.position.set(position);
 		this.owner = owner;
 		this.inverted = inverted;
 	}
 	
+	@Override
+	protected void reset() {
+		super.reset();
+		value = null;
+		owner = null;
+		inverted = false;
+		expiryTimer.cancel();
+		expiryPool = null;
+		expiryMarkers = null;
+		expiryHandle = ObjectPool.NO_HANDLE;
+	}
+	
+	/**
+	 * Removes this marker from a list and returns it to its pool after a
+	 * number of ticks, without allocating. The timer holds the marker's
+	 * handle, so it does nothing if the marker has gone back to the pool
+	 * before then, e.g. at the next round.
+	 * @param timers
+	 * @param ticks
+	 * @param markers The list that this marker is in.
+	 * @param pool The pool that this marker was taken from.
+	 */
+	public void expireAfter(TimingWheel timers, long ticks, Collection<? super ScoreMarker> markers,
+			ObjectPool<ScoreMarker> pool) {
+		expiryPool = pool;
+		expiryMarkers = markers;
+		expiryHandle = pool.getHandle(this);
+		timers.schedule(expiryTimer, ticks);
+	}
+	
+	private void expire() {
+		if (expiryPool.get(expiryHandle) != this) {
+			return;
+		}
+		expiryMarkers.remove(this);
+		expiryPool.release(this);
+	}
+	
 	@Override
 	public void move(long deltaTime) {
 		age += deltaTime;
@@ -43,4 +107,14 @@ public class ScoreMarker extends AgedPhysicsObject implements IOwnable {
 	public boolean isInverted() {
 		return inverted;
 	}
+	
+	/**
+	 * A pool of blank score markers.
+	 */
+	public static class Pool extends ObjectPool<ScoreMarker> {
+		@Override
+		protected ScoreMarker create() {
+			return new ScoreMarker(null, new Vector2DLong(), null, false);
+		}
+	}
 }
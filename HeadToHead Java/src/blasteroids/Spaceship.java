@@ -1,15 +1,15 @@
 package blasteroids;
 
-import java.util.ArrayList;
+import java.awt.Polygon;
 import java.util.Collection;
-import java.util.Random;
+import java.util.SplittableRandom;
 
-import geometry.Vector2D;
 import geometry.Vector2DLong;
 import headtohead.IOwnable;
 import headtohead.IScorable;
 import headtohead.Player;
 import physics.IPolygon;
+import physics.ObjectPool;
 import physics.PhysicsConstants;
 import physics.RotatablePolygonPhysicsObject;
 
@@ -38,14 +38,17 @@ public class Spaceship extends RotatablePolygonPhysicsObject implements IOwnable
 	 * Gets a bullet moving at this spaceship's heading angle relative to this
 	 * spaceship.
 	 * 
+	 * @param bulletPool The pool to take the bullet from.
 	 * @return
 	 */
-	public Bullet shoot() {
-		Bullet bullet = new Bullet(owner);
-		bullet.position = this.position
-				.sum(new Vector2D(getRadius() * 1.3d, angle, true));
-		bullet.velocity = this.velocity
-				.sum(new Vector2D(bulletSpeed, angle, true));
+	public Bullet shoot(ObjectPool<Bullet> bulletPool) {
+		Bullet bullet = bulletPool.acquire();
+		bullet.setOwner(owner);
+		final double offset = getRadius() * 1.3d;
+		bullet.position.set(position.x + (long)(offset * getCos()),
+				position.y + (long)(offset * getSin()));
+		bullet.velocity.set(velocity.x + bulletSpeed * getCos(),
+				velocity.y + bulletSpeed * getSin());
 		return bullet;
 	}
 	
@@ -55,7 +58,7 @@ public class Spaceship extends RotatablePolygonPhysicsObject implements IOwnable
 		
 		// Getting hit slows you down
 		// velocity = new Vector2D(0d, 0d);
-		velocity = velocity.scalarProduct(0.5d);
+		velocity.scale(0.5d);
 	}
 	
 	public void setAlive(boolean alive) {
@@ -72,40 +75,77 @@ public class Spaceship extends RotatablePolygonPhysicsObject implements IOwnable
 	
 	@Override
 	public Vector2DLong[] getOutlineVectors(long extrapolateTime) {
+		return getOutlineVectors(IPolygon.extrapolatePosition(this, extrapolateTime), angle);
+	}
+	
+	private Vector2DLong[] getOutlineVectors(Vector2DLong outlinePosition, double outlineAngle) {
+		long[] x = new long[3], y = new long[3];
+		getVertices(outlinePosition.x, outlinePosition.y, outlineAngle, x, y);
+		return new Vector2DLong[] {
+				new Vector2DLong(x[0], y[0]),
+				new Vector2DLong(x[1], y[1]),
+				new Vector2DLong(x[2], y[2]) };
+	}
+	
+	@Override
+	protected int getVertexCount() {
+		return 3;
+	}
+	
+	@Override
+	protected void getVertices(long[] x, long[] y) {
+		getVertices(position.x, position.y, angle, x, y);
+	}
+	
+	/**
+	 * Computes the corners of the triangle at a pose.
+	 * @param positionX
+	 * @param positionY
+	 * @param outlineAngle
+	 * @param x The x coordinates are stored in this.
+	 * @param y The y coordinates are stored in this.
+	 */
+	private void getVertices(long positionX, long positionY, double outlineAngle, long[] x, long[] y) {
 		// A number of radians < PI
 		final double wingAngle = 2.4d;
 		
 		// The scale of the triangle
 		final double vertexRadius = getRadius() / 0.7d;
 		
-		Vector2DLong outlinePosition = IPolygon.extrapolatePosition(this, extrapolateTime);
-		
-		return new Vector2DLong[] {
-				outlinePosition.sum(new Vector2D(vertexRadius, angle, true)),
-				outlinePosition.sum(new Vector2D(vertexRadius, angle + wingAngle, true)),
-				outlinePosition.sum(new Vector2D(vertexRadius, angle - wingAngle, true)) };
+		x[0] = positionX + (long)(vertexRadius * Math.cos(outlineAngle));
+		y[0] = positionY + (long)(vertexRadius * Math.sin(outlineAngle));
+		x[1] = positionX + (long)(vertexRadius * Math.cos(outlineAngle + wingAngle));
+		y[1] = positionY + (long)(vertexRadius * Math.sin(outlineAngle + wingAngle));
+		x[2] = positionX + (long)(vertexRadius * Math.cos(outlineAngle - wingAngle));
+		y[2] = positionY + (long)(vertexRadius * Math.sin(outlineAngle - wingAngle));
+	}
+	
+	@Override
+	public Polygon getOutline(Vector2DLong outlinePosition, double outlineAngle) {
+		return IPolygon.vectorsToPolygon(getOutlineVectors(outlinePosition, outlineAngle));
 	}
 	
 	/**
 	 * Gets the pieces that this ship would break into if it just died.
 	 * The ship is broken from its center to the midpoint of each edge.
-	 * @return
+	 * @param random
+	 * @param fragmentPool The pool to take the fragments from.
+	 * @param fragments The fragments are added to this.
 	 */
-	public Collection<Fragment> getFragments() {
+	public void addFragments(SplittableRandom random, ObjectPool<Fragment> fragmentPool,
+			Collection<Fragment> fragments) {
 		// Create arrays
 		Vector2DLong[] shipOutline = getOutlineVectors(0);
 		Vector2DLong[] shipOutlineMidpoints = new Vector2DLong[shipOutline.length];
-		Collection<Fragment> fragments = new ArrayList<Fragment>(shipOutline.length + 1);
 		
 		// The proportional speed at which fragments move away from the ship center
 		final double fragmentSplitSpeedMax = PhysicsConstants.integral(5d);
 		final double fragmentRotationSpeedMax = PhysicsConstants.angularVelocity(6d);
 		
-		Random random = new Random();
-		
 		// Create a little man-shaped fragment
 		double headAngle = this.angle + Math.PI;
-		Fragment fragmentMan = new Fragment(new Vector2DLong[] {
+		Fragment fragmentMan = fragmentPool.acquire();
+		fragmentMan.set(new Vector2DLong[] {
 				this.position,	// Shoulder
 				this.position.sum(new Vector2DLong(
 						PhysicsConstants.distance(2d), headAngle, true)),	// Head
@@ -139,7 +179,8 @@ public class Spaceship extends RotatablePolygonPhysicsObject implements IOwnable
 		
 		// Create fragments
 		for (int i = 0; i < shipOutline.length; i++) {
-			Fragment fragment = new Fragment(new Vector2DLong[] {
+			Fragment fragment = fragmentPool.acquire();
+			fragment.set(new Vector2DLong[] {
 					this.position,
 					shipOutlineMidpoints[i],
 					shipOutline[i],
@@ -154,8 +195,6 @@ public class Spaceship extends RotatablePolygonPhysicsObject implements IOwnable
 			
 			fragments.add(fragment);
 		}
-		
-		return fragments;
 	}
 	
 	@Override
@@ -28,6 +28,15 @@ public class InputSource {
 		}
 	}
 	
+	/**
+	 * Clears the press counters of all the buttons.
+	 */
+	public void resetPressCounters() {
+		for (IButton button : buttons) {
+			button.resetPressCounter();
+		}
+	}
+	
 	public void clearButtonRemap() {
 		for (int i = 0; i < buttonRemap.length; i++) {
 			buttonRemap[i] = i;
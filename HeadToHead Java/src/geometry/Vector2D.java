@@ -48,6 +48,31 @@ public class Vector2D {
 		this.y += v.y;
 	}
 	
+	/**
+	 * Adds v scaled by s to this vector, i.e. this += s * v.
+	 * 
+	 * @param v
+	 *            Any vector.
+	 * @param s
+	 *            The scale factor.
+	 */
+	public void addScaled(Vector2D v, double s) {
+		this.x += s * v.x;
+		this.y += s * v.y;
+	}
+	
+	/**
+	 * Adds a vector given in polar form to this vector.
+	 * 
+	 * @param length
+	 * @param angle
+	 *            The angle in radians.
+	 */
+	public void addPolar(double length, double angle) {
+		this.x += length * Math.cos(angle);
+		this.y += length * Math.sin(angle);
+	}
+	
 	public double angle() {
 		return Math.atan2(y, x);
 	}
@@ -82,6 +107,19 @@ public class Vector2D {
 		return new Vector2D(this.x - v.x, this.y - v.y);
 	}
 	
+	/**
+	 * @param v
+	 *            Any vector.
+	 * @param result
+	 *            The vector to store the result in. May be either operand.
+	 * @return result, set to this vector minus v.
+	 */
+	public Vector2D difference(Vector2D v, Vector2D result) {
+		result.x = this.x - v.x;
+		result.y = this.y - v.y;
+		return result;
+	}
+	
 	/**
 	 * Calculates the sum of the products of the operands' respective x and y
 	 * components.
@@ -166,6 +204,22 @@ public class Vector2D {
 		return new Vector2D(this.length(), this.angle() + angle, true);
 	}
 	
+	/**
+	 * Gets a rotated copy of this vector without allocating.
+	 * 
+	 * @param angle
+	 * @param result
+	 *            The vector to store the result in. May be this vector.
+	 * @return result, set to this vector rotated by angle.
+	 */
+	public Vector2D getRotated(double angle, Vector2D result) {
+		double length = this.length();
+		double newAngle = this.angle() + angle;
+		result.x = length * Math.cos(newAngle);
+		result.y = length * Math.sin(newAngle);
+		return result;
+	}
+	
 	/**
 	 * @param s
 	 *            The scale factor.
@@ -175,6 +229,41 @@ public class Vector2D {
 		return new Vector2D(s * this.x, s * this.y);
 	}
 	
+	/**
+	 * @param s
+	 *            The scale factor.
+	 * @param result
+	 *            The vector to store the result in. May be this vector.
+	 * @return result, set to this vector scaled by s.
+	 */
+	public Vector2D scalarProduct(double s, Vector2D result) {
+		result.x = s * this.x;
+		result.y = s * this.y;
+		return result;
+	}
+	
+	/**
+	 * Scales this vector.
+	 * 
+	 * @param s
+	 *            The scale factor.
+	 * @see <code>public Vector2D scalarProduct(double s)</code>
+	 */
+	public void scale(double s) {
+		this.x *= s;
+		this.y *= s;
+	}
+	
+	public void set(double x, double y) {
+		this.x = x;
+		this.y = y;
+	}
+	
+	public void set(Vector2D v) {
+		this.x = v.x;
+		this.y = v.y;
+	}
+	
 	/**
 	 * Rotates the vector while preserving its length.
 	 * 
@@ -228,6 +317,19 @@ public class Vector2D {
 		return new Vector2D(this.x + v.x, this.y + v.y);
 	}
 	
+	/**
+	 * @param v
+	 *            Any vector.
+	 * @param result
+	 *            The vector to store the result in. May be either operand.
+	 * @return result, set to this vector plus v.
+	 */
+	public Vector2D sum(Vector2D v, Vector2D result) {
+		result.x = this.x + v.x;
+		result.y = this.y + v.y;
+		return result;
+	}
+	
 	@Override
 	public String toString() {
 		return "[" + this.x + "," + this.y + "]";
@@ -243,4 +345,17 @@ public class Vector2D {
 		unit.setLength(1d);
 		return unit;
 	}
+	
+	/**
+	 * Creates a unit vector without allocating.
+	 * 
+	 * @param result
+	 *            The vector to store the result in. May be this vector.
+	 * @return result, set to a unit vector parallel to this vector.
+	 */
+	public Vector2D toUnit(Vector2D result) {
+		result.set(this);
+		result.setLength(1d);
+		return result;
+	}
 }
@@ -43,6 +43,16 @@ public class Vector2DLong {
 		this.y += (long)v.y;
 	}
 	
+	/**
+	 * Adds v scaled by s to this vector, truncating each component of s * v.
+	 * @param v
+	 * @param s
+	 */
+	public void addScaled(Vector2D v, double s) {
+		this.x += (long)(s * v.x);
+		this.y += (long)(s * v.y);
+	}
+	
 	public double angle() {
 		return Math.atan2(y, x);
 	}
@@ -55,6 +65,28 @@ public class Vector2DLong {
 		return new Vector2DLong(this.x - v.x, this.y - v.y);
 	}
 	
+	/**
+	 * @param v
+	 * @param result The vector to store the result in. May be either operand.
+	 * @return result, set to this vector minus v.
+	 */
+	public Vector2DLong difference(Vector2DLong v, Vector2DLong result) {
+		result.x = this.x - v.x;
+		result.y = this.y - v.y;
+		return result;
+	}
+	
+	/**
+	 * Gets the squared distance to v without allocating.
+	 * @param v
+	 * @return
+	 */
+	public long distanceSquared(Vector2DLong v) {
+		long dx = this.x - v.x,
+				dy = this.y - v.y;
+		return dx * dx + dy * dy;
+	}
+	
 	public long dotProduct(Vector2DLong v) {
 		return this.x * v.x + this.y * v.y;
 	}
@@ -79,6 +111,38 @@ public class Vector2DLong {
 		return new Vector2DLong(this.x + (long)v.x, this.y + (long)v.y);
 	}
 	
+	/**
+	 * @param v
+	 * @param result The vector to store the result in. May be either operand.
+	 * @return result, set to this vector plus v.
+	 */
+	public Vector2DLong sum(Vector2DLong v, Vector2DLong result) {
+		result.x = this.x + v.x;
+		result.y = this.y + v.y;
+		return result;
+	}
+	
+	/**
+	 * @param v
+	 * @param result The vector to store the result in. May be this vector.
+	 * @return result, set to this vector plus v, with v truncated.
+	 */
+	public Vector2DLong sum(Vector2D v, Vector2DLong result) {
+		result.x = this.x + (long)v.x;
+		result.y = this.y + (long)v.y;
+		return result;
+	}
+	
+	public void set(long x, long y) {
+		this.x = x;
+		this.y = y;
+	}
+	
+	public void set(Vector2DLong v) {
+		this.x = v.x;
+		this.y = v.y;
+	}
+	
 	@Override
 	public String toString() {
 		return "Vector2DInt[x=" + this.x + ",y=" + this.y + "]";
@@ -107,6 +171,35 @@ public class Vector2DLong {
 		return new Vector2DLong((long)(length * Math.cos(newAngle)), (long)(length * Math.sin(newAngle)));
 	}
 	
+	/**
+	 * Gets a rotated copy of this vector without allocating.
+	 * @param angle
+	 * @param result The vector to store the result in. May be this vector.
+	 * @return result, set to this vector rotated by angle.
+	 */
+	public Vector2DLong getRotated(double angle, Vector2DLong result) {
+		double length = this.length();
+		double newAngle = this.angle() + angle;
+		result.x = (long)(length * Math.cos(newAngle));
+		result.y = (long)(length * Math.sin(newAngle));
+		return result;
+	}
+	
+	/**
+	 * Gets a copy of this vector rotated by the angle whose cosine and sine are given.
+	 * This is a plain 2x2 multiply, without any trigonometric functions.
+	 * @param cos
+	 * @param sin
+	 * @param result The vector to store the result in. May be this vector.
+	 * @return result, set to the rotated vector.
+	 */
+	public Vector2DLong getRotated(double cos, double sin, Vector2DLong result) {
+		long x = this.x;
+		result.x = (long)(x * cos - this.y * sin);
+		result.y = (long)(x * sin + this.y * cos);
+		return result;
+	}
+	
 	public void setAngle(double angle) {
 		double length = this.length();
 		this.x = (long)(length * Math.cos(angle));
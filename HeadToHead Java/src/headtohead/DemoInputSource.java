@@ -1,40 +1,75 @@
 package headtohead;
 
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import java.util.Random;
-
-import javax.swing.Timer;
+import java.util.SplittableRandom;
 
 import button.IButton;
 import button.InputSource;
 import button.VirtualButton;
 
-public class DemoInputSource extends InputSource implements ActionListener {
+public class DemoInputSource extends InputSource implements Runnable {
+	
+	/** The time between changes of the buttons. */
+	public static final int STEP_MILLIS = 166;
+	
+	private static final long NANOS_PER_MILLI = 1000000L;
 	
-	private static Timer timer;
-	private Random random;
+	/** The random numbers of the game, which are replaced every match. */
+	private MatchRandom random;
 	
 	/**
 	 * -1 = left 0 = stop +1 = right
 	 */
 	private int rotation = 0;
 	
+	// Timing
+	private final TimingWheel.Entry stepTimer = new TimingWheel.Entry(this);
+	private TimingWheel timers;
+	private long stepTicks;
+	
 	public DemoInputSource(IButton[] buttons) {
 		super(buttons);
+	}
+	
+	/**
+	 * Starts changing the buttons every STEP_MILLIS of game time, from the
+	 * game's BOTS random stream. Calling this again right after newGame()
+	 * restarts the buttons, so the match only depends on its seed.
+	 * Only call this from the thread that runs the game.
+	 * @param game
+	 */
+	public void start(HeadToHeadGame game) {
+		random = game.getRandom();
+		timers = game.getTimingWheel();
 		
-		random = new Random();
-		
-		if (timer == null) {
-			timer = new Timer(166, this);
-			timer.start();
-		} else {
-			timer.addActionListener(this);
+		// Start from no buttons pressed
+		rotation = 0;
+		for (IButton button : buttons) {
+			((VirtualButton) button).release();
 		}
+		
+		stepTicks = Math.max(STEP_MILLIS * NANOS_PER_MILLI / game.getPhysicsTickNanos(), 1);
+		timers.schedule(stepTimer, stepTicks);
+	}
+	
+	/**
+	 * Stops changing the buttons. Only call this from the thread that runs the game.
+	 */
+	public void stop() {
+		stepTimer.cancel();
 	}
 	
 	@Override
-	public void actionPerformed(ActionEvent e) {
+	public void run() {
+		step();
+		timers.schedule(stepTimer, stepTicks);
+	}
+	
+	/**
+	 * Randomly changes which buttons are pressed. Call start() first.
+	 */
+	public void step() {
+		SplittableRandom random = this.random.get(MatchRandom.Stream.BOTS);
+		
 		// Set the rotation
 		rotation += random.nextInt(3) - 1;
 		rotation = Math.min(Math.max(-2, rotation), 2);
@@ -0,0 +1,18 @@
+package headtohead;
+
+/**
+ * How much optional drawing work is shed to stay within the frame budget.
+ * Each level also sheds the work of every level before it.
+ */
+public enum DetailLevel {
+	/** Draw everything. */
+	FULL,
+	/** Skip decorative backgrounds, e.g. the Blasteroids starfield. */
+	NO_BACKGROUND,
+	/** Skip the copies of objects that wrap around the edges of the screen. */
+	NO_WRAPPED_COPIES,
+	/** Draw only every other fragment of a destroyed ship or tank. */
+	FEWER_FRAGMENTS,
+	/** Skip the ephemeral score markers. Player scores and messages are still drawn. */
+	NO_SCORE_MARKERS;
+}
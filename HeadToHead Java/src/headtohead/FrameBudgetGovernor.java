@@ -0,0 +1,131 @@
+package headtohead;
+
+/**
+ * Tracks the cost of drawing frames against the frame budget, and sheds
+ * optional drawing work in stages when frames run over. Detail is restored
+ * one level at a time once there is headroom again.
+ * 
+ * The levels change with hysteresis, so that a frame cost near a threshold
+ * does not make the detail flicker between two levels.
+ */
+public class FrameBudgetGovernor {
+	
+	private static final DetailLevel[] LEVELS = DetailLevel.values();
+	
+	/** Shed detail when the average frame cost is above this fraction of the budget. */
+	private static final double DEGRADE_FRACTION = 0.85d;
+	/** Restore detail when the average frame cost is below this fraction of the budget. */
+	private static final double RESTORE_FRACTION = 0.5d;
+	
+	/** Frames over budget in a row before detail is shed. */
+	private static final int DEGRADE_FRAMES = 10;
+	/** Frames with headroom in a row before detail is restored. */
+	private static final int RESTORE_FRAMES = 120;
+	
+	/** The weight of each new frame in the average frame cost. */
+	private static final double SMOOTHING = 1d / 8d;
+	
+	private final long budgetNanos;
+	
+	// Only used by the render thread
+	private double averageNanos = 0d;
+	private int framesOverBudget = 0, framesUnderBudget = 0;
+	
+	private volatile DetailLevel level = DetailLevel.FULL;
+	private volatile DetailLevel maxLevel = LEVELS[LEVELS.length - 1];
+	private volatile long levelChanges = 0;
+	
+	/**
+	 * @param budgetNanos The time available to draw one frame, usually the
+	 *            refresh interval of the display.
+	 */
+	public FrameBudgetGovernor(long budgetNanos) {
+		if (budgetNanos <= 0) {
+			throw new IllegalArgumentException("Frame budget must be positive.");
+		}
+		this.budgetNanos = budgetNanos;
+	}
+	
+	/**
+	 * Records the cost of drawing one frame, and changes the detail level if
+	 * necessary. Only call this from the render thread.
+	 * @param frameNanos
+	 */
+	public void frameDrawn(long frameNanos) {
+		averageNanos += SMOOTHING * (frameNanos - averageNanos);
+		
+		if (averageNanos > DEGRADE_FRACTION * budgetNanos) {
+			framesUnderBudget = 0;
+			if (++framesOverBudget >= DEGRADE_FRAMES && level.ordinal() < maxLevel.ordinal()) {
+				setLevel(LEVELS[level.ordinal() + 1]);
+			}
+		} else if (averageNanos < RESTORE_FRACTION * budgetNanos) {
+			framesOverBudget = 0;
+			if (++framesUnderBudget >= RESTORE_FRAMES && level.ordinal() > 0) {
+				setLevel(LEVELS[level.ordinal() - 1]);
+			}
+		} else {
+			framesOverBudget = 0;
+			framesUnderBudget = 0;
+		}
+	}
+	
+	private void setLevel(DetailLevel newLevel) {
+		level = newLevel;
+		levelChanges++;
+		
+		// Give the new level time to take effect before judging it
+		framesOverBudget = 0;
+		framesUnderBudget = 0;
+	}
+	
+	/**
+	 * Gets the detail level that is currently active. This may be called from any thread.
+	 * @return
+	 */
+	public DetailLevel getLevel() {
+		return level;
+	}
+	
+	/**
+	 * Returns true if the work of the given level is being shed.
+	 * @param shedLevel
+	 * @return
+	 */
+	public boolean isShedding(DetailLevel shedLevel) {
+		return level.ordinal() >= shedLevel.ordinal();
+	}
+	
+	/**
+	 * Limits how much detail may be shed. Use DetailLevel.FULL to never shed any.
+	 * @param maxLevel
+	 */
+	public void setMaxLevel(DetailLevel maxLevel) {
+		this.maxLevel = maxLevel;
+		if (level.ordinal() > maxLevel.ordinal()) {
+			level = maxLevel;
+		}
+	}
+	
+	public DetailLevel getMaxLevel() {
+		return maxLevel;
+	}
+	
+	/**
+	 * Gets the number of times the detail level has changed.
+	 * @return
+	 */
+	public long getLevelChanges() {
+		return levelChanges;
+	}
+	
+	public long getBudgetNanos() {
+		return budgetNanos;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("detail=%s changes=%d average=%dns budget=%dns",
+				level, levelChanges, (long)averageNanos, budgetNanos);
+	}
+}
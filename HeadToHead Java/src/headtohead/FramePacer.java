@@ -0,0 +1,168 @@
+package headtohead;
+
+/**
+ * Paces frames to the display refresh. It measures the real interval between
+ * presents (calls to BufferStrategy.show()) and counts the refreshes that
+ * were missed, so that double frames can be quantified.
+ * 
+ * Thread.sleep() often oversleeps by a millisecond or more, so waits are a
+ * coarse sleep followed by a spin-yield tail up to the deadline.
+ */
+public class FramePacer {
+	
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	
+	/** How long before a deadline to stop sleeping and start spinning. */
+	private static final long SPIN_NANOS = 2 * NANOS_PER_MILLI;
+	
+	/** How long before the refresh a frame should be ready to present. */
+	private static final long PRESENT_MARGIN_NANOS = NANOS_PER_MILLI;
+	
+	/** The weight of each new measurement in the running averages. */
+	private static final double SMOOTHING = 1d / 16d;
+	
+	private final long nominalPeriodNanos;
+	
+	// Running averages, only used by the render thread
+	private double periodNanos;
+	private double frameNanos = 0d;
+	private long lastPresentNanos = -1;
+	
+	// Statistics
+	private final LatencyHistogram presentIntervalHistogram = new LatencyHistogram();
+	private final LatencyHistogram jitterHistogram = new LatencyHistogram();
+	private volatile long presentCount = 0, missedVblanks = 0, lateFrames = 0;
+	private volatile long measuredPeriodNanos;
+	
+	/**
+	 * @param refreshRate The refresh rate of the display in Hz.
+	 */
+	public FramePacer(int refreshRate) {
+		if (refreshRate <= 0) {
+			throw new IllegalArgumentException("Refresh rate must be positive.");
+		}
+		nominalPeriodNanos = NANOS_PER_SECOND / refreshRate;
+		periodNanos = nominalPeriodNanos;
+		measuredPeriodNanos = nominalPeriodNanos;
+	}
+	
+	/**
+	 * Records that a frame was presented. Call this right after show() returns.
+	 * Only call this from the render thread.
+	 * @param frameStartNanos The System.nanoTime() when drawing the frame started.
+	 * @param presentNanos The System.nanoTime() when show() returned.
+	 */
+	public void framePresented(long frameStartNanos, long presentNanos) {
+		frameNanos += SMOOTHING * ((presentNanos - frameStartNanos) - frameNanos);
+		
+		if (lastPresentNanos >= 0) {
+			long interval = presentNanos - lastPresentNanos;
+			presentIntervalHistogram.record(interval);
+			jitterHistogram.record((long)Math.abs(interval - periodNanos));
+			
+			// Count the refreshes that passed without a new frame
+			long refreshes = Math.round(interval / periodNanos);
+			if (refreshes > 1) {
+				missedVblanks += refreshes - 1;
+				lateFrames++;
+			}
+			
+			// Track the real refresh period (e.g. 59.94 Hz), ignoring missed refreshes
+			if (Math.abs(interval - nominalPeriodNanos) < nominalPeriodNanos / 10) {
+				periodNanos += SMOOTHING * (interval - periodNanos);
+				measuredPeriodNanos = (long)periodNanos;
+			}
+		}
+		
+		lastPresentNanos = presentNanos;
+		presentCount++;
+	}
+	
+	/**
+	 * Waits until it is time to start drawing the next frame, so that it is
+	 * ready just before the next refresh. Only call this from the render thread.
+	 * @throws InterruptedException
+	 */
+	public void waitForNextFrame() throws InterruptedException {
+		if (lastPresentNanos < 0) {
+			return;
+		}
+		sleepUntil(lastPresentNanos + (long)(periodNanos - frameNanos) - PRESENT_MARGIN_NANOS);
+	}
+	
+	/**
+	 * Sleeps until the given time, spinning for the last part of the wait.
+	 * @param deadlineNanos A System.nanoTime() value.
+	 * @throws InterruptedException
+	 */
+	public static void sleepUntil(long deadlineNanos) throws InterruptedException {
+		long sleepTime = deadlineNanos - System.nanoTime() - SPIN_NANOS;
+		if (sleepTime > 0) {
+			Thread.sleep(sleepTime / NANOS_PER_MILLI, (int)(sleepTime % NANOS_PER_MILLI));
+		}
+		while (System.nanoTime() - deadlineNanos < 0) {
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+			Thread.yield();
+		}
+	}
+	
+	/**
+	 * Gets the number of frames presented so far.
+	 * @return
+	 */
+	public long getPresentCount() {
+		return presentCount;
+	}
+	
+	/**
+	 * Gets the number of refreshes that passed without a new frame.
+	 * @return
+	 */
+	public long getMissedVblanks() {
+		return missedVblanks;
+	}
+	
+	/**
+	 * Gets the number of frames that were shown for more than one refresh,
+	 * i.e. the double frames.
+	 * @return
+	 */
+	public long getLateFrames() {
+		return lateFrames;
+	}
+	
+	/**
+	 * Gets the refresh period measured from the presents.
+	 * @return
+	 */
+	public long getMeasuredPeriodNanos() {
+		return measuredPeriodNanos;
+	}
+	
+	/**
+	 * Gets the histogram of the intervals between presents.
+	 * @return
+	 */
+	public LatencyHistogram getPresentIntervalHistogram() {
+		return presentIntervalHistogram;
+	}
+	
+	/**
+	 * Gets the histogram of how far each present-to-present interval was from
+	 * the refresh period.
+	 * @return
+	 */
+	public LatencyHistogram getJitterHistogram() {
+		return jitterHistogram;
+	}
+	
+	@Override
+	public String toString() {
+		return String.format("presents=%d missed vblanks=%d late frames=%d period=%dns jitter: %s",
+				presentCount, missedVblanks, lateFrames, measuredPeriodNanos,
+				jitterHistogram.getSnapshot());
+	}
+}
@@ -1,74 +1,245 @@
 package headtohead;
 
+/**
+ * Runs the simulation thread. Physics ticks are run at a fixed rate, and a
+ * snapshot of the world is published after each tick for the RenderLoop.
+ * The loop ends when the thread is interrupted or the game ends.
+ */
 public class GameLoop implements Runnable {
 	
-	private HeadToHeadGameCanvas game;
-	private long minRenderMillis = 1000 / 60;	// Default 60 FPS
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long NANOS_PER_SECOND = 1000000000L;
 	
-	private double performanceMeasure = 0d;
+	/** How long one pass of the loop runs ticks for in turbo mode. */
+	private static final long TURBO_PASS_NANOS = 50 * NANOS_PER_MILLI;
 	
-	// DEBUG
-	// private double averageFrameMillis = 0d;
-	// private final double smoothing = 0.95d;
+	private HeadToHeadGameCanvas view;
+	private HeadToHeadGame game;
 	
-	public GameLoop(HeadToHeadGameCanvas game, int refreshRate) {
-		this.game = game;
-		minRenderMillis = 1000 / refreshRate;
+	/**
+	 * The most physics ticks that will be run to catch up in one pass of the
+	 * loop. Any lag beyond this is dropped, so that one long pause (e.g.
+	 * garbage collection or newRound()) cannot snowball into a spiral of death.
+	 */
+	private volatile int maxCatchUpTicks = 5;
+	
+	// Time spent in each part of the most recent pass of the loop
+	private volatile long physicsNanos = 0, sleepNanos = 0;
+	private volatile int ticksThisFrame = 0;
+	private volatile long droppedTicks = 0;
+	
+	// Turbo mode
+	private volatile boolean turbo = false;
+	private volatile int turboTicksPerSnapshot = 16;
+	private volatile double turboTicksPerSecond = 0d;
+	
+	// Latency of each call to physicsTick()
+	private final LatencyHistogram physicsTickHistogram = new LatencyHistogram();
+	
+	public GameLoop(HeadToHeadGameCanvas view) {
+		this.view = view;
+		this.game = view.getGame();
+	}
+	
+	/**
+	 * Sets the most physics ticks that may be run in one pass of the loop.
+	 * @param maxCatchUpTicks Must be at least 1.
+	 */
+	public void setMaxCatchUpTicks(int maxCatchUpTicks) {
+		if (maxCatchUpTicks < 1) {
+			throw new IllegalArgumentException("Max catch-up ticks must be at least 1.");
+		}
+		this.maxCatchUpTicks = maxCatchUpTicks;
+	}
+	
+	public int getMaxCatchUpTicks() {
+		return maxCatchUpTicks;
+	}
+	
+	/**
+	 * Turns turbo mode on or off. In turbo mode, physics ticks are run back to
+	 * back as fast as possible instead of at the tick rate, and a snapshot is
+	 * only published every few ticks.
+	 * @param turbo
+	 */
+	public void setTurbo(boolean turbo) {
+		this.turbo = turbo;
+	}
+	
+	public boolean isTurbo() {
+		return turbo;
+	}
+	
+	/**
+	 * Sets how often a snapshot is published for the renderer in turbo mode.
+	 * @param ticksPerSnapshot Must be at least 1.
+	 */
+	public void setTurboTicksPerSnapshot(int ticksPerSnapshot) {
+		if (ticksPerSnapshot < 1) {
+			throw new IllegalArgumentException("Ticks per snapshot must be at least 1.");
+		}
+		turboTicksPerSnapshot = ticksPerSnapshot;
+	}
+	
+	public int getTurboTicksPerSnapshot() {
+		return turboTicksPerSnapshot;
+	}
+	
+	/**
+	 * Gets the simulated ticks per second of the most recent pass of the loop in turbo mode.
+	 * @return
+	 */
+	public double getTurboTicksPerSecond() {
+		return turboTicksPerSecond;
+	}
+	
+	/**
+	 * Gets the time spent doing physics ticks in the most recent pass of the loop.
+	 * @return
+	 */
+	public long getPhysicsNanos() {
+		return physicsNanos;
+	}
+	
+	/**
+	 * Gets the time spent sleeping in the most recent pass of the loop.
+	 * @return
+	 */
+	public long getSleepNanos() {
+		return sleepNanos;
 	}
 	
-	public GameLoop(HeadToHeadGameCanvas game) {
-		this.game = game;
+	/**
+	 * Gets the number of physics ticks that were run in the most recent pass of the loop.
+	 * @return
+	 */
+	public int getTicksThisFrame() {
+		return ticksThisFrame;
+	}
+	
+	/**
+	 * Gets the total number of physics ticks that were skipped because the
+	 * catch-up cap was reached.
+	 * @return
+	 */
+	public long getDroppedTicks() {
+		return droppedTicks;
+	}
+	
+	/**
+	 * Gets the histogram of physicsTick() latencies. Snapshots of it may be
+	 * taken from any thread.
+	 * @return
+	 */
+	public LatencyHistogram getPhysicsTickHistogram() {
+		return physicsTickHistogram;
 	}
 	
 	// See http://gameprogrammingpatterns.com/game-loop.html
 	@Override
 	public void run() {
-		final long PHYSICS_TICK_MILLIS = game.getPhysicsTickMillis();
-		assert PHYSICS_TICK_MILLIS > 0;
+		final long PHYSICS_TICK_NANOS = game.getPhysicsTickNanos();
+		assert PHYSICS_TICK_NANOS > 0;
+		
+		long previous = System.nanoTime();
+		long lagNanos = 0;
 		
-		long previous = System.currentTimeMillis();
-		long lagMillis = 0;
+		// Give the renderer the starting state
+		view.publishSnapshot(previous);
 		
 		while (!Thread.interrupted()) {
-			long current = System.currentTimeMillis();
+			if (turbo) {
+				runTurboPass();
+				if (game.isGameOver()) {
+					return;
+				}
+				
+				// Start from the current time when leaving turbo mode
+				previous = System.nanoTime();
+				lagNanos = 0;
+				continue;
+			}
+			
+			long current = System.nanoTime();
 			long elapsed = current - previous;
 			previous = current;
-			lagMillis += elapsed;
+			lagNanos += elapsed;
 			
 			// game.processInput();
 			
-			// Do physics ticks until we're caught up
-			while (lagMillis >= PHYSICS_TICK_MILLIS) {
+			// Do physics ticks until we're caught up, or until the cap is reached
+			int ticks = 0;
+			final int maxTicks = maxCatchUpTicks;
+			while (lagNanos >= PHYSICS_TICK_NANOS && ticks < maxTicks) {
 				long startTime = System.nanoTime();
 				game.physicsTick();
 				long endTime = System.nanoTime();
-				performanceMeasure *= 0.99d;
-				performanceMeasure += 0.01d * (endTime - startTime);
-				System.out.println(performanceMeasure + " ns");
-				lagMillis -= PHYSICS_TICK_MILLIS;
+				physicsTickHistogram.record(endTime - startTime);
+				lagNanos -= PHYSICS_TICK_NANOS;
+				ticks++;
+				
+				// The state after this tick belongs to the time the tick was due
+				view.publishSnapshot(current - lagNanos);
+				
+				// Stop if the game ended during this tick
+				if (game.isGameOver()) {
+					return;
+				}
 			}
 			
-			game.render(lagMillis / (double)PHYSICS_TICK_MILLIS);
-			
-			// Calculate the average frame rate
-			/*if (DebugMode.isEnabled()) {
-				averageFrameMillis = smoothing * averageFrameMillis + (1d - smoothing) * elapsed;
-				if (++counter >= 100) {
-					System.out.println(averageFrameMillis);
-					counter = 0;
-				}
-			}*/
+			// Drop whole ticks that we could not catch up on, but keep the fraction
+			if (lagNanos >= PHYSICS_TICK_NANOS) {
+				droppedTicks += lagNanos / PHYSICS_TICK_NANOS;
+				lagNanos %= PHYSICS_TICK_NANOS;
+			}
+			long physicsEnd = System.nanoTime();
 			
-			// Reduce the frame rate if necessary
-			long sleepTime = minRenderMillis - (System.currentTimeMillis() - current);
+			// Sleep until the next tick is due
+			long sleepTime = PHYSICS_TICK_NANOS - lagNanos - (physicsEnd - current);
 			if (sleepTime > 0) {
 				try {
-					Thread.sleep(sleepTime);
+					Thread.sleep(sleepTime / NANOS_PER_MILLI, (int)(sleepTime % NANOS_PER_MILLI));
 				} catch (InterruptedException e) {
 					e.printStackTrace();
 					return;
 				}
 			}
+			
+			// Record the loop timing
+			ticksThisFrame = ticks;
+			physicsNanos = physicsEnd - current;
+			sleepNanos = System.nanoTime() - physicsEnd;
 		}
 	}
+	
+	/**
+	 * Runs physics ticks back to back for a short time, publishing a snapshot
+	 * every few ticks and after the last one.
+	 */
+	private void runTurboPass() {
+		final int ticksPerSnapshot = turboTicksPerSnapshot;
+		final long start = System.nanoTime();
+		long current = start;
+		int ticks = 0;
+		
+		do {
+			game.physicsTick();
+			ticks++;
+			current = System.nanoTime();
+			
+			if (ticks % ticksPerSnapshot == 0) {
+				view.publishSnapshot(current);
+			}
+		} while (!game.isGameOver() && current - start < TURBO_PASS_NANOS);
+		
+		if (ticks % ticksPerSnapshot != 0) {
+			view.publishSnapshot(current);
+		}
+		
+		// Record the throughput
+		turboTicksPerSecond = ticks * (double)NANOS_PER_SECOND / Math.max(current - start, 1);
+		ticksThisFrame = ticks;
+		physicsNanos = current - start;
+		sleepNanos = 0;
+	}
 }
@@ -0,0 +1,77 @@
+package headtohead;
+
+/**
+ * Lets the players choose a game. GameSelectionCanvas draws the choices.
+ */
+public class GameSelection extends HeadToHeadGame {
+	
+	// The number of games to choose from
+	private int gameCount = 0;
+	
+	// The chosen game
+	private int selectedGameIndex = -1;
+	
+	public GameSelection() {
+		super(400);
+	}
+	
+	/**
+	 * Adds a game to the list of available games.
+	 * @return The index assigned to the game. This matches the value
+	 *         returned by getSelectedIndex() if this game is chosen.
+	 */
+	public int addGame() {
+		return gameCount++;
+	}
+	
+	public int getGameCount() {
+		return gameCount;
+	}
+	
+	/**
+	 * 
+	 * @return
+	 */
+	public int getSelectedIndex() {
+		return selectedGameIndex;
+	}
+	
+	@Override
+	public void newRound() {}
+	
+	@Override
+	public long getPhysicsTickNanos() {
+		return 16666667L;	// 60 ticks per second
+	}
+	
+	@Override
+	public void physicsTick() {
+		super.physicsTick();
+		
+		// Read buttons, select game
+		// TODO Change to left/right enter to support > 3 games.
+		// TODO Require player consensus
+		for (int g = 0; g < gameCount && selectedGameIndex < 0; g++) {
+			for (Player player : players) {
+				if (player.getButton(g).isPressed()) {
+					selectedGameIndex = g;
+					break;
+				}
+			}
+		}
+		
+		if (selectedGameIndex >= 0) {
+			endGame();
+		}
+	}
+	
+	@Override
+	protected WorldSnapshot createSnapshot() {
+		return new WorldSnapshot();
+	}
+	
+	@Override
+	protected void captureSnapshot(WorldSnapshot snapshot) {
+		// The thumbnails do not change while the game loop is running
+	}
+}
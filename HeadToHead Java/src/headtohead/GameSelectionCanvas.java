@@ -9,15 +9,19 @@ import java.util.List;
 public class GameSelectionCanvas extends HeadToHeadGameCanvas {
 	private static final long serialVersionUID = 1L;
 	
+	private final GameSelection gameSelection;
+	
 	// Thumbnails
 	private List<Image> gameThumbs;
 	private List<Color> borderColors;
 	
-	// The chosen game
-	private int selectedGameIndex = -1;
-	
 	public GameSelectionCanvas() {
-		super(400);
+		this(new GameSelection());
+	}
+	
+	private GameSelectionCanvas(GameSelection gameSelection) {
+		super(gameSelection);
+		this.gameSelection = gameSelection;
 		
 		gameThumbs = new ArrayList<Image>();
 		borderColors = new ArrayList<Color>();
@@ -33,7 +37,7 @@ public class GameSelectionCanvas extends HeadToHeadGameCanvas {
 	public int addThumbnail(Image thumbnail, Color borderColor) {
 		gameThumbs.add(thumbnail);
 		borderColors.add(borderColor);
-		return gameThumbs.size() - 1;
+		return gameSelection.addGame();
 	}
 	
 	/**
@@ -41,45 +45,11 @@ public class GameSelectionCanvas extends HeadToHeadGameCanvas {
 	 * @return
 	 */
 	public int getSelectedIndex() {
-		return selectedGameIndex;
-	}
-	
-	@Override
-	public void newGame() {}
-	
-	@Override
-	public void newRound() {}
-	
-	@Override
-	public long getPhysicsTickMillis() {
-		return 1000 / 60;
-	}
-	
-	@Override
-	protected void physicsTick() {
-		// Read buttons, select game
-		// TODO Change to left/right enter to support > 3 games.
-		// TODO Require player consensus
-		for (int g = 0; g < gameThumbs.size() && selectedGameIndex < 0; g++) {
-			for (Player player : players) {
-				if (player.getButton(g).isPressed()) {
-					selectedGameIndex = g;
-					break;
-				}
-			}
-		}
-		
-		if (selectedGameIndex >= 0) {
-			try {
-				stopGameLoop();
-			} catch (InterruptedException e) {
-				e.printStackTrace();
-			}
-		}
+		return gameSelection.getSelectedIndex();
 	}
 	
 	@Override
-	protected void drawVideoFrame(Graphics g, double extrapolate) {
+	protected void drawVideoFrame(Graphics g, WorldSnapshot snapshot, double alpha) {
 		// Clear background
 		g.setColor(new Color(0x008080));
 		g.fillRect(0, 0, getGameWidthPixels(), getGameHeightPixels());
@@ -0,0 +1,331 @@
+package headtohead;
+
+import java.awt.Color;
+import java.util.SplittableRandom;
+
+import button.IButton;
+import button.InputSource;
+import button.VirtualButton;
+import geometry.Vector2DLong;
+import physics.Broadphase;
+import physics.PhysicsConstants;
+import physics.PhysicsObject;
+import sound.ISoundSink;
+import sound.SilentSoundSink;
+
+/**
+ * The simulation of a game, without any display, audio or timers. A game owns
+ * its players and physics objects and advances them one physicsTick() at a
+ * time, so it can run on a build server as fast as the CPU allows.
+ * 
+ * HeadToHeadGameCanvas is a view over a game. It supplies the player input,
+ * the sound and the threads that run the game in real time.
+ */
+public abstract class HeadToHeadGame {
+	
+	protected Player[] players;
+	
+	private final float aspectRatio = 4f / 3f;
+	/** The resolution of the game in pixels. */
+	private int gameWidth, gameHeight;
+	
+	protected boolean demoMode = false;
+	
+	/** True when the game has ended and should not be ticked any more. */
+	private volatile boolean gameOver = false;
+	
+	/** Timers that count physics ticks. */
+	protected final TimingWheel timers = new TimingWheel();
+	
+	/** The number of physics ticks since newGame(), and the physics time that the latest one covered. */
+	private long ticksThisGame = 0;
+	private long deltaTime = 0;
+	
+	// Randomness
+	/** Picks the seeds of matches that are not given one. */
+	private final SplittableRandom seedGenerator = new SplittableRandom();
+	private boolean hasNextMatchSeed = false;
+	private long nextMatchSeed;
+	/** The random numbers of the current match. */
+	protected final MatchRandom random = new MatchRandom(seedGenerator.nextLong());
+	
+	// Sound
+	protected ISoundSink sound = new SilentSoundSink();
+	
+	public HeadToHeadGame(int newGameWidth) {
+		// Calculate the size of the game
+		gameWidth = newGameWidth;
+		gameHeight = (int)(gameWidth * aspectRatio);
+		
+		initializePlayers();
+	}
+	
+	/**
+	 * Creates the array of players. Gives each player their color and virtual
+	 * buttons, which a view may replace with its own input sources.
+	 * Call super.initializePlayers() if overriding this function.
+	 */
+	protected void initializePlayers() {
+		players = new Player[2];
+		
+		InputSource player0InputSource = new InputSource(new IButton[] {
+				new VirtualButton(), new VirtualButton(), new VirtualButton() });
+		InputSource player1InputSource = new InputSource(new IButton[] {
+				new VirtualButton(), new VirtualButton(), new VirtualButton() });
+		
+		players[0] = new Player(player0InputSource, new Color(0xff1220)); // Red
+		players[1] = new Player(player1InputSource, new Color(0xf7e700)); // Yellow
+	}
+	
+	public Player[] getPlayers() {
+		return players;
+	}
+	
+	/**
+	 * Gets the timers of the game, which run at the start of each physics tick.
+	 * @return
+	 */
+	public TimingWheel getTimingWheel() {
+		return timers;
+	}
+	
+	/**
+	 * Sets where the game's sounds go. Games are silent by default.
+	 * @param sound
+	 */
+	public void setSoundSink(ISoundSink sound) {
+		this.sound = sound != null ? sound : new SilentSoundSink();
+	}
+	
+	/**
+	 * Gets the random numbers of the current match.
+	 * @return
+	 */
+	public MatchRandom getRandom() {
+		return random;
+	}
+	
+	/**
+	 * Sets the seed of the next match. Otherwise each newGame() picks a new seed.
+	 * @param seed
+	 */
+	public void setNextMatchSeed(long seed) {
+		nextMatchSeed = seed;
+		hasNextMatchSeed = true;
+	}
+	
+	/**
+	 * Gets the seed of the current match, which replays it given the same inputs.
+	 * @return
+	 */
+	public long getMatchSeed() {
+		return random.getSeed();
+	}
+	
+	/**
+	 * Helper to get a random position that is not too close to any physics objects.
+	 * @param random
+	 * @param clearance
+	 * @param objects
+	 * @return
+	 */
+	protected Vector2DLong randomPositionNotNearObjects(SplittableRandom random, long clearance,
+			PhysicsObject[] objects) {
+		Vector2DLong position;
+		long clearanceSqr = clearance * clearance;
+		boolean validPosition;
+		do {
+			// Choose a random wall position
+			position = randomPosition(random);
+			
+			// Reroll if the position is too close to any tanks
+			validPosition = true;
+			for (PhysicsObject object : objects) {
+				double distanceSqr = object.position.distanceSquared(position);
+				if (distanceSqr >= clearanceSqr) continue;
+				validPosition = false;
+				break;
+			}
+		} while (!validPosition);
+		return position;
+	}
+	
+	/**
+	 * Helper to get a random position, uniformly distributed throughout the world.
+	 * @param random
+	 * @return
+	 */
+	protected Vector2DLong randomPosition(SplittableRandom random) {
+		return new Vector2DLong(random.nextInt((int)getGameWidthPhysics()),
+				random.nextInt((int)getGameHeightPhysics()));
+	}
+	
+	/**
+	 * Override this to support different button assignments for left-handed
+	 * players.
+	 * 
+	 * @return A permutation of the array { 0, 1, 2 }.
+	 */
+	protected int[] getLeftHandedButtonRemap() {
+		return new int[] { 0, 1, 2 };
+	}
+	
+	/**
+	 * Gets the width of the game view in pixels.
+	 * 
+	 * @return
+	 */
+	public int getGameWidthPixels() {
+		return gameWidth;
+	}
+	
+	public long getGameWidthPhysics() {
+		return PhysicsConstants.distance(gameWidth);
+	}
+	
+	/**
+	 * Gets the height of the game view in pixels.
+	 * 
+	 * @return
+	 */
+	public int getGameHeightPixels() {
+		return gameHeight;
+	}
+	
+	public long getGameHeightPhysics() {
+		return PhysicsConstants.distance(gameHeight);
+	}
+	
+	/**
+	 * Reset all the game objects.
+	 * Call super.newGame() if overriding this function.
+	 */
+	public void newGame() {
+		gameOver = false;
+		ticksThisGame = 0;
+		deltaTime = 0;
+		
+		// Seed the match
+		random.reseed(hasNextMatchSeed ? nextMatchSeed : seedGenerator.nextLong());
+		hasNextMatchSeed = false;
+	}
+	
+	/**
+	 * Reset the game objects, but not overall scores etc. for a new round.
+	 */
+	abstract public void newRound();
+	
+	/**
+	 * Sets demo mode and starts a new game.
+	 * @param demoMode
+	 */
+	public void setDemoMode(boolean demoMode) {
+		this.demoMode = demoMode;
+		newGame();
+	}
+	
+	public boolean isDemoMode() {
+		return demoMode;
+	}
+	
+	/**
+	 * Ends the game. The game loop stops after the current tick.
+	 */
+	protected void endGame() {
+		gameOver = true;
+	}
+	
+	/**
+	 * Returns true if the game has ended since the last call to newGame().
+	 * @return
+	 */
+	public boolean isGameOver() {
+		return gameOver;
+	}
+	
+	/**
+	 * Gets the amount of real time represented by one call to physicsTick(),
+	 * e.g. 16666667 for 60 ticks per second. Must return a positive number.
+	 * @return
+	 */
+	abstract public long getPhysicsTickNanos();
+	
+	/**
+	 * Gets the physics time that the current tick covers, in time units.
+	 * A tick may not be a whole number of time units, so this is the
+	 * difference between the game clock after this tick and before it, both
+	 * rounded down. At 60 ticks per second it goes 16, 17, 17, 16, ... ms, and
+	 * the game clock never drifts from the tick rate.
+	 * This is the only place where the tick is converted to physics time.
+	 * @return
+	 */
+	public long getDeltaTime() {
+		return deltaTime;
+	}
+	
+	/**
+	 * Execute one cycle of the game physics.
+	 * This function should call endGame() when the game ends.
+	 * Call super.physicsTick() first if overriding this function.
+	 */
+	public void physicsTick() {
+		// Advance the game clock
+		final long tickNanos = getPhysicsTickNanos();
+		deltaTime = PhysicsConstants.timeFromNanos((ticksThisGame + 1) * tickNanos) -
+				PhysicsConstants.timeFromNanos(ticksThisGame * tickNanos);
+		ticksThisGame++;
+		
+		// Run the timers that are due
+		timers.advance();
+	}
+	
+	/**
+	 * Chooses how the game finds the objects that might collide. The choice
+	 * changes which pairs are tested in which order, so a seeded match only
+	 * replays exactly with the same broadphase.
+	 * @param broadphase
+	 * @return False if the game does not support the broadphase, in which case
+	 *         it keeps the one it has.
+	 */
+	public boolean setBroadphase(Broadphase broadphase) {
+		return false;
+	}
+	
+	/**
+	 * Sets the fewest objects for which the game runs its collision detection
+	 * on several threads. Below it, detection stays on the simulation thread,
+	 * which is faster for the few objects of a normal round. The collisions
+	 * are the same either way, so a seeded match replays exactly with any
+	 * threshold.
+	 * @param bodies
+	 * @return False if the game never runs detection on several threads.
+	 */
+	public boolean setParallelThreshold(int bodies) {
+		return false;
+	}
+	
+	/**
+	 * Chooses whether the game moves its many small bodies, e.g. asteroids,
+	 * in a structure-of-arrays BodyStore instead of one object at a time, as
+	 * stress tests with tens of thousands of bodies do. Bodies move by the
+	 * same arithmetic either way, so a seeded match replays exactly either way.
+	 * @param enabled
+	 * @return False if the game never keeps bodies in a store.
+	 */
+	public boolean setBodyStore(boolean enabled) {
+		return false;
+	}
+	
+	/**
+	 * Creates an empty snapshot of the type filled by captureSnapshot().
+	 * @return
+	 */
+	abstract protected WorldSnapshot createSnapshot();
+	
+	/**
+	 * Copies everything that a view needs to draw the game into the snapshot.
+	 * This is called on the simulation thread after each physics tick.
+	 * @param snapshot A snapshot from createSnapshot(), already cleared.
+	 */
+	abstract protected void captureSnapshot(WorldSnapshot snapshot);
+}
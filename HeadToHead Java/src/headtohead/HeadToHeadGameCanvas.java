@@ -11,8 +11,6 @@ import java.awt.GraphicsEnvironment;
 import java.awt.Image;
 import java.awt.Point;
 import java.awt.Toolkit;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.KeyListener;
 import java.awt.event.MouseEvent;
@@ -21,54 +19,78 @@ import java.awt.image.BufferStrategy;
 import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
-import java.util.Random;
-
-import javax.swing.Timer;
 
 import button.ArcadeButton;
 import button.IButton;
 import button.InputSource;
 import button.VirtualButton;
-import geometry.Vector2DLong;
-import physics.PhysicsConstants;
-import physics.PhysicsObject;
 import sound.SoundPlayer;
 
+/**
+ * A view over a HeadToHeadGame. The canvas connects the players to the
+ * arcade buttons, plays the game's sounds, and runs the game in real time on
+ * the simulation and render threads. Subclasses only draw the game.
+ */
 public abstract class HeadToHeadGameCanvas extends Canvas
-		implements ActionListener, KeyListener, MouseListener {
+		implements KeyListener, MouseListener {
 	private static final long serialVersionUID = 1L;
 	
+	private static final long NANOS_PER_MILLI = 1000000L;
+	
+	/** The game that this canvas shows. */
+	private final HeadToHeadGame game;
+	
 	protected ArcadeButton[] buttons;
 	protected Player[] players;
 	
-	private final float aspectRatio = 4f / 3f;
-	/** The resolution of the game in pixels. */
-	private int gameWidth, gameHeight;
-	
 	private int videoScale;
+	/** The frame that the render thread draws into. No other thread reads it. */
 	protected BufferedImage videoFrame;
+	/** The most recently finished frame, which paint() shows. Guarded by frameLock. */
+	private BufferedImage shownFrame;
+	private final Object frameLock = new Object();
 	
 	/** The size of the output video on-screen in pixels. */
 	protected int videoWidth, videoHeight;
 	
-	// Game loop
+	// Game loop (simulation thread)
 	private GameLoop gameLoopRunnable;
 	private Thread gameLoopThread;
 	
+	// Render loop (render thread)
+	private RenderLoop renderLoopRunnable;
+	private Thread renderLoopThread;
+	
+	// Sheds optional drawing when frames take longer than the refresh interval
+	private FrameBudgetGovernor detailGovernor;
+	
+	// World snapshots passed from the simulation thread to the render thread
+	private TripleBuffer<WorldSnapshot> snapshots;
+	private long snapshotNumber = 0;
+	
 	// Demo mode
 	// TODO Remove game-level demo mode. If this timer expires, go back to the selection screen.
 	// TODO Periodically show demos of each game on the selection screen.
 	private int demoIdleTime = 60000; // Go to demo mode after 60s of inactivity
-	protected Timer demoTimer;
-	protected boolean demoMode = false;
+	/** The tick of the most recent key press. */
+	private volatile long lastInputTick = 0;
+	/** False while the game loop is stopped or the demo timer is disabled. */
+	private volatile boolean demoTimerEnabled = false;
+	/** Runs on the simulation thread to check for inactivity. */
+	private final TimingWheel.Entry demoTimer = new TimingWheel.Entry(new Runnable() {
+		@Override
+		public void run() {
+			demoTimerElapsed();
+		}
+	});
 	
 	// Sound
 	protected SoundPlayer sound;
 	
-	public HeadToHeadGameCanvas(int newGameWidth) {
+	public HeadToHeadGameCanvas(HeadToHeadGame game) {
+		this.game = game;
+		
 		// Calculate the size of the video
-		gameWidth = newGameWidth;
-		gameHeight = (int)(gameWidth * aspectRatio);
 		initializeVideoScale();
 		
 		// Set up the panel
@@ -85,19 +107,24 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 		// Mouse listener
 		this.addMouseListener(this);
 		
-		// Create the video frame
-		videoFrame = new BufferedImage(gameWidth, gameHeight,
+		// Create the video frames
+		videoFrame = new BufferedImage(getGameWidthPixels(), getGameHeightPixels(),
+				BufferedImage.TYPE_INT_RGB);
+		shownFrame = new BufferedImage(getGameWidthPixels(), getGameHeightPixels(),
 				BufferedImage.TYPE_INT_RGB);
 		
 		initializeButtons();
 		initializePlayers();
 		
-		// Create the game loop, with the actual refresh rate if it is available
+		// Create the game loop, and the render loop with the actual refresh rate if it is available
+		gameLoopRunnable = new GameLoop(this);
 		int refreshRate = getDisplayRefreshRate();
 		if (refreshRate != DisplayMode.REFRESH_RATE_UNKNOWN) {
-			gameLoopRunnable = new GameLoop(this, refreshRate);
+			renderLoopRunnable = new RenderLoop(this, refreshRate);
+			detailGovernor = new FrameBudgetGovernor(1000000000L / refreshRate);
 		} else {
-			gameLoopRunnable = new GameLoop(this);
+			renderLoopRunnable = new RenderLoop(this);
+			detailGovernor = new FrameBudgetGovernor(1000000000L / 60);
 		}
 		
 		if (DebugMode.isEnabled()) {
@@ -112,13 +139,9 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 			demoIdleTime = 10000;
 		}
 		
-		// Demo mode
-		demoTimer = new Timer(demoIdleTime, this);
-		demoTimer.setActionCommand("DemoMode");
-		demoTimer.setRepeats(false);
-		
 		// Sound
 		sound = new SoundPlayer();
+		game.setSoundSink(sound);
 	}
 	
 	private static int getDisplayRefreshRate() {
@@ -135,13 +158,13 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 		// Get the screen size
 		
 		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-		videoScale = Math.min((int)screenSize.getWidth() / gameWidth,
-				(int)screenSize.getHeight() / gameHeight);
+		videoScale = Math.min((int)screenSize.getWidth() / getGameWidthPixels(),
+				(int)screenSize.getHeight() / getGameHeightPixels());
 		videoScale = Math.max(videoScale, 1);
 		
 		// Set the video size
-		videoWidth = videoScale * gameWidth;
-		videoHeight = videoScale * gameHeight;
+		videoWidth = videoScale * getGameWidthPixels();
+		videoHeight = videoScale * getGameHeightPixels();
 	}
 	
 	/**
@@ -161,57 +184,26 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 	}
 	
 	/**
-	 * Creates the array of players. Gives each player their color and arcade
-	 * buttons. Call super.initializePlayers() if overriding this function.
+	 * Gives each of the game's players their arcade buttons.
 	 */
 	protected void initializePlayers() {
-		players = new Player[2];
+		players = game.getPlayers();
 		
 		InputSource player0InputSource = new InputSource(new IButton[] {
 				buttons[0], buttons[1], buttons[2] });
 		InputSource player1InputSource = new InputSource(new IButton[] {
 				buttons[3], buttons[4], buttons[5] });
 		
-		players[0] = new Player(player0InputSource, new Color(0xff1220)); // Red
-		players[1] = new Player(player1InputSource, new Color(0xf7e700)); // Yellow
-	}
-	
-	/**
-	 * Helper to get a random position that is not too close to any physics objects.
-	 * @param random
-	 * @param clearance
-	 * @param objects
-	 * @return
-	 */
-	protected Vector2DLong randomPositionNotNearObjects(Random random, long clearance,
-			PhysicsObject[] objects) {
-		Vector2DLong position;
-		long clearanceSqr = clearance * clearance;
-		boolean validPosition;
-		do {
-			// Choose a random wall position
-			position = randomPosition(random);
-			
-			// Reroll if the position is too close to any tanks
-			validPosition = true;
-			for (PhysicsObject object : objects) {
-				double distanceSqr = object.position.difference(position).lengthSquared();
-				if (distanceSqr >= clearanceSqr) continue;
-				validPosition = false;
-				break;
-			}
-		} while (!validPosition);
-		return position;
+		players[0].setInputSource(player0InputSource);
+		players[1].setInputSource(player1InputSource);
 	}
 	
 	/**
-	 * Helper to get a random position, uniformly distributed throughout the world.
-	 * @param random
+	 * Gets the game that this canvas shows.
 	 * @return
 	 */
-	protected Vector2DLong randomPosition(Random random) {
-		return new Vector2DLong(random.nextInt((int)getGameWidthPhysics()),
-				random.nextInt((int)getGameHeightPhysics()));
+	public HeadToHeadGame getGame() {
+		return game;
 	}
 	
 	/**
@@ -224,36 +216,94 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 	}
 	
 	/**
-	 * Starts the game loop Runnable in a new thread.
+	 * Starts the game loop and render loop Runnables in new threads.
 	 * @param enableDemo If true, the demo timer is started.
 	 * @throws InterruptedException
 	 */
 	public void startGameLoop(boolean enableDemo) throws InterruptedException {
 		stopGameLoop();
 		
-		// Start a new thread
-		gameLoopThread = new Thread(gameLoopRunnable);
+		// Wait for the old render thread so that only one thread draws at a time
+		joinRenderLoopThread();
+		
+		// Create the snapshot buffers the first time
+		if (snapshots == null) {
+			snapshots = new TripleBuffer<WorldSnapshot>(
+					game.createSnapshot(), game.createSnapshot(), game.createSnapshot());
+		}
+		
+		// Start new threads
+		gameLoopThread = new Thread(gameLoopRunnable, "Simulation");
 		gameLoopThread.start();
+		renderLoopThread = new Thread(renderLoopRunnable, "Render");
+		renderLoopThread.start();
 		
 		// Start the demo timer if we are not in demo mode already
-		if (!demoMode && enableDemo) {
-			demoTimer.start();
+		if (!game.isDemoMode() && enableDemo) {
+			demoTimerEnabled = true;
+			game.getTimingWheel().post(new Runnable() {
+				@Override
+				public void run() {
+					lastInputTick = game.getTimingWheel().getTick();
+					game.getTimingWheel().schedule(demoTimer, getDemoIdleTicks());
+				}
+			});
 		}
 	}
 	
 	/**
-	 * Interrupts the game loop thread and blocks until it dies.
+	 * Interrupts the game loop and render loop threads.
 	 * @throws InterruptedException
 	 */
 	public void stopGameLoop() throws InterruptedException {
 		// Stop the demo timer
-		demoTimer.stop();
+		demoTimerEnabled = false;
 		
-		// Stop the old thread if there is one
-		if (gameLoopThread != null && gameLoopThread.isAlive()) {
-			gameLoopThread.interrupt();
+		// Stop the old threads if there are any
+		Thread thread = gameLoopThread;
+		if (thread != null && thread.isAlive()) {
+			thread.interrupt();
 			gameLoopThread = null;
 		}
+		thread = renderLoopThread;
+		if (thread != null && thread.isAlive()) {
+			thread.interrupt();
+		}
+	}
+	
+	/**
+	 * Gets the game loop, e.g. to read its tick timing or set its catch-up cap.
+	 * @return
+	 */
+	public GameLoop getGameLoop() {
+		return gameLoopRunnable;
+	}
+	
+	/**
+	 * Gets the render loop, e.g. to read its frame timing.
+	 * @return
+	 */
+	public RenderLoop getRenderLoop() {
+		return renderLoopRunnable;
+	}
+	
+	/**
+	 * Gets the governor that sheds drawing detail under load, e.g. to read
+	 * the current detail level or to limit it.
+	 * @return
+	 */
+	public FrameBudgetGovernor getDetailGovernor() {
+		return detailGovernor;
+	}
+	
+	/**
+	 * Returns true if the drawing work of the given detail level should be
+	 * skipped in this frame.
+	 * @param level
+	 * @return
+	 */
+	protected boolean isShedding(DetailLevel level) {
+		return detailGovernor.isShedding(level);
 	}
 	
 	/**
@@ -262,10 +312,23 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 	 */
 	public void joinGameLoopThread() throws InterruptedException {
 		// Join the game loop and null the thread when it dies
-		if (gameLoopThread != null && gameLoopThread.isAlive()) {
-			gameLoopThread.join();
+		Thread thread = gameLoopThread;
+		if (thread != null && thread.isAlive()) {
+			thread.join();
 			gameLoopThread = null;
 		}
+		
+		// The game loop stops the render loop when it ends the game
+		joinRenderLoopThread();
+	}
+	
+	private void joinRenderLoopThread() throws InterruptedException {
+		Thread thread = renderLoopThread;
+		if (thread != null) {
+			thread.interrupt();
+			thread.join();
+			renderLoopThread = null;
+		}
 	}
 	
 	/**
@@ -291,7 +354,7 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 		
 		// Remap the buttons
 		if (leftHanded) {
-			playerInputSource.setButtonRemap(getLeftHandedButtonRemap());
+			playerInputSource.setButtonRemap(game.getLeftHandedButtonRemap());
 		} else {
 			playerInputSource.clearButtonRemap();
 		}
@@ -299,27 +362,17 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 		// TODO Shuffle the press counters too
 	}
 	
-	/**
-	 * Override this to support different button assignments for left-handed
-	 * players.
-	 * 
-	 * @return A permutation of the array { 0, 1, 2 }.
-	 */
-	protected int[] getLeftHandedButtonRemap() {
-		return new int[] { 0, 1, 2 };
-	}
-	
 	/**
 	 * Gets the width of the game view in pixels.
 	 * 
 	 * @return
 	 */
 	protected int getGameWidthPixels() {
-		return gameWidth;
+		return game.getGameWidthPixels();
 	}
 	
 	protected long getGameWidthPhysics() {
-		return PhysicsConstants.distance(gameWidth);
+		return game.getGameWidthPhysics();
 	}
 	
 	/**
@@ -328,36 +381,61 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 	 * @return
 	 */
 	protected int getGameHeightPixels() {
-		return gameHeight;
+		return game.getGameHeightPixels();
 	}
 	
 	protected long getGameHeightPhysics() {
-		return PhysicsConstants.distance(gameHeight);
+		return game.getGameHeightPhysics();
+	}
+	
+	private int getDemoIdleTicks() {
+		return (int)Math.max(demoIdleTime * NANOS_PER_MILLI / game.getPhysicsTickNanos(), 1);
 	}
 	
 	/**
-	 * Reset all the game objects.
-	 * This function should NOT call startGameLoop().
+	 * Enters demo mode if nobody has pressed a key for demoIdleTime, or
+	 * checks again when that time will have passed.
+	 * Only call this from the simulation thread.
 	 */
-	abstract public void newGame();
+	private void demoTimerElapsed() {
+		if (!demoTimerEnabled || game.isDemoMode()) {
+			return;
+		}
+		
+		long idleTicks = game.getTimingWheel().getTicksSince(lastInputTick);
+		if (idleTicks >= getDemoIdleTicks()) {
+			setDemoMode(true);
+		} else {
+			game.getTimingWheel().schedule(demoTimer, getDemoIdleTicks() - idleTicks);
+		}
+	}
 	
 	/**
-	 * Reset the game objects, but not overall scores etc. for a new round.
+	 * Sets the players to human or computer control and starts a new game.
+	 * Only call this from the simulation thread.
+	 * @param demoMode
 	 */
-	abstract public void newRound();
-	
 	private void setDemoMode(boolean demoMode) {
-		this.demoMode = demoMode;
+		// Stop the old computer players
+		for (Player player : players) {
+			if (player.getInputSource() instanceof DemoInputSource) {
+				((DemoInputSource)player.getInputSource()).stop();
+			}
+		}
 		
 		// TODO fix this
 		// Set the players to human or computer control
 		InputSource player0InputSource, player1InputSource;
-		if (this.demoMode) {
+		if (demoMode) {
 			// Computer
-			player0InputSource = new DemoInputSource(new IButton[] {
+			DemoInputSource player0Demo = new DemoInputSource(new IButton[] {
 					new VirtualButton(), new VirtualButton(), new VirtualButton() });
-			player1InputSource = new DemoInputSource(new IButton[] {
+			DemoInputSource player1Demo = new DemoInputSource(new IButton[] {
 					new VirtualButton(), new VirtualButton(), new VirtualButton() });
+			player0Demo.start(game);
+			player1Demo.start(game);
+			player0InputSource = player0Demo;
+			player1InputSource = player1Demo;
 		} else {
 			// Human
 			// TODO This will lose the handedness setting
@@ -370,7 +448,7 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 		players[1].setInputSource(player1InputSource);
 		
 		// Start a new game when entering or leaving demo mode
-		newGame();
+		game.setDemoMode(demoMode);
 	}
 	
 	public void togglePause() {
@@ -386,50 +464,92 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 	}
 	
 	/**
-	 * Gets the amount of time represented by one call to physicsTick().
-	 * Must return a positive number.
-	 * @return
+	 * Fills the next snapshot with the game's current state and passes it to
+	 * the render thread. Only call this from the simulation thread.
+	 * @param timeNanos The System.nanoTime() that the current state belongs to.
 	 */
-	abstract public long getPhysicsTickMillis();
+	void publishSnapshot(long timeNanos) {
+		WorldSnapshot snapshot = snapshots.getBackBuffer();
+		snapshot.clear(snapshotNumber++, timeNanos);
+		game.captureSnapshot(snapshot);
+		snapshots.publish();
+	}
 	
 	/**
-	 * Execute one cycle of the game physics.
-	 * This function should call stopGameLoop() when the game ends.
+	 * Gets the most recently published snapshot. Only call this from the render thread.
+	 * @return
 	 */
-	abstract protected void physicsTick();
+	WorldSnapshot getLatestSnapshot() {
+		return snapshots != null ? snapshots.getFrontBuffer() : null;
+	}
 	
-	abstract protected void drawVideoFrame(Graphics g, double extrapolate);
+	/**
+	 * Draws a frame of the game. This must only read the snapshot, never the live game state.
+	 * @param g
+	 * @param snapshot A snapshot that was filled by the game's captureSnapshot().
+	 * @param alpha How far to interpolate from the previous tick to the snapshot's tick, from 0 to 1.
+	 */
+	abstract protected void drawVideoFrame(Graphics g, WorldSnapshot snapshot, double alpha);
 	
-	public void render(double extrapolate) {
-		drawVideoFrame(videoFrame.createGraphics(), extrapolate);
+	/**
+	 * Draws a frame of the game and shows it. Only call this from the render thread.
+	 * @param snapshot
+	 * @param alpha
+	 * @return True if the frame was presented with BufferStrategy.show(), false
+	 *         if it was left to repaint(), which presents it at an unknown time.
+	 */
+	public boolean render(WorldSnapshot snapshot, double alpha) {
+		long drawStart = System.nanoTime();
+		Graphics g = videoFrame.createGraphics();
+		try {
+			drawVideoFrame(g, snapshot, alpha);
+		} finally {
+			g.dispose();
+		}
+		
+		// Show the finished frame, and draw the next one into the frame that was shown before
+		synchronized (frameLock) {
+			BufferedImage swap = shownFrame;
+			shownFrame = videoFrame;
+			videoFrame = swap;
+		}
+		
 		BufferStrategy strategy = getBufferStrategy();
 		if (strategy != null) {
-			paint(strategy.getDrawGraphics());
+			g = strategy.getDrawGraphics();
+			try {
+				paint(g);
+			} finally {
+				g.dispose();
+			}
+			
+			// Leave out show(), which may wait for the display
+			detailGovernor.frameDrawn(System.nanoTime() - drawStart);
 			strategy.show();
+			return true;
 		} else {
+			detailGovernor.frameDrawn(System.nanoTime() - drawStart);
 			repaint();
+			return false;
 		}
 	}
 	
+	/**
+	 * Draws the most recently finished frame. This may be called from the EDT
+	 * while the render thread draws the next frame, which goes into another image.
+	 */
 	@Override
 	public void paint(Graphics g) {
 		int xDraw = (getWidth() - videoWidth) / 2;
 		int yDraw = 0;
 		
-		if (videoScale == 1) {
-			g.drawImage(videoFrame, xDraw, yDraw, null);
-		} else {
-			g.drawImage(videoFrame.getScaledInstance(videoWidth,
-					videoHeight, Image.SCALE_FAST), xDraw, yDraw, null);
-		}
-	}
-	
-	@Override
-	public void actionPerformed(ActionEvent e) {
-		switch (e.getActionCommand()) {
-			case "DemoMode":
-				setDemoMode(true);
-				break;
+		synchronized (frameLock) {
+			if (videoScale == 1) {
+				g.drawImage(shownFrame, xDraw, yDraw, null);
+			} else {
+				g.drawImage(shownFrame.getScaledInstance(videoWidth,
+						videoHeight, Image.SCALE_FAST), xDraw, yDraw, null);
+			}
 		}
 	}
 	
@@ -442,14 +562,19 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 	
 	@Override
 	public void keyPressed(KeyEvent e) {
-		if (demoMode) {
-			// Exit demo mode
-			setDemoMode(false);
-		} else {
-			// Restart the demo timer
-			if (demoTimer.isRunning()) {
-				demoTimer.restart();
-			}
+		// Restart the demo idle time
+		lastInputTick = game.getTimingWheel().getTick();
+		
+		if (game.isDemoMode()) {
+			// Exit demo mode at the start of the next tick
+			game.getTimingWheel().post(new Runnable() {
+				@Override
+				public void run() {
+					if (game.isDemoMode()) {
+						setDemoMode(false);
+					}
+				}
+			});
 		}
 		
 		switch (e.getKeyCode()) {
@@ -468,6 +593,12 @@ public abstract class HeadToHeadGameCanvas extends Canvas
 			case KeyEvent.VK_ESCAPE:
 				System.exit(0);
 				break;
+			case KeyEvent.VK_T:
+				// Fast forward
+				if (DebugMode.isEnabled()) {
+					gameLoopRunnable.setTurbo(!gameLoopRunnable.isTurbo());
+				}
+				break;
 			default:
 				for (ArcadeButton button : buttons) {
 					button.keyPressed(e);
@@ -30,7 +30,7 @@ public class HeadToHeadMain {
 			initializeFrame(frame);
 			doubleBuffer(gameSelector);
 			
-			gameSelector.newGame();
+			gameSelector.getGame().newGame();
 			
 			// Wait for the user to select a game
 			try {
@@ -66,7 +66,7 @@ public class HeadToHeadMain {
 		// Run the game forever
 		try {
 			do {
-				gameCanvas.newGame();
+				gameCanvas.getGame().newGame();
 				gameCanvas.startGameLoop();
 				gameCanvas.joinGameLoopThread();
 				System.gc();	// Run the garbage collector
@@ -0,0 +1,135 @@
+package headtohead;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds, with log-scale buckets.
+ * Recording is allocation-free and safe to call from one or more threads
+ * while another thread takes snapshots.
+ * 
+ * Each power of two is split into 8 linear sub-buckets, so reported values
+ * are within 12.5% of the true value.
+ */
+public class LatencyHistogram {
+	
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+	
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong max = new AtomicLong();
+	
+	/**
+	 * Records one latency measurement.
+	 * @param nanos Negative values are recorded as zero.
+	 */
+	public void record(long nanos) {
+		if (nanos < 0) nanos = 0;
+		counts.incrementAndGet(bucketIndex(nanos));
+		
+		// Raise the max if necessary
+		long oldMax = max.get();
+		while (nanos > oldMax && !max.compareAndSet(oldMax, nanos)) {
+			oldMax = max.get();
+		}
+	}
+	
+	/**
+	 * Clears all recorded values. Values recorded concurrently with a reset
+	 * may or may not be kept.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts.set(i, 0);
+		}
+		max.set(0);
+	}
+	
+	/**
+	 * Copies the current counts. This may be called from any thread.
+	 * @return
+	 */
+	public Snapshot getSnapshot() {
+		long[] copy = new long[BUCKETS];
+		for (int i = 0; i < BUCKETS; i++) {
+			copy[i] = counts.get(i);
+		}
+		return new Snapshot(copy, max.get());
+	}
+	
+	private static int bucketIndex(long nanos) {
+		if (nanos < SUB_BUCKETS) {
+			return (int)nanos;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+	
+	private static long bucketLowerBound(int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+		long subBucket = index % SUB_BUCKETS;
+		return (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+	}
+	
+	/**
+	 * An immutable copy of a histogram's counts.
+	 */
+	public static class Snapshot {
+		private final long[] counts;
+		private final long max;
+		private final long count;
+		
+		private Snapshot(long[] counts, long max) {
+			this.counts = counts;
+			long count = 0;
+			for (long c : counts) {
+				count += c;
+			}
+			this.count = count;
+			this.max = max;
+		}
+		
+		public long getCount() {
+			return count;
+		}
+		
+		public long getMax() {
+			return max;
+		}
+		
+		/**
+		 * Gets the value at the given percentile.
+		 * @param percentile In the range [0, 100].
+		 * @return The upper bound of the bucket containing the percentile,
+		 *         or 0 if nothing has been recorded.
+		 */
+		public long getPercentile(double percentile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = (long)Math.ceil(percentile / 100d * count);
+			rank = Math.min(Math.max(rank, 1), count);
+			
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					long upperBound = i + 1 < BUCKETS ? bucketLowerBound(i + 1) - 1 : Long.MAX_VALUE;
+					return Math.min(upperBound, max);
+				}
+			}
+			return max;
+		}
+		
+		@Override
+		public String toString() {
+			return String.format("n=%d p50=%dns p99=%dns p99.9=%dns max=%dns", count,
+					getPercentile(50d), getPercentile(99d), getPercentile(99.9d), max);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package headtohead;
+
+import java.util.SplittableRandom;
+
+/**
+ * The random numbers of one match. Each subsystem draws from its own stream,
+ * split from the match seed, so a match can be replayed exactly from its seed
+ * and its inputs, and one subsystem using more or fewer numbers does not
+ * change what the others get.
+ */
+public class MatchRandom {
+	
+	/**
+	 * The independent streams. New streams must be added at the end, so that
+	 * the existing streams stay the same for a given seed.
+	 */
+	public enum Stream {
+		/** Placing the objects for a new round, e.g. asteroids or walls. */
+		LAYOUT,
+		/** Breaking destroyed ships and tanks into fragments. */
+		FRAGMENTS,
+		/** The decisions of the computer players in demo mode. */
+		BOTS,
+		/** The ball in Pong. */
+		BALL,
+		/** Decoration that does not affect the game, e.g. the stars. */
+		BACKGROUND;
+	}
+	
+	private static final Stream[] STREAMS = Stream.values();
+	
+	private long seed;
+	private final SplittableRandom[] streams = new SplittableRandom[STREAMS.length];
+	
+	public MatchRandom(long seed) {
+		reseed(seed);
+	}
+	
+	/**
+	 * Restarts every stream from a new seed.
+	 * @param newSeed
+	 */
+	public void reseed(long newSeed) {
+		seed = newSeed;
+		SplittableRandom root = new SplittableRandom(seed);
+		for (int i = 0; i < STREAMS.length; i++) {
+			streams[i] = root.split();
+		}
+	}
+	
+	public long getSeed() {
+		return seed;
+	}
+	
+	/**
+	 * Gets the stream of a subsystem. The stream is replaced by reseed(), so
+	 * do not keep it across matches.
+	 * @param stream
+	 * @return
+	 */
+	public SplittableRandom get(Stream stream) {
+		return streams[stream.ordinal()];
+	}
+}
@@ -0,0 +1,133 @@
+package headtohead;
+
+/**
+ * Runs the render thread. Each frame draws the latest world snapshot published
+ * by the GameLoop, interpolated between the last two physics ticks.
+ */
+public class RenderLoop implements Runnable {
+	
+	/** How the time between frames is decided. */
+	public enum PacingMode {
+		/** Sleep for whatever is left of a fixed frame time. */
+		SLEEP,
+		/** Start each frame so that it is ready just before the next display refresh. */
+		DISPLAY_SYNC
+	}
+	
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	
+	private HeadToHeadGameCanvas game;
+	private long minFrameNanos = NANOS_PER_SECOND / 60;	// Default 60 FPS
+	
+	// Frame pacing
+	private volatile PacingMode pacingMode = PacingMode.SLEEP;
+	private final FramePacer framePacer;
+	
+	// Time spent in each part of the most recent frame
+	private volatile long renderNanos = 0, sleepNanos = 0;
+	
+	// Latency of each call to render()
+	private final LatencyHistogram renderHistogram = new LatencyHistogram();
+	
+	public RenderLoop(HeadToHeadGameCanvas game, int refreshRate) {
+		this.game = game;
+		minFrameNanos = NANOS_PER_SECOND / refreshRate;
+		framePacer = new FramePacer(refreshRate);
+		pacingMode = PacingMode.DISPLAY_SYNC;
+	}
+	
+	public RenderLoop(HeadToHeadGameCanvas game) {
+		this.game = game;
+		framePacer = new FramePacer((int)(NANOS_PER_SECOND / minFrameNanos));
+	}
+	
+	public void setPacingMode(PacingMode pacingMode) {
+		this.pacingMode = pacingMode;
+	}
+	
+	public PacingMode getPacingMode() {
+		return pacingMode;
+	}
+	
+	/**
+	 * Gets the frame pacer, e.g. to read the missed refreshes and present jitter.
+	 * The presents are measured in every pacing mode.
+	 * @return
+	 */
+	public FramePacer getFramePacer() {
+		return framePacer;
+	}
+	
+	/**
+	 * Gets the time spent rendering the most recent frame.
+	 * @return
+	 */
+	public long getRenderNanos() {
+		return renderNanos;
+	}
+	
+	/**
+	 * Gets the time spent sleeping after the most recent frame.
+	 * @return
+	 */
+	public long getSleepNanos() {
+		return sleepNanos;
+	}
+	
+	/**
+	 * Gets the histogram of render() latencies. Snapshots of it may be
+	 * taken from any thread.
+	 * @return
+	 */
+	public LatencyHistogram getRenderHistogram() {
+		return renderHistogram;
+	}
+	
+	@Override
+	public void run() {
+		final long PHYSICS_TICK_NANOS = game.getGame().getPhysicsTickNanos();
+		assert PHYSICS_TICK_NANOS > 0;
+		
+		while (!Thread.interrupted()) {
+			long current = System.nanoTime();
+			
+			// Draw the newest state, part way to the tick after it
+			boolean presented = false;
+			WorldSnapshot snapshot = game.getLatestSnapshot();
+			if (snapshot != null && snapshot.isFilled()) {
+				double alpha = (current - snapshot.getTimeNanos()) / (double)PHYSICS_TICK_NANOS;
+				presented = game.render(snapshot, Math.min(Math.max(alpha, 0d), 1d));
+			}
+			long renderEnd = System.nanoTime();
+			renderHistogram.record(renderEnd - current);
+			if (presented) {
+				framePacer.framePresented(current, renderEnd);
+			}
+			
+			try {
+				if (pacingMode == PacingMode.DISPLAY_SYNC && presented) {
+					// Wait so that the next frame is ready just before the next refresh
+					framePacer.waitForNextFrame();
+				} else {
+					// Reduce the frame rate if necessary
+					long sleepTime = minFrameNanos - (renderEnd - current);
+					if (sleepTime > 0) {
+						Thread.sleep(sleepTime / NANOS_PER_MILLI, (int)(sleepTime % NANOS_PER_MILLI));
+					}
+				}
+			} catch (InterruptedException e) {
+				break;
+			}
+			
+			// Record the frame timing
+			renderNanos = renderEnd - current;
+			sleepNanos = System.nanoTime() - renderEnd;
+		}
+		
+		if (DebugMode.isEnabled()) {
+			System.out.println("Frame pacing: " + framePacer);
+			System.out.println("Frame detail: " + game.getDetailGovernor());
+		}
+	}
+}
@@ -0,0 +1,255 @@
+package headtohead;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A hierarchical timing wheel that runs tasks after a number of physics
+ * ticks. The game advances it once at the start of each physicsTick(), so
+ * every task runs on the simulation thread at a deterministic point in the
+ * game, and turbo mode speeds timers up along with everything else.
+ * 
+ * Each level has 64 slots. Level 0 holds the timers due in the current
+ * block of 64 ticks, one slot per tick; each level above holds blocks 64
+ * times longer, and its timers cascade down a level when their block begins.
+ * Scheduling, cancelling and running a timer take constant time, and
+ * rescheduling an Entry does not allocate.
+ * 
+ * The wheel is not thread-safe, except for post() and getTick().
+ */
+public class TimingWheel {
+	
+	private static final int LEVEL_BITS = 6;
+	private static final int SLOTS = 1 << LEVEL_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	private static final int LEVELS = 4;
+	
+	/** The slot index of entries that are too far away for any level. */
+	private static final int OVERFLOW_SLOT = LEVELS * SLOTS;
+	
+	/** The first and last entries of each slot, and of the overflow list. */
+	private final Entry[] heads = new Entry[OVERFLOW_SLOT + 1],
+			tails = new Entry[OVERFLOW_SLOT + 1];
+	
+	/** The number of times advance() has been called. */
+	private volatile long tick = 0;
+	
+	/** Tasks posted from other threads, to be run on the next tick. */
+	private final ConcurrentLinkedQueue<Runnable> posted = new ConcurrentLinkedQueue<Runnable>();
+	
+	/**
+	 * Gets the current tick. This may be called from any thread.
+	 * @return
+	 */
+	public long getTick() {
+		return tick;
+	}
+	
+	/**
+	 * Gets the number of ticks since the given tick.
+	 * @param since
+	 * @return
+	 */
+	public long getTicksSince(long since) {
+		return tick - since;
+	}
+	
+	/**
+	 * Schedules a new timer.
+	 * @param delayTicks The number of calls to advance() until the task runs.
+	 *            Must be at least 1.
+	 * @param task
+	 * @return The timer, which can be cancelled or rescheduled.
+	 */
+	public Entry schedule(long delayTicks, Runnable task) {
+		Entry entry = new Entry(task);
+		schedule(entry, delayTicks);
+		return entry;
+	}
+	
+	/**
+	 * Schedules a timer, cancelling it first if it is already scheduled.
+	 * @param entry
+	 * @param delayTicks The number of calls to advance() until the task runs.
+	 *            Must be at least 1.
+	 */
+	public void schedule(Entry entry, long delayTicks) {
+		if (delayTicks < 1) {
+			throw new IllegalArgumentException("Delay must be at least 1 tick.");
+		}
+		if (entry.wheel != null) {
+			entry.wheel.remove(entry);
+		}
+		entry.deadline = tick + delayTicks;
+		insert(entry);
+	}
+	
+	/**
+	 * Cancels a timer. Does nothing if the timer is not scheduled.
+	 * @param entry
+	 */
+	public void cancel(Entry entry) {
+		if (entry.wheel == this) {
+			remove(entry);
+		}
+	}
+	
+	/**
+	 * Cancels every timer.
+	 */
+	public void clear() {
+		for (int slot = 0; slot <= OVERFLOW_SLOT; slot++) {
+			while (heads[slot] != null) {
+				remove(heads[slot]);
+			}
+		}
+	}
+	
+	/**
+	 * Runs a task at the start of the next tick. Unlike schedule(), this may
+	 * be called from any thread, e.g. from a key listener.
+	 * @param task
+	 */
+	public void post(Runnable task) {
+		posted.add(task);
+	}
+	
+	/**
+	 * Moves to the next tick and runs the posted tasks and the timers that
+	 * are due, in the order they were scheduled. Tasks may schedule and
+	 * cancel timers, including themselves.
+	 */
+	public void advance() {
+		final long now = tick + 1;
+		tick = now;
+		
+		// Run the tasks from other threads
+		Runnable task;
+		while ((task = posted.poll()) != null) {
+			task.run();
+		}
+		
+		// Cascade every level whose next block begins now, highest first
+		int level = 1;
+		while (level <= LEVELS && (now & ((1L << (LEVEL_BITS * level)) - 1)) == 0) {
+			level++;
+		}
+		if (level > LEVELS) {
+			cascade(OVERFLOW_SLOT);
+		}
+		for (int l = Math.min(level, LEVELS) - 1; l >= 1; l--) {
+			cascade(l * SLOTS + ((int)(now >>> (LEVEL_BITS * l)) & SLOT_MASK));
+		}
+		
+		// Run the timers that are due
+		int slot = (int)now & SLOT_MASK;
+		Entry entry;
+		while ((entry = heads[slot]) != null) {
+			remove(entry);
+			entry.task.run();
+		}
+	}
+	
+	/**
+	 * Moves every entry in a slot to the level it now belongs in.
+	 * @param slot
+	 */
+	private void cascade(int slot) {
+		Entry entry = heads[slot];
+		heads[slot] = null;
+		tails[slot] = null;
+		while (entry != null) {
+			Entry next = entry.next;
+			entry.wheel = null;
+			entry.previous = null;
+			entry.next = null;
+			insert(entry);
+			entry = next;
+		}
+	}
+	
+	/**
+	 * Adds an entry to the slot for its deadline.
+	 * @param entry
+	 */
+	private void insert(Entry entry) {
+		// Use the lowest level on which the deadline is in the current block
+		int slot = OVERFLOW_SLOT;
+		for (int level = 0; level < LEVELS; level++) {
+			int shift = LEVEL_BITS * (level + 1);
+			if ((entry.deadline >>> shift) == (tick >>> shift)) {
+				slot = level * SLOTS + ((int)(entry.deadline >>> (LEVEL_BITS * level)) & SLOT_MASK);
+				break;
+			}
+		}
+		
+		// Append it to the slot's list
+		entry.wheel = this;
+		entry.slot = slot;
+		entry.previous = tails[slot];
+		entry.next = null;
+		if (tails[slot] != null) {
+			tails[slot].next = entry;
+		} else {
+			heads[slot] = entry;
+		}
+		tails[slot] = entry;
+	}
+	
+	private void remove(Entry entry) {
+		int slot = entry.slot;
+		if (entry.previous != null) {
+			entry.previous.next = entry.next;
+		} else {
+			heads[slot] = entry.next;
+		}
+		if (entry.next != null) {
+			entry.next.previous = entry.previous;
+		} else {
+			tails[slot] = entry.previous;
+		}
+		entry.wheel = null;
+		entry.previous = null;
+		entry.next = null;
+	}
+	
+	/**
+	 * A timer. One entry can be scheduled again and again without allocating.
+	 */
+	public static final class Entry {
+		private final Runnable task;
+		
+		private TimingWheel wheel;
+		private long deadline;
+		private int slot;
+		private Entry previous, next;
+		
+		public Entry(Runnable task) {
+			this.task = task;
+		}
+		
+		/**
+		 * Returns true if the timer is waiting to run.
+		 * @return
+		 */
+		public boolean isScheduled() {
+			return wheel != null;
+		}
+		
+		/**
+		 * Gets the tick on which the timer runs, if it is scheduled.
+		 * @return
+		 */
+		public long getDeadline() {
+			return deadline;
+		}
+		
+		/**
+		 * Cancels the timer. Does nothing if it is not scheduled.
+		 */
+		public void cancel() {
+			if (wheel != null) {
+				wheel.remove(this);
+			}
+		}
+	}
+}
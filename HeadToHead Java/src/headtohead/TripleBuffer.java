@@ -0,0 +1,62 @@
+package headtohead;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A lock-free triple buffer for passing values from one writer thread to one
+ * reader thread. The writer fills the back buffer and publishes it; the
+ * reader always gets the most recently published buffer. Neither side ever
+ * waits for the other, and buffers are reused rather than allocated.
+ * 
+ * @param <T> The type of the buffers.
+ */
+public class TripleBuffer<T> {
+	
+	/** Set in the middle index if it has not been read yet. */
+	private static final int DIRTY = 4;
+	
+	private final Object[] buffers;
+	
+	/** The index of the buffer in the middle, possibly with the DIRTY bit. */
+	private final AtomicInteger middle = new AtomicInteger(1);
+	
+	/** Only used by the writer. */
+	private int back = 0;
+	
+	/** Only used by the reader. */
+	private int front = 2;
+	
+	public TripleBuffer(T buffer0, T buffer1, T buffer2) {
+		buffers = new Object[] { buffer0, buffer1, buffer2 };
+	}
+	
+	/**
+	 * Gets the buffer that the writer may fill. Only call this from the writer thread.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public T getBackBuffer() {
+		return (T)buffers[back];
+	}
+	
+	/**
+	 * Makes the back buffer available to the reader and gets a new back buffer.
+	 * Only call this from the writer thread.
+	 */
+	public void publish() {
+		back = middle.getAndSet(back | DIRTY) & ~DIRTY;
+	}
+	
+	/**
+	 * Gets the most recently published buffer. Only call this from the reader thread.
+	 * The buffer stays valid until the next call to this function.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public T getFrontBuffer() {
+		if ((middle.get() & DIRTY) != 0) {
+			front = middle.getAndSet(front) & ~DIRTY;
+		}
+		return (T)buffers[front];
+	}
+}
@@ -0,0 +1,225 @@
+package headtohead;
+
+import blasteroids.BlasteroidsGame;
+import button.IButton;
+import button.VirtualButton;
+import physics.Broadphase;
+import physics.PhysicsConstants;
+import pong.PongGame;
+import tankbattle.TankBattleGame;
+
+/**
+ * Runs whole matches of a game without a display, with physics ticks back to
+ * back as fast as the CPU allows. The players are driven by demo input that is
+ * stepped by the game's timers, so a match follows the same newGame() /
+ * newRound() lifecycle as when it is played.
+ * 
+ * Usage: TurboRunner [blasteroids|tankbattle|pong] [matches] [ticks per snapshot] [seed] [broadphase]
+ *         [fixed-point bits] [parallel threshold] [body store]
+ * Prints the ticks and time of each match, and the simulated ticks per second.
+ * Given a seed, match i is seeded with seed + i, so every run plays the same matches.
+ * The broadphase is one of nested_loops, grid, sweep_and_prune or tree, or
+ * default for the game's own. Objects move in fixed point if the fixed-point
+ * bits are not 0. Collision detection runs on several threads once there are
+ * as many objects as the parallel threshold, if the game supports it.
+ * Bodies move in a structure-of-arrays store if the body store is true.
+ */
+public class TurboRunner {
+	
+	private static final long NANOS_PER_MILLI = 1000000L;
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	
+	private final HeadToHeadGame game;
+	private final DemoInputSource[] inputSources;
+	
+	/** How often a snapshot is captured, or 0 to never capture one. */
+	private int ticksPerSnapshot = 0;
+	private WorldSnapshot snapshot;
+	private long snapshotNumber = 0;
+	
+	// Totals of all matches
+	private long totalTicks = 0, totalNanos = 0;
+	
+	/**
+	 * Gives the game's players demo input, which is stepped by the game's timers.
+	 * @param game
+	 */
+	public TurboRunner(HeadToHeadGame game) {
+		this.game = game;
+		
+		Player[] players = game.getPlayers();
+		inputSources = new DemoInputSource[players.length];
+		for (int i = 0; i < players.length; i++) {
+			inputSources[i] = new DemoInputSource(new IButton[] {
+					new VirtualButton(), new VirtualButton(), new VirtualButton() });
+			players[i].setInputSource(inputSources[i]);
+			inputSources[i].start(game);
+		}
+	}
+	
+	/**
+	 * Sets how often a snapshot is captured, as a stand-in for the cost of
+	 * publishing it for rendering.
+	 * @param ticksPerSnapshot The number of ticks between snapshots, or 0 to
+	 *            never capture one.
+	 */
+	public void setTicksPerSnapshot(int ticksPerSnapshot) {
+		if (ticksPerSnapshot < 0) {
+			throw new IllegalArgumentException("Ticks per snapshot cannot be negative.");
+		}
+		this.ticksPerSnapshot = ticksPerSnapshot;
+		if (ticksPerSnapshot > 0 && snapshot == null) {
+			snapshot = game.createSnapshot();
+		}
+	}
+	
+	public int getTicksPerSnapshot() {
+		return ticksPerSnapshot;
+	}
+	
+	/**
+	 * Starts a new game with the given seed and runs it until it is over.
+	 * @param seed
+	 * @param maxTicks The match is abandoned after this many ticks.
+	 * @return The number of ticks that were run.
+	 */
+	public long runMatch(long seed, long maxTicks) {
+		game.setNextMatchSeed(seed);
+		return runMatch(maxTicks);
+	}
+	
+	/**
+	 * Starts a new game and runs it until it is over.
+	 * @param maxTicks The match is abandoned after this many ticks.
+	 * @return The number of ticks that were run.
+	 */
+	public long runMatch(long maxTicks) {
+		startMatch();
+		
+		long ticks = 0;
+		final long start = System.nanoTime();
+		while (!game.isGameOver() && ticks < maxTicks) {
+			game.physicsTick();
+			ticks++;
+			
+			if (ticksPerSnapshot > 0 && ticks % ticksPerSnapshot == 0) {
+				snapshot.clear(snapshotNumber++, System.nanoTime());
+				game.captureSnapshot(snapshot);
+			}
+		}
+		
+		totalNanos += System.nanoTime() - start;
+		totalTicks += ticks;
+		return ticks;
+	}
+	
+	/**
+	 * Starts a new game with the given seed, without running it, for callers
+	 * that run the ticks themselves.
+	 * @param seed
+	 */
+	public void startMatch(long seed) {
+		game.setNextMatchSeed(seed);
+		startMatch();
+	}
+	
+	private void startMatch() {
+		game.newGame();
+		
+		// Restart the demo input, so that the match only depends on its seed
+		for (DemoInputSource inputSource : inputSources) {
+			inputSource.start(game);
+		}
+	}
+	
+	public HeadToHeadGame getGame() {
+		return game;
+	}
+	
+	/**
+	 * Gets the number of ticks run in all matches so far.
+	 * @return
+	 */
+	public long getTotalTicks() {
+		return totalTicks;
+	}
+	
+	/**
+	 * Gets the time spent running all matches so far.
+	 * @return
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+	
+	/**
+	 * Gets the simulated ticks per second over all matches so far.
+	 * @return
+	 */
+	public double getTicksPerSecond() {
+		return totalNanos > 0 ? totalTicks * (double)NANOS_PER_SECOND / totalNanos : 0d;
+	}
+	
+	/**
+	 * Creates a game by name.
+	 * @param name
+	 * @return
+	 */
+	private static HeadToHeadGame createGame(String name) {
+		switch (name.toLowerCase()) {
+			case "blasteroids":
+				return new BlasteroidsGame();
+			case "tankbattle":
+				return new TankBattleGame();
+			case "pong":
+				return new PongGame();
+			default:
+				throw new IllegalArgumentException("Unknown game: " + name);
+		}
+	}
+	
+	public static void main(String[] args) {
+		String name = args.length > 0 ? args[0] : "blasteroids";
+		int matches = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		int ticksPerSnapshot = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+		Long seed = args.length > 3 ? Long.parseLong(args[3]) : null;
+		
+		if (args.length > 5) {
+			PhysicsConstants.setFixedPointBits(Integer.parseInt(args[5]));
+		}
+		
+		HeadToHeadGame game = createGame(name);
+		if (args.length > 4 && !args[4].equalsIgnoreCase("default")) {
+			Broadphase broadphase = Broadphase.valueOf(args[4].toUpperCase());
+			if (!game.setBroadphase(broadphase)) {
+				throw new IllegalArgumentException(name + " does not support " + args[4]);
+			}
+		}
+		if (args.length > 6 && !game.setParallelThreshold(Integer.parseInt(args[6]))) {
+			throw new IllegalArgumentException(name + " does not support parallel detection");
+		}
+		if (args.length > 7 && !game.setBodyStore(Boolean.parseBoolean(args[7]))) {
+			throw new IllegalArgumentException(name + " does not support a body store");
+		}
+		TurboRunner runner = new TurboRunner(game);
+		runner.setTicksPerSnapshot(ticksPerSnapshot);
+		
+		// Give up on a match after an hour of game time
+		long maxTicks = 3600L * NANOS_PER_SECOND / game.getPhysicsTickNanos();
+		
+		for (int i = 0; i < matches; i++) {
+			long startNanos = runner.getTotalNanos();
+			long ticks = seed != null ? runner.runMatch(seed + i, maxTicks) : runner.runMatch(maxTicks);
+			double millis = (runner.getTotalNanos() - startNanos) / (double)NANOS_PER_MILLI;
+			
+			Player[] players = game.getPlayers();
+			System.out.println(String.format("Match %3d: seed %20d %8d ticks %10.2f ms  score %d-%d%s",
+					i + 1, game.getMatchSeed(), ticks, millis, players[0].score, players[1].score,
+					game.isGameOver() ? "" : "  (abandoned)"));
+		}
+		
+		System.out.println(String.format("%s: %d ticks in %.2f ms = %.0f ticks/s",
+				name, runner.getTotalTicks(), runner.getTotalNanos() / (double)NANOS_PER_MILLI,
+				runner.getTicksPerSecond()));
+	}
+}
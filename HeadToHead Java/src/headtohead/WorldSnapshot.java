@@ -0,0 +1,344 @@
+package headtohead;
+
+import java.awt.Polygon;
+import java.util.Arrays;
+
+import geometry.Vector2DLong;
+import physics.IPolygon;
+import physics.IReshapeablePolygon;
+import physics.PhysicsConstants;
+import physics.PhysicsObject;
+import physics.RotatablePhysicsObject;
+
+/**
+ * A copy of the state of the game world that is needed to draw one frame.
+ * Snapshots are filled by the simulation thread and handed to the render
+ * thread through a TripleBuffer, so the renderer never reads the live physics
+ * objects. Snapshots are reused, so filling one does not allocate once its
+ * lists have grown to size.
+ * 
+ * Games that need more state for drawing should extend this class.
+ */
+public class WorldSnapshot {
+	
+	/** The number of the snapshot, counting up from 0. Negative if never filled. */
+	private long number = -1;
+	
+	/** The System.nanoTime() at which the simulation reached this state. */
+	private long timeNanos;
+	
+	/**
+	 * Clears the snapshot so it can be filled with a new state.
+	 * Subclasses must call super.clear() and clear their own lists.
+	 * @param number
+	 * @param timeNanos
+	 */
+	public void clear(long number, long timeNanos) {
+		this.number = number;
+		this.timeNanos = timeNanos;
+	}
+	
+	public long getNumber() {
+		return number;
+	}
+	
+	/**
+	 * Returns true if this snapshot has been filled at least once.
+	 * @return
+	 */
+	public boolean isFilled() {
+		return number >= 0;
+	}
+	
+	public long getTimeNanos() {
+		return timeNanos;
+	}
+	
+	/**
+	 * Interpolates between two values.
+	 * @param previous
+	 * @param current
+	 * @param alpha The fraction of the way from previous to current.
+	 * @param period If positive, the values wrap around at this period, and are
+	 *            interpolated along the shortest path.
+	 * @return
+	 */
+	public static long interpolate(long previous, long current, double alpha, long period) {
+		long difference = current - previous;
+		if (period > 0) {
+			if (difference > period / 2) {
+				difference -= period;
+			} else if (difference < -period / 2) {
+				difference += period;
+			}
+		}
+		long value = current - (long)((1d - alpha) * difference);
+		if (period > 0) {
+			value %= period;
+			if (value < 0) {
+				value += period;
+			}
+		}
+		return value;
+	}
+	
+	/**
+	 * A list of the poses of physics objects, with their pose in the previous
+	 * snapshot for interpolation.
+	 * 
+	 * Pooled objects may be reused while a snapshot is being drawn, so their
+	 * owner and, if it can change, their outline are copied as well.
+	 */
+	public static class BodyList {
+		private final long width, height;
+		
+		private int size = 0;
+		private PhysicsObject[] bodies;
+		private long[] x, y, previousX, previousY, radius;
+		private double[] angle, previousAngle;
+		private Player[] owner;
+		
+		/** The copied outlines, where outlineSize is -1 for objects whose outline is not copied. */
+		private int[] outlineStart, outlineSize;
+		private int outlinePoints = 0;
+		private long[] outlineX, outlineY;
+		
+		/**
+		 * @param width The width of the wrapped world, or 0 if it does not wrap.
+		 * @param height The height of the wrapped world, or 0 if it does not wrap.
+		 */
+		public BodyList(long width, long height) {
+			this.width = width;
+			this.height = height;
+			int capacity = 16;
+			bodies = new PhysicsObject[capacity];
+			x = new long[capacity];
+			y = new long[capacity];
+			previousX = new long[capacity];
+			previousY = new long[capacity];
+			radius = new long[capacity];
+			angle = new double[capacity];
+			previousAngle = new double[capacity];
+			owner = new Player[capacity];
+			outlineStart = new int[capacity];
+			outlineSize = new int[capacity];
+			outlineX = new long[4 * capacity];
+			outlineY = new long[4 * capacity];
+		}
+		
+		private void grow() {
+			int capacity = 2 * bodies.length;
+			bodies = Arrays.copyOf(bodies, capacity);
+			x = Arrays.copyOf(x, capacity);
+			y = Arrays.copyOf(y, capacity);
+			previousX = Arrays.copyOf(previousX, capacity);
+			previousY = Arrays.copyOf(previousY, capacity);
+			radius = Arrays.copyOf(radius, capacity);
+			angle = Arrays.copyOf(angle, capacity);
+			previousAngle = Arrays.copyOf(previousAngle, capacity);
+			owner = Arrays.copyOf(owner, capacity);
+			outlineStart = Arrays.copyOf(outlineStart, capacity);
+			outlineSize = Arrays.copyOf(outlineSize, capacity);
+		}
+		
+		public void clear() {
+			// Drop references so that dead objects can be collected
+			Arrays.fill(bodies, 0, size, null);
+			Arrays.fill(owner, 0, size, null);
+			size = 0;
+			outlinePoints = 0;
+		}
+		
+		/**
+		 * Copies the outline of an object whose outline can change.
+		 * @param polygon
+		 */
+		private void copyOutline(IReshapeablePolygon polygon) {
+			int points = polygon.getOutlineSize();
+			if (outlinePoints + points > outlineX.length) {
+				int capacity = Math.max(2 * outlineX.length, outlinePoints + points);
+				outlineX = Arrays.copyOf(outlineX, capacity);
+				outlineY = Arrays.copyOf(outlineY, capacity);
+			}
+			outlineStart[size] = outlinePoints;
+			outlineSize[size] = points;
+			for (int i = 0; i < points; i++) {
+				Vector2DLong point = polygon.getRelativeOutlineVector(i);
+				outlineX[outlinePoints] = point.x;
+				outlineY[outlinePoints] = point.y;
+				outlinePoints++;
+			}
+		}
+		
+		/**
+		 * Adds the current pose of a physics object.
+		 * Only call this from the simulation thread.
+		 * @param obj
+		 * @param snapshot The snapshot that this list belongs to.
+		 */
+		public void add(PhysicsObject obj, WorldSnapshot snapshot) {
+			if (size == bodies.length) {
+				grow();
+			}
+			
+			double objAngle = obj instanceof RotatablePhysicsObject
+					? ((RotatablePhysicsObject)obj).angle : 0d;
+			
+			// Use the pose from the previous snapshot, if the object was in it
+			boolean wasInPrevious = obj.snapshotNumber == snapshot.number - 1;
+			bodies[size] = obj;
+			x[size] = obj.position.x;
+			y[size] = obj.position.y;
+			previousX[size] = wasInPrevious ? obj.snapshotX : obj.position.x;
+			previousY[size] = wasInPrevious ? obj.snapshotY : obj.position.y;
+			angle[size] = objAngle;
+			previousAngle[size] = wasInPrevious ? obj.snapshotAngle : objAngle;
+			radius[size] = obj.getRadius();
+			owner[size] = obj instanceof IOwnable ? ((IOwnable)obj).getOwner() : null;
+			if (obj instanceof IReshapeablePolygon) {
+				copyOutline((IReshapeablePolygon)obj);
+			} else {
+				outlineSize[size] = -1;
+			}
+			size++;
+			
+			// Remember this pose for the next snapshot
+			obj.snapshotNumber = snapshot.number;
+			obj.snapshotX = obj.position.x;
+			obj.snapshotY = obj.position.y;
+			obj.snapshotAngle = objAngle;
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		/**
+		 * Gets the object itself. The simulation may be changing it, or may
+		 * have reused it from a pool as another object, so only read what never
+		 * changes, e.g. its class. Use getOwner() and getOutline() instead.
+		 * @param i
+		 * @return
+		 */
+		public PhysicsObject get(int i) {
+			return bodies[i];
+		}
+		
+		public long getX(int i, double alpha) {
+			return interpolate(previousX[i], x[i], alpha, width);
+		}
+		
+		public long getY(int i, double alpha) {
+			return interpolate(previousY[i], y[i], alpha, height);
+		}
+		
+		public double getAngle(int i, double alpha) {
+			return previousAngle[i] + alpha * (angle[i] - previousAngle[i]);
+		}
+		
+		public long getRadius(int i) {
+			return radius[i];
+		}
+		
+		/**
+		 * Gets the owner that the object had when it was added.
+		 * @param i
+		 * @return null if the object has no owner, or is not IOwnable.
+		 */
+		public Player getOwner(int i) {
+			return owner[i];
+		}
+		
+		/**
+		 * Gets the outline of the object at its interpolated pose (units of pixels).
+		 * @param i
+		 * @param alpha
+		 * @return null if the object is not an IPolygon.
+		 */
+		public Polygon getOutline(int i, double alpha) {
+			long outlineXPosition = getX(i, alpha), outlineYPosition = getY(i, alpha);
+			double outlineAngle = getAngle(i, alpha);
+			if (outlineSize[i] < 0) {
+				// The shape never changes, so the object can draw it
+				if (!(bodies[i] instanceof IPolygon)) {
+					return null;
+				}
+				return ((IPolygon)bodies[i]).getOutline(
+						new Vector2DLong(outlineXPosition, outlineYPosition), outlineAngle);
+			}
+			
+			// Rotate the copied outline, as Vector2DLong.getRotated() does
+			final double cos = Math.cos(outlineAngle), sin = Math.sin(outlineAngle);
+			int points = outlineSize[i];
+			int[] xPoints = new int[points];
+			int[] yPoints = new int[points];
+			for (int j = 0, k = outlineStart[i]; j < points; j++, k++) {
+				long pointX = outlineX[k], pointY = outlineY[k];
+				xPoints[j] = PhysicsConstants.distanceToPixels(
+						(long)(pointX * cos - pointY * sin) + outlineXPosition);
+				yPoints[j] = PhysicsConstants.distanceToPixels(
+						(long)(pointX * sin + pointY * cos) + outlineYPosition);
+			}
+			return new Polygon(xPoints, yPoints, points);
+		}
+	}
+	
+	/**
+	 * A list of text markers.
+	 */
+	public static class TextList {
+		private int size = 0;
+		private String[] text = new String[8];
+		private long[] x = new long[8], y = new long[8];
+		private Player[] owner = new Player[8];
+		private boolean[] inverted = new boolean[8];
+		
+		public void clear() {
+			Arrays.fill(text, 0, size, null);
+			Arrays.fill(owner, 0, size, null);
+			size = 0;
+		}
+		
+		public void add(String value, long xPosition, long yPosition, Player markerOwner,
+				boolean markerInverted) {
+			if (size == text.length) {
+				int capacity = 2 * size;
+				text = Arrays.copyOf(text, capacity);
+				x = Arrays.copyOf(x, capacity);
+				y = Arrays.copyOf(y, capacity);
+				owner = Arrays.copyOf(owner, capacity);
+				inverted = Arrays.copyOf(inverted, capacity);
+			}
+			text[size] = value;
+			x[size] = xPosition;
+			y[size] = yPosition;
+			owner[size] = markerOwner;
+			inverted[size] = markerInverted;
+			size++;
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		public String getText(int i) {
+			return text[i];
+		}
+		
+		public long getX(int i) {
+			return x[i];
+		}
+		
+		public long getY(int i) {
+			return y[i];
+		}
+		
+		public Player getOwner(int i) {
+			return owner[i];
+		}
+		
+		public boolean isInverted(int i) {
+			return inverted[i];
+		}
+	}
+}
@@ -4,6 +4,16 @@ public abstract class AgedPhysicsObject extends PhysicsObject {
 	/** The object's age in physics time units. */
 	protected long age = 0;
 	
+	/** The AgedRing this object is in, and the sequence number of its slot there. Only the ring uses these. */
+	AgedRing<?> ring;
+	long ringSequence;
+	
+	@Override
+	protected void reset() {
+		super.reset();
+		age = 0;
+	}
+	
 	@Override
 	public void move(long deltaTime) {
 		super.move(deltaTime);
@@ -0,0 +1,229 @@
+package physics;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * A list of aged objects, e.g. bullets, in a ring buffer. Objects are added at
+ * the tail, so the oldest objects are at the head if they all age at the same
+ * rate, and expired objects are taken from the head in constant time.
+ * 
+ * Removing an object from the middle leaves an empty slot, a tombstone, in
+ * its place, so it also takes constant time and does not change the order of
+ * the others. Loops that remove objects as they go should go through the
+ * slots with getSlotCount() and getSlot(), which skip nothing and move
+ * nothing, and remove with removeSlot(). The List methods, e.g. get(), see
+ * only the objects, and close up the tombstones first if there are any, in
+ * one pass that keeps the order.
+ * 
+ * An object can only be in one AgedRing at a time.
+ */
+public class AgedRing<T extends AgedPhysicsObject> extends AbstractList<T> {
+	
+	/** The slots, a power of two of them. Tombstones are null. */
+	private AgedPhysicsObject[] slots = new AgedPhysicsObject[16];
+	/** The index in slots of the head. */
+	private int head = 0;
+	/** The number of slots from the head to the tail, including tombstones. */
+	private int slotCount = 0;
+	private int tombstones = 0;
+	/** The sequence number of the head. Each object knows the sequence number of its slot. */
+	private long headSequence = 0;
+	
+	@Override
+	public boolean add(T object) {
+		if (object.ring != null) {
+			throw new IllegalArgumentException("The object is already in a ring.");
+		}
+		if (slotCount == slots.length) {
+			grow();
+		}
+		slots[(head + slotCount) & (slots.length - 1)] = object;
+		object.ring = this;
+		object.ringSequence = headSequence + slotCount;
+		slotCount++;
+		modCount++;
+		return true;
+	}
+	
+	@Override
+	public int size() {
+		return slotCount - tombstones;
+	}
+	
+	@Override
+	public T get(int index) {
+		if (tombstones > 0) {
+			compact();
+		}
+		return getSlot(index);
+	}
+	
+	@Override
+	public T remove(int index) {
+		if (tombstones > 0) {
+			compact();
+		}
+		checkSlot(index);
+		return removeSlot(index);
+	}
+	
+	/**
+	 * Removes an object in constant time, leaving a tombstone in its slot.
+	 * @param o
+	 * @return False if the object is not in this ring.
+	 */
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof AgedPhysicsObject) || ((AgedPhysicsObject)o).ring != this) {
+			return false;
+		}
+		removeSlot((int)(((AgedPhysicsObject)o).ringSequence - headSequence));
+		return true;
+	}
+	
+	@Override
+	public boolean contains(Object o) {
+		return o instanceof AgedPhysicsObject && ((AgedPhysicsObject)o).ring == this;
+	}
+	
+	@Override
+	public void clear() {
+		for (int slot = 0; slot < slotCount; slot++) {
+			AgedPhysicsObject object = slots[(head + slot) & (slots.length - 1)];
+			if (object != null) {
+				object.ring = null;
+			}
+		}
+		Arrays.fill(slots, null);
+		head = 0;
+		headSequence += slotCount;
+		slotCount = 0;
+		tombstones = 0;
+		modCount++;
+	}
+	
+	/**
+	 * Gets the number of slots, including the tombstones.
+	 * @return
+	 */
+	public int getSlotCount() {
+		return slotCount;
+	}
+	
+	/**
+	 * Gets the object in a slot.
+	 * @param slot From 0 at the head to getSlotCount() - 1.
+	 * @return The object, or null if the slot is a tombstone.
+	 */
+	@SuppressWarnings("unchecked")
+	public T getSlot(int slot) {
+		checkSlot(slot);
+		return (T)slots[(head + slot) & (slots.length - 1)];
+	}
+	
+	/**
+	 * Finds the slot of an object in constant time.
+	 * @param object
+	 * @return The slot, or -1 if the object is not in this ring.
+	 */
+	public int getSlotOf(T object) {
+		if (object.ring != this) {
+			return -1;
+		}
+		return (int)(object.ringSequence - headSequence);
+	}
+	
+	/**
+	 * Removes the object in a slot, leaving a tombstone. No other slot changes.
+	 * @param slot From 0 at the head to getSlotCount() - 1.
+	 * @return The object, or null if the slot was a tombstone already.
+	 */
+	@SuppressWarnings("unchecked")
+	public T removeSlot(int slot) {
+		checkSlot(slot);
+		int index = (head + slot) & (slots.length - 1);
+		AgedPhysicsObject object = slots[index];
+		if (object == null) {
+			return null;
+		}
+		slots[index] = null;
+		object.ring = null;
+		tombstones++;
+		modCount++;
+		return (T)object;
+	}
+	
+	/**
+	 * Removes the object at the head if it is older than a maximum age,
+	 * dropping any tombstones before it. Since objects are added at the tail,
+	 * calling this until it returns null removes every expired object, as
+	 * long as every object ages at the same rate.
+	 * @param maxAge
+	 * @return The object, or null if the head has not expired.
+	 */
+	@SuppressWarnings("unchecked")
+	public T pollExpired(double maxAge) {
+		dropHeadTombstones();
+		if (slotCount == 0 || slots[head].getAge() <= maxAge) {
+			return null;
+		}
+		AgedPhysicsObject object = slots[head];
+		slots[head] = null;
+		object.ring = null;
+		head = (head + 1) & (slots.length - 1);
+		headSequence++;
+		slotCount--;
+		modCount++;
+		return (T)object;
+	}
+	
+	/**
+	 * Closes up the tombstones, keeping the objects in order.
+	 */
+	public void compact() {
+		final int mask = slots.length - 1;
+		int kept = 0;
+		for (int slot = 0; slot < slotCount; slot++) {
+			AgedPhysicsObject object = slots[(head + slot) & mask];
+			if (object == null) {
+				continue;
+			}
+			if (kept != slot) {
+				slots[(head + kept) & mask] = object;
+				slots[(head + slot) & mask] = null;
+				object.ringSequence = headSequence + kept;
+			}
+			kept++;
+		}
+		slotCount = kept;
+		tombstones = 0;
+	}
+	
+	private void dropHeadTombstones() {
+		while (slotCount > 0 && slots[head] == null) {
+			head = (head + 1) & (slots.length - 1);
+			headSequence++;
+			slotCount--;
+			tombstones--;
+		}
+	}
+	
+	private void checkSlot(int slot) {
+		if (slot < 0 || slot >= slotCount) {
+			throw new IndexOutOfBoundsException("Slot " + slot + " of " + slotCount);
+		}
+	}
+	
+	/**
+	 * Doubles the number of slots, moving the head to the start.
+	 */
+	private void grow() {
+		AgedPhysicsObject[] newSlots = new AgedPhysicsObject[2 * slots.length];
+		int firstPart = Math.min(slotCount, slots.length - head);
+		System.arraycopy(slots, head, newSlots, 0, firstPart);
+		System.arraycopy(slots, 0, newSlots, firstPart, slotCount - firstPart);
+		slots = newSlots;
+		head = 0;
+	}
+}
@@ -0,0 +1,405 @@
+package physics;
+
+import java.util.Arrays;
+
+/**
+ * Stores the state of many circular bodies in parallel arrays of primitives,
+ * one array per field, instead of one object per body. Moving every body is
+ * then a few passes over contiguous arrays, without following references to
+ * separate position, velocity and acceleration vectors, which keeps the
+ * caches warm and leaves the loops simple enough for the JIT to vectorize.
+ * 
+ * Bodies move by the same arithmetic as Integrator, so a body in the store
+ * ends up exactly where a PhysicsObject with the same state would. An object
+ * such as an asteroid or a bullet can be copied in with add(), and its state
+ * copied back out with get() when it needs to be treated as an object, e.g.
+ * to test it for collisions with the shapes that only objects have.
+ * Blasteroids moves its asteroids in a store this way after setBodyStore(true).
+ * 
+ * Bodies are found by their index, which is from 0 to size() - 1. Removing a
+ * body moves the bodies after it down, so the order of the bodies never
+ * changes.
+ */
+public class BodyStore {
+	
+	private long[] x, y;
+	/** The part of each position below one distance unit, in fixed-point mode. */
+	private long[] fractionX, fractionY;
+	/** The velocities and accelerations in floating point. Not kept up to date in fixed-point mode. */
+	private double[] vx, vy;
+	private double[] ax, ay;
+	/** The velocities and accelerations in fixed point, which bodies move by in fixed-point mode. */
+	private long[] fixedVx, fixedVy;
+	private long[] fixedAx, fixedAy;
+	private long[] radius;
+	/** The age of each body in physics time units, as for AgedPhysicsObject. */
+	private long[] age;
+	/** Bits that the owner of the store may use, e.g. to tell asteroids from bullets. */
+	private int[] flags;
+	private int size = 0;
+	
+	public BodyStore() {
+		this(16);
+	}
+	
+	/**
+	 * @param capacity The number of bodies to make room for at first.
+	 */
+	public BodyStore(int capacity) {
+		if (capacity < 0) {
+			throw new IllegalArgumentException("Capacity cannot be negative.");
+		}
+		x = new long[capacity];
+		y = new long[capacity];
+		fractionX = new long[capacity];
+		fractionY = new long[capacity];
+		vx = new double[capacity];
+		vy = new double[capacity];
+		ax = new double[capacity];
+		ay = new double[capacity];
+		fixedVx = new long[capacity];
+		fixedVy = new long[capacity];
+		fixedAx = new long[capacity];
+		fixedAy = new long[capacity];
+		radius = new long[capacity];
+		age = new long[capacity];
+		flags = new int[capacity];
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Removes every body.
+	 */
+	public void clear() {
+		size = 0;
+	}
+	
+	/**
+	 * Adds a body.
+	 * @param x
+	 * @param y
+	 * @param vx
+	 * @param vy
+	 * @param ax
+	 * @param ay
+	 * @param radius
+	 * @param flags
+	 * @return The index of the body.
+	 */
+	public int add(long x, long y, double vx, double vy, double ax, double ay, long radius, int flags) {
+		if (size == this.x.length) {
+			grow();
+		}
+		int index = size++;
+		this.x[index] = x;
+		this.y[index] = y;
+		this.fractionX[index] = 0;
+		this.fractionY[index] = 0;
+		setMotion(index, vx, vy, ax, ay);
+		this.radius[index] = radius;
+		this.age[index] = 0;
+		this.flags[index] = flags;
+		return index;
+	}
+	
+	/**
+	 * Adds a body with a copy of an object's state. The object is not
+	 * changed, and does not follow the body afterwards.
+	 * @param obj
+	 * @param flags
+	 * @return The index of the body.
+	 */
+	public int add(PhysicsObject obj, int flags) {
+		int index = add(obj.position.x, obj.position.y, obj.velocity.x, obj.velocity.y,
+				obj.acceleration.x, obj.acceleration.y, obj.getRadius(), flags);
+		fractionX[index] = obj.positionFractionX;
+		fractionY[index] = obj.positionFractionY;
+		if (obj instanceof AgedPhysicsObject) {
+			age[index] = ((AgedPhysicsObject)obj).getAge();
+		}
+		return index;
+	}
+	
+	/**
+	 * Copies a body's position, velocity and acceleration into an object.
+	 * @param index
+	 * @param obj
+	 */
+	public void get(int index, PhysicsObject obj) {
+		checkIndex(index);
+		obj.position.set(x[index], y[index]);
+		obj.positionFractionX = fractionX[index];
+		obj.positionFractionY = fractionY[index];
+		if (PhysicsConstants.isFixedPoint()) {
+			// Hand over the fixed-point motion, so the object need not convert it again
+			obj.fixedVelocity.set(fixedVx[index], fixedVy[index]);
+			obj.fixedAcceleration.set(fixedAx[index], fixedAy[index]);
+			obj.velocity.set(PhysicsConstants.fromFixed(fixedVx[index]), PhysicsConstants.fromFixed(fixedVy[index]));
+			obj.acceleration.set(PhysicsConstants.fromFixed(fixedAx[index]),
+					PhysicsConstants.fromFixed(fixedAy[index]));
+			obj.fixedVelocitySourceX = obj.velocity.x;
+			obj.fixedVelocitySourceY = obj.velocity.y;
+			obj.fixedAccelerationSourceX = obj.acceleration.x;
+			obj.fixedAccelerationSourceY = obj.acceleration.y;
+		} else {
+			obj.velocity.set(vx[index], vy[index]);
+			obj.acceleration.set(ax[index], ay[index]);
+		}
+	}
+	
+	/**
+	 * Copies an object's position, velocity and acceleration into a body,
+	 * e.g. after a collision has changed them.
+	 * @param index
+	 * @param obj
+	 */
+	public void set(int index, PhysicsObject obj) {
+		checkIndex(index);
+		x[index] = obj.position.x;
+		y[index] = obj.position.y;
+		fractionX[index] = obj.positionFractionX;
+		fractionY[index] = obj.positionFractionY;
+		setMotion(index, obj.velocity.x, obj.velocity.y, obj.acceleration.x, obj.acceleration.y);
+	}
+	
+	/**
+	 * Sets a body's velocity and acceleration, in fixed point in fixed-point mode.
+	 * @param index
+	 * @param vx
+	 * @param vy
+	 * @param ax
+	 * @param ay
+	 */
+	private void setMotion(int index, double vx, double vy, double ax, double ay) {
+		if (PhysicsConstants.isFixedPoint()) {
+			fixedVx[index] = PhysicsConstants.toFixed(vx);
+			fixedVy[index] = PhysicsConstants.toFixed(vy);
+			fixedAx[index] = PhysicsConstants.toFixed(ax);
+			fixedAy[index] = PhysicsConstants.toFixed(ay);
+		} else {
+			this.vx[index] = vx;
+			this.vy[index] = vy;
+			this.ax[index] = ax;
+			this.ay[index] = ay;
+		}
+	}
+	
+	/**
+	 * Removes a body. The bodies after it move down by one index.
+	 * @param index
+	 */
+	public void remove(int index) {
+		checkIndex(index);
+		int after = size - index - 1;
+		System.arraycopy(x, index + 1, x, index, after);
+		System.arraycopy(y, index + 1, y, index, after);
+		System.arraycopy(fractionX, index + 1, fractionX, index, after);
+		System.arraycopy(fractionY, index + 1, fractionY, index, after);
+		System.arraycopy(vx, index + 1, vx, index, after);
+		System.arraycopy(vy, index + 1, vy, index, after);
+		System.arraycopy(ax, index + 1, ax, index, after);
+		System.arraycopy(ay, index + 1, ay, index, after);
+		System.arraycopy(fixedVx, index + 1, fixedVx, index, after);
+		System.arraycopy(fixedVy, index + 1, fixedVy, index, after);
+		System.arraycopy(fixedAx, index + 1, fixedAx, index, after);
+		System.arraycopy(fixedAy, index + 1, fixedAy, index, after);
+		System.arraycopy(radius, index + 1, radius, index, after);
+		System.arraycopy(age, index + 1, age, index, after);
+		System.arraycopy(flags, index + 1, flags, index, after);
+		size--;
+	}
+	
+	/**
+	 * Removes every body that is older than a maximum age, in one pass.
+	 * @param maxAge
+	 * @return The number of bodies that were removed.
+	 */
+	public int removeOlderThan(long maxAge) {
+		int kept = 0;
+		for (int i = 0; i < size; i++) {
+			if (age[i] > maxAge) {
+				continue;
+			}
+			if (kept != i) {
+				x[kept] = x[i];
+				y[kept] = y[i];
+				fractionX[kept] = fractionX[i];
+				fractionY[kept] = fractionY[i];
+				vx[kept] = vx[i];
+				vy[kept] = vy[i];
+				ax[kept] = ax[i];
+				ay[kept] = ay[i];
+				fixedVx[kept] = fixedVx[i];
+				fixedVy[kept] = fixedVy[i];
+				fixedAx[kept] = fixedAx[i];
+				fixedAy[kept] = fixedAy[i];
+				radius[kept] = radius[i];
+				age[kept] = age[i];
+				flags[kept] = flags[i];
+			}
+			kept++;
+		}
+		int removed = size - kept;
+		size = kept;
+		return removed;
+	}
+	
+	/**
+	 * Moves every body with constant acceleration over a time step, and ages
+	 * it, as Integrator.integrate() and AgedPhysicsObject.move() do. This is
+	 * done in fixed point if PhysicsConstants is in fixed-point mode.
+	 * @param deltaTime
+	 */
+	public void integrate(long deltaTime) {
+		// One axis per loop, so each loop only streams through a few arrays
+		if (PhysicsConstants.isFixedPoint()) {
+			integrateAxisFixed(x, fractionX, fixedVx, fixedAx, deltaTime);
+			integrateAxisFixed(y, fractionY, fixedVy, fixedAy, deltaTime);
+		} else {
+			final double halfTime = deltaTime / 2d;
+			integrateAxis(x, vx, ax, deltaTime, halfTime);
+			integrateAxis(y, vy, ay, deltaTime, halfTime);
+		}
+		final int count = size;
+		for (int i = 0; i < count; i++) {
+			age[i] += deltaTime;
+		}
+	}
+	
+	private void integrateAxis(long[] position, double[] velocity, double[] acceleration,
+			long deltaTime, double halfTime) {
+		final int count = size;
+		for (int i = 0; i < count; i++) {
+			double v = velocity[i], a = acceleration[i];
+			position[i] += (long)(deltaTime * (v + halfTime * a));
+			velocity[i] = v + deltaTime * a;
+		}
+	}
+	
+	private void integrateAxisFixed(long[] position, long[] fraction, long[] velocity, long[] acceleration,
+			long deltaTime) {
+		final int bits = PhysicsConstants.getFixedPointBits();
+		final long fractionMask = (1L << bits) - 1;
+		final int count = size;
+		for (int i = 0; i < count; i++) {
+			long v = velocity[i], a = acceleration[i];
+			long f = fraction[i] + Integrator.displacementFixed(v, a, deltaTime);
+			position[i] += f >> bits;
+			fraction[i] = f & fractionMask;
+			velocity[i] = v + deltaTime * a;
+		}
+	}
+	
+	/**
+	 * Wraps every body into a wrap-around world, as PhysicsObject.wrapPosition() does.
+	 * @param width
+	 * @param height
+	 */
+	public void wrap(long width, long height) {
+		wrapAxis(x, width);
+		wrapAxis(y, height);
+	}
+	
+	private void wrapAxis(long[] position, long size) {
+		final int count = this.size;
+		for (int i = 0; i < count; i++) {
+			long p = position[i];
+			// Bodies that are still in the world, which is nearly all of them, skip the division
+			if (p < 0 || p >= size) {
+				p %= size;
+				if (p < 0) {
+					p += size;
+				}
+				position[i] = p;
+			}
+		}
+	}
+	
+	public long getX(int index) {
+		checkIndex(index);
+		return x[index];
+	}
+	
+	public long getY(int index) {
+		checkIndex(index);
+		return y[index];
+	}
+	
+	public double getVelocityX(int index) {
+		checkIndex(index);
+		return PhysicsConstants.isFixedPoint() ? PhysicsConstants.fromFixed(fixedVx[index]) : vx[index];
+	}
+	
+	public double getVelocityY(int index) {
+		checkIndex(index);
+		return PhysicsConstants.isFixedPoint() ? PhysicsConstants.fromFixed(fixedVy[index]) : vy[index];
+	}
+	
+	public long getRadius(int index) {
+		checkIndex(index);
+		return radius[index];
+	}
+	
+	public long getAge(int index) {
+		checkIndex(index);
+		return age[index];
+	}
+	
+	public int getFlags(int index) {
+		checkIndex(index);
+		return flags[index];
+	}
+	
+	public void setFlags(int index, int flags) {
+		checkIndex(index);
+		this.flags[index] = flags;
+	}
+	
+	/**
+	 * Sets a body's acceleration, e.g. for a thrust that changes every tick.
+	 * @param index
+	 * @param ax
+	 * @param ay
+	 */
+	public void setAcceleration(int index, double ax, double ay) {
+		checkIndex(index);
+		if (PhysicsConstants.isFixedPoint()) {
+			fixedAx[index] = PhysicsConstants.toFixed(ax);
+			fixedAy[index] = PhysicsConstants.toFixed(ay);
+		} else {
+			this.ax[index] = ax;
+			this.ay[index] = ay;
+		}
+	}
+	
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("Body " + index + " of " + size);
+		}
+	}
+	
+	/**
+	 * Doubles the capacity of every array.
+	 */
+	private void grow() {
+		int capacity = Math.max(2 * x.length, 16);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		fractionX = Arrays.copyOf(fractionX, capacity);
+		fractionY = Arrays.copyOf(fractionY, capacity);
+		vx = Arrays.copyOf(vx, capacity);
+		vy = Arrays.copyOf(vy, capacity);
+		ax = Arrays.copyOf(ax, capacity);
+		ay = Arrays.copyOf(ay, capacity);
+		fixedVx = Arrays.copyOf(fixedVx, capacity);
+		fixedVy = Arrays.copyOf(fixedVy, capacity);
+		fixedAx = Arrays.copyOf(fixedAx, capacity);
+		fixedAy = Arrays.copyOf(fixedAy, capacity);
+		radius = Arrays.copyOf(radius, capacity);
+		age = Arrays.copyOf(age, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+	}
+}
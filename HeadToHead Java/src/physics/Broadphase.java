@@ -0,0 +1,16 @@
+package physics;
+
+/**
+ * The ways a game can find the pairs of objects that might touch, before
+ * testing whether they really do.
+ */
+public enum Broadphase {
+	/** Test every pair. */
+	NESTED_LOOPS,
+	/** Only test the objects in nearby cells of a SpatialHash. */
+	GRID,
+	/** Only test the pairs whose boxes overlap in a SweepAndPrune. */
+	SWEEP_AND_PRUNE,
+	/** Only test the objects near each other in a RectangleTree over the objects that do not move. */
+	TREE;
+}
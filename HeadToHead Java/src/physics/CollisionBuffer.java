@@ -0,0 +1,239 @@
+package physics;
+
+import java.util.Arrays;
+
+/**
+ * A queue of collisions, kept in parallel arrays of primitives in a ring
+ * buffer, so that finding collisions and acting on them can be separate
+ * passes. The detection pass only tests objects and adds a collision for
+ * each pair that touches, and the resolve pass takes the collisions in the
+ * order they were added and awards points, plays sounds, removes objects
+ * and so on, without changing the lists the detection pass is looking at.
+ * 
+ * Each collision holds the ids of the two objects, which are whatever the
+ * two passes use to find the objects again, e.g. indices in a list or slots
+ * in an AgedRing, and where and how deep they overlap.
+ * 
+ * The buffer is not thread-safe.
+ */
+public class CollisionBuffer {
+	
+	// The collisions. There are a power of two of slots.
+	private int[] idA = new int[16], idB = new int[16];
+	private long[] pointX = new long[16], pointY = new long[16];
+	private double[] normalX = new double[16], normalY = new double[16];
+	private double[] depth = new double[16];
+	
+	/** The slot of the oldest collision. */
+	private int head = 0;
+	/** The number of collisions, including the one taken by next(). */
+	private int count = 0;
+	/** True if the collision at the head has been taken by next(). */
+	private boolean taken = false;
+	
+	/**
+	 * Adds a collision.
+	 * @param a The id of the first object.
+	 * @param b The id of the second object.
+	 * @param pointX
+	 * @param pointY A point where the objects overlap.
+	 * @param normalX
+	 * @param normalY A unit vector pointing out of the second object, towards the first.
+	 * @param depth How far to push the objects apart along the normal to separate them.
+	 */
+	public void add(int a, int b, long pointX, long pointY, double normalX, double normalY, double depth) {
+		if (count == idA.length) {
+			grow();
+		}
+		int slot = (head + count) & (idA.length - 1);
+		this.idA[slot] = a;
+		this.idB[slot] = b;
+		this.pointX[slot] = pointX;
+		this.pointY[slot] = pointY;
+		this.normalX[slot] = normalX;
+		this.normalY[slot] = normalY;
+		this.depth[slot] = depth;
+		count++;
+	}
+	
+	/**
+	 * Adds a collision between two objects, treating them as circles of
+	 * their radii. The point is halfway through the overlap.
+	 * @param a The id of objA.
+	 * @param b The id of objB.
+	 * @param objA
+	 * @param objB
+	 */
+	public void add(int a, int b, PhysicsObject objA, PhysicsObject objB) {
+		addCircles(a, b, objA, objB, objA.position.x - objB.position.x, objA.position.y - objB.position.y);
+	}
+	
+	/**
+	 * Adds a collision between two objects in a wrap-around world, treating
+	 * them as circles of their radii, as PhysicsObject.isTouchingWrapped()
+	 * does. The point is halfway through the overlap, wrapped into the world.
+	 * @param a The id of objA.
+	 * @param b The id of objB.
+	 * @param objA
+	 * @param objB
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 */
+	public void addWrapped(int a, int b, PhysicsObject objA, PhysicsObject objB, long width, long height) {
+		addCircles(a, b, objA, objB,
+				PhysicsObject.wrappedDelta(objA.position.x - objB.position.x, width),
+				PhysicsObject.wrappedDelta(objA.position.y - objB.position.y, height));
+		int slot = (head + count - 1) & (idA.length - 1);
+		pointX[slot] = Math.floorMod(pointX[slot], width);
+		pointY[slot] = Math.floorMod(pointY[slot], height);
+	}
+	
+	private void addCircles(int a, int b, PhysicsObject objA, PhysicsObject objB, long offsetX, long offsetY) {
+		double distance = Math.sqrt((double)offsetX * offsetX + (double)offsetY * offsetY);
+		double nx = 1d, ny = 0d;
+		if (distance > 0d) {
+			nx = offsetX / distance;
+			ny = offsetY / distance;
+		}
+		double overlap = objA.getRadius() + objB.getRadius() - distance;
+		double fromB = objB.getRadius() - overlap / 2d;
+		add(a, b, objB.position.x + (long)(fromB * nx), objB.position.y + (long)(fromB * ny),
+				nx, ny, overlap);
+	}
+	
+	/**
+	 * Adds the collisions in another buffer that next() has not taken yet, in order.
+	 * The other buffer is not changed.
+	 * @param other
+	 */
+	public void addAll(CollisionBuffer other) {
+		final int mask = other.idA.length - 1;
+		final int first = other.taken ? other.head + 1 : other.head;
+		for (int i = 0; i < other.size(); i++) {
+			int slot = (first + i) & mask;
+			add(other.idA[slot], other.idB[slot], other.pointX[slot], other.pointY[slot],
+					other.normalX[slot], other.normalY[slot], other.depth[slot]);
+		}
+	}
+	
+	/**
+	 * Takes the oldest collision, so that the getters return it, and removes
+	 * the one taken before.
+	 * @return False if there are no more collisions.
+	 */
+	public boolean next() {
+		if (taken) {
+			head = (head + 1) & (idA.length - 1);
+			count--;
+			taken = false;
+		}
+		if (count == 0) {
+			return false;
+		}
+		taken = true;
+		return true;
+	}
+	
+	/**
+	 * Gets the number of collisions that next() has not taken yet.
+	 * @return
+	 */
+	public int size() {
+		return taken ? count - 1 : count;
+	}
+	
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+	
+	/**
+	 * Removes every collision.
+	 */
+	public void clear() {
+		head = 0;
+		count = 0;
+		taken = false;
+	}
+	
+	/**
+	 * Gets the id of the first object of the collision taken by next().
+	 * @return
+	 */
+	public int getA() {
+		checkTaken();
+		return idA[head];
+	}
+	
+	/**
+	 * Gets the id of the second object of the collision taken by next().
+	 * @return
+	 */
+	public int getB() {
+		checkTaken();
+		return idB[head];
+	}
+	
+	public long getPointX() {
+		checkTaken();
+		return pointX[head];
+	}
+	
+	public long getPointY() {
+		checkTaken();
+		return pointY[head];
+	}
+	
+	public double getNormalX() {
+		checkTaken();
+		return normalX[head];
+	}
+	
+	public double getNormalY() {
+		checkTaken();
+		return normalY[head];
+	}
+	
+	public double getDepth() {
+		checkTaken();
+		return depth[head];
+	}
+	
+	private void checkTaken() {
+		if (!taken) {
+			throw new IllegalStateException("No collision has been taken by next().");
+		}
+	}
+	
+	/**
+	 * Doubles the number of slots, moving the head to the start.
+	 */
+	private void grow() {
+		int capacity = 2 * idA.length;
+		idA = unwrap(idA, capacity);
+		idB = unwrap(idB, capacity);
+		pointX = unwrap(pointX, capacity);
+		pointY = unwrap(pointY, capacity);
+		normalX = unwrap(normalX, capacity);
+		normalY = unwrap(normalY, capacity);
+		depth = unwrap(depth, capacity);
+		head = 0;
+	}
+	
+	private int[] unwrap(int[] array, int capacity) {
+		int[] result = Arrays.copyOf(Arrays.copyOfRange(array, head, array.length), capacity);
+		System.arraycopy(array, 0, result, array.length - head, head);
+		return result;
+	}
+	
+	private long[] unwrap(long[] array, int capacity) {
+		long[] result = Arrays.copyOf(Arrays.copyOfRange(array, head, array.length), capacity);
+		System.arraycopy(array, 0, result, array.length - head, head);
+		return result;
+	}
+	
+	private double[] unwrap(double[] array, int capacity) {
+		double[] result = Arrays.copyOf(Arrays.copyOfRange(array, head, array.length), capacity);
+		System.arraycopy(array, 0, result, array.length - head, head);
+		return result;
+	}
+}
@@ -16,6 +16,13 @@ public interface IPolygon {
 	 */
 	public Polygon getOutline(long extrapolateTime);
 	
+	/**
+	 * Gets the aesthetic outline of the object at the given pose (units of pixels).
+	 * This only reads properties of the object that never change, so it may be
+	 * called from the render thread while the simulation is running.
+	 */
+	public Polygon getOutline(Vector2DLong outlinePosition, double outlineAngle);
+	
 	/**
 	 * Converts an array of position vectors to a java.awt.Polygon.
 	 * 
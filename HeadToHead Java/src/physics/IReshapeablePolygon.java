@@ -0,0 +1,27 @@
+package physics;
+
+import geometry.Vector2DLong;
+
+/**
+ * A polygon whose shape can change, e.g. one that is taken from a pool and
+ * given a new outline. Its getOutline(position, angle) reads the current
+ * shape, so it must not be called from the render thread; snapshots copy the
+ * relative outline instead.
+ */
+public interface IReshapeablePolygon extends IPolygon {
+	
+	/**
+	 * Gets the number of points in the outline.
+	 * @return
+	 */
+	public int getOutlineSize();
+	
+	/**
+	 * Gets a point of the outline relative to the position, at angle 0
+	 * (units of PhysicsObject.DISTANCE_UNIT). Only call this from the
+	 * simulation thread.
+	 * @param i
+	 * @return
+	 */
+	public Vector2DLong getRelativeOutlineVector(int i);
+}
@@ -0,0 +1,30 @@
+package physics;
+
+import geometry.Vector2D;
+import geometry.Vector2DLong;
+
+/**
+ * Where and when a moving object first touches another during a move.
+ * Reuse instances to avoid allocating in collision loops.
+ */
+public class Impact {
+	
+	/** The fraction of the move at which the objects first touch, from 0 to 1. */
+	public double time;
+	
+	/** The point on the surface of the other object where they touch. */
+	public final Vector2DLong point = new Vector2DLong();
+	
+	/** A unit vector pointing out of the other object at the point. */
+	public final Vector2D normal = new Vector2D();
+	
+	/**
+	 * Copies another impact into this one.
+	 * @param impact
+	 */
+	public void set(Impact impact) {
+		time = impact.time;
+		point.set(impact.point);
+		normal.set(impact.normal);
+	}
+}
@@ -0,0 +1,117 @@
+package physics;
+
+import geometry.Vector2D;
+import geometry.Vector2DLong;
+
+/**
+ * Moves objects with constant acceleration over a time step. Only primitive
+ * arithmetic is used, so moving every object every tick does not allocate.
+ * In fixed-point mode (see PhysicsConstants.setFixedPointBits()) objects are
+ * moved with integer math only. Collision tests and responses stay in
+ * floating point in either mode.
+ */
+public final class Integrator {
+	
+	private Integrator() {}
+	
+	/**
+	 * Gets how far something moves in a time step.
+	 * @param velocity
+	 * @param acceleration
+	 * @param deltaTime
+	 * @return
+	 */
+	public static double displacement(double velocity, double acceleration, long deltaTime) {
+		return deltaTime * (velocity + (deltaTime / 2d) * acceleration);
+	}
+	
+	/**
+	 * Updates a position and a velocity in place.
+	 * @param position
+	 * @param velocity
+	 * @param acceleration
+	 * @param deltaTime
+	 */
+	public static void integrate(Vector2DLong position, Vector2D velocity, Vector2D acceleration,
+			long deltaTime) {
+		position.x += (long)displacement(velocity.x, acceleration.x, deltaTime);
+		position.y += (long)displacement(velocity.y, acceleration.y, deltaTime);
+		velocity.x += deltaTime * acceleration.x;
+		velocity.y += deltaTime * acceleration.y;
+	}
+	
+	/**
+	 * Moves an object, in fixed point if fixed-point mode is on. In fixed
+	 * point, the object moves by its fixed-point velocity and acceleration.
+	 * These are converted from its double vectors only if the game has
+	 * changed them since the last move, and the double vectors are rounded
+	 * to the same values then, so they stay exact multiples of the
+	 * fixed-point unit. The double velocity is only converted back when the
+	 * object accelerates.
+	 * @param obj
+	 * @param deltaTime
+	 */
+	public static void integrate(PhysicsObject obj, long deltaTime) {
+		if (!PhysicsConstants.isFixedPoint()) {
+			integrate(obj.position, obj.velocity, obj.acceleration, deltaTime);
+			return;
+		}
+		final int bits = PhysicsConstants.getFixedPointBits();
+		final long fractionMask = (1L << bits) - 1;
+		syncFixed(obj);
+		final Vector2DLong velocity = obj.fixedVelocity, acceleration = obj.fixedAcceleration;
+		
+		// The new position, in fixed point relative to the whole units of the old one
+		long fractionX = obj.positionFractionX + displacementFixed(velocity.x, acceleration.x, deltaTime),
+				fractionY = obj.positionFractionY + displacementFixed(velocity.y, acceleration.y, deltaTime);
+		obj.position.x += fractionX >> bits;
+		obj.position.y += fractionY >> bits;
+		obj.positionFractionX = fractionX & fractionMask;
+		obj.positionFractionY = fractionY & fractionMask;
+		
+		if (acceleration.x != 0 || acceleration.y != 0) {
+			velocity.x += deltaTime * acceleration.x;
+			velocity.y += deltaTime * acceleration.y;
+			obj.velocity.set(PhysicsConstants.fromFixed(velocity.x), PhysicsConstants.fromFixed(velocity.y));
+			obj.fixedVelocitySourceX = obj.velocity.x;
+			obj.fixedVelocitySourceY = obj.velocity.y;
+		}
+	}
+	
+	/**
+	 * Brings an object's fixed-point velocity and acceleration up to date
+	 * with its double vectors, if the game has changed those since they were
+	 * last converted.
+	 * @param obj
+	 */
+	static void syncFixed(PhysicsObject obj) {
+		final Vector2D velocity = obj.velocity, acceleration = obj.acceleration;
+		if (velocity.x != obj.fixedVelocitySourceX || velocity.y != obj.fixedVelocitySourceY) {
+			obj.fixedVelocity.set(PhysicsConstants.toFixed(velocity.x), PhysicsConstants.toFixed(velocity.y));
+			velocity.set(PhysicsConstants.fromFixed(obj.fixedVelocity.x),
+					PhysicsConstants.fromFixed(obj.fixedVelocity.y));
+			obj.fixedVelocitySourceX = velocity.x;
+			obj.fixedVelocitySourceY = velocity.y;
+		}
+		if (acceleration.x != obj.fixedAccelerationSourceX || acceleration.y != obj.fixedAccelerationSourceY) {
+			obj.fixedAcceleration.set(PhysicsConstants.toFixed(acceleration.x),
+					PhysicsConstants.toFixed(acceleration.y));
+			acceleration.set(PhysicsConstants.fromFixed(obj.fixedAcceleration.x),
+					PhysicsConstants.fromFixed(obj.fixedAcceleration.y));
+			obj.fixedAccelerationSourceX = acceleration.x;
+			obj.fixedAccelerationSourceY = acceleration.y;
+		}
+	}
+	
+	/**
+	 * Gets how far something moves in a time step, all in fixed point. Half
+	 * of the acceleration term is rounded down, the same way every time.
+	 * @param velocity
+	 * @param acceleration
+	 * @param deltaTime
+	 * @return
+	 */
+	public static long displacementFixed(long velocity, long acceleration, long deltaTime) {
+		return deltaTime * velocity + ((deltaTime * deltaTime * acceleration) >> 1);
+	}
+}
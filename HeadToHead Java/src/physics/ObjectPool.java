@@ -0,0 +1,159 @@
+package physics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps objects that are no longer used, so that they can be used again
+ * instead of creating new ones, e.g. for bullets and fragments, which are
+ * created and dropped all through a match. An object that is taken from the
+ * pool is reset to the state of a new object first, see PhysicsObject.reset().
+ * 
+ * Each use of an object has its own handle. Once the object is returned to
+ * the pool, its handle no longer finds it, even after the object has been
+ * taken out again, so code that holds on to an object for later, e.g. a
+ * timer, can hold its handle and find out whether the object is still the
+ * same one.
+ * 
+ * Each slot of the pool has a generation, which is odd while the object in
+ * the slot is in use and even while it is in the pool. A handle is the
+ * generation in its high 32 bits and the slot in its low 32 bits, so no
+ * handle is ever NO_HANDLE.
+ * 
+ * An object can only be in one pool. The pool is not thread-safe.
+ */
+public abstract class ObjectPool<T extends PhysicsObject> {
+	
+	/** A handle that never finds an object. */
+	public static final long NO_HANDLE = 0L;
+	
+	/** Every object the pool has created, by slot. */
+	private PhysicsObject[] objects = new PhysicsObject[16];
+	private int[] generations = new int[16];
+	private int created = 0;
+	
+	/** The slots of the objects in the pool, as a stack. */
+	private int[] free = new int[16];
+	private int freeCount = 0;
+	
+	/**
+	 * Creates a new object for the pool.
+	 * @return
+	 */
+	protected abstract T create();
+	
+	/**
+	 * Takes an object from the pool, or creates one if the pool is empty.
+	 * @return The object, reset to the state of a new object.
+	 */
+	@SuppressWarnings("unchecked")
+	public T acquire() {
+		int slot;
+		T object;
+		if (freeCount > 0) {
+			slot = free[--freeCount];
+			object = (T)objects[slot];
+			object.reset();
+		} else {
+			object = create();
+			if (object.pool != null) {
+				throw new IllegalArgumentException("The new object is already in a pool.");
+			}
+			slot = created++;
+			if (slot == objects.length) {
+				objects = Arrays.copyOf(objects, 2 * slot);
+				generations = Arrays.copyOf(generations, 2 * slot);
+			}
+			objects[slot] = object;
+			object.pool = this;
+			object.poolSlot = slot;
+		}
+		generations[slot]++;
+		return object;
+	}
+	
+	/**
+	 * Returns an object to the pool. Its handle no longer finds it.
+	 * @param object
+	 */
+	public void release(T object) {
+		checkInUse(object);
+		int slot = object.poolSlot;
+		generations[slot]++;
+		if (freeCount == free.length) {
+			free = Arrays.copyOf(free, 2 * freeCount);
+		}
+		free[freeCount++] = slot;
+	}
+	
+	/**
+	 * Returns every object in a list to the pool, and clears the list.
+	 * @param list
+	 */
+	public void releaseAll(List<? extends T> list) {
+		for (int i = 0; i < list.size(); i++) {
+			release(list.get(i));
+		}
+		list.clear();
+	}
+	
+	/**
+	 * Gets the handle of an object that is in use.
+	 * @param object
+	 * @return
+	 */
+	public long getHandle(T object) {
+		checkInUse(object);
+		return (long)generations[object.poolSlot] << 32 | object.poolSlot;
+	}
+	
+	/**
+	 * Finds the object that a handle was taken from.
+	 * @param handle
+	 * @return The object, or null if it has been returned to the pool since.
+	 */
+	@SuppressWarnings("unchecked")
+	public T get(long handle) {
+		int slot = (int)handle;
+		int generation = (int)(handle >>> 32);
+		if (slot < 0 || slot >= created || generations[slot] != generation || (generation & 1) == 0) {
+			return null;
+		}
+		return (T)objects[slot];
+	}
+	
+	/**
+	 * Returns true if the object that a handle was taken from is still in
+	 * use, and has not been returned to the pool since.
+	 * @param handle
+	 * @return
+	 */
+	public boolean isInUse(long handle) {
+		return get(handle) != null;
+	}
+	
+	/**
+	 * Gets the number of objects in use.
+	 * @return
+	 */
+	public int getInUseCount() {
+		return created - freeCount;
+	}
+	
+	/**
+	 * Gets the number of objects the pool has created.
+	 * @return
+	 */
+	public int getCreatedCount() {
+		return created;
+	}
+	
+	private void checkInUse(T object) {
+		if (object.pool != this) {
+			throw new IllegalArgumentException("The object is not from this pool.");
+		}
+		if ((generations[object.poolSlot] & 1) == 0) {
+			throw new IllegalArgumentException("The object has already been returned to the pool.");
+		}
+	}
+}
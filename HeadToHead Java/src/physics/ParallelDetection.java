@@ -0,0 +1,129 @@
+package physics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs the detection half of a collision pass on several threads, with
+ * fork/join. The objects that the pass goes through, e.g. the asteroids that
+ * query a grid for bullets, are split into contiguous ranges, one per
+ * partition, and each partition adds the collisions it finds to its own
+ * CollisionBuffer. The buffers are then added to the result in partition
+ * order, so the result holds the same collisions in the same order as when
+ * one thread goes through all the objects, however the threads ran, and a
+ * seeded match replays exactly either way.
+ * 
+ * The detector must not change anything, only read the objects and the
+ * broadphase and write to the buffer and the scratch space of its partition.
+ * Anything that is computed lazily when it is first read, e.g. the corners
+ * of a rotated object, must be brought up to date before run().
+ */
+public class ParallelDetection {
+	
+	/**
+	 * Finds the collisions of some of the objects of a pass.
+	 */
+	public interface Detector {
+		/**
+		 * Tests the objects in a range and adds the collisions it finds.
+		 * @param partition From 0 to getPartitionCount() - 1. Only one thread
+		 *            runs a partition at a time, so each partition may have
+		 *            its own scratch space.
+		 * @param start The first object.
+		 * @param end One past the last object.
+		 * @param result
+		 */
+		public void detect(int partition, int start, int end, CollisionBuffer result);
+	}
+	
+	private final ForkJoinPool pool;
+	private final CollisionBuffer[] buffers;
+	
+	/**
+	 * Uses the common fork/join pool, with a partition per processor.
+	 */
+	public ParallelDetection() {
+		this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * @param pool
+	 * @param partitions The number of ranges to split the objects into.
+	 */
+	public ParallelDetection(ForkJoinPool pool, int partitions) {
+		if (partitions < 1) {
+			throw new IllegalArgumentException("There must be at least one partition.");
+		}
+		this.pool = pool;
+		buffers = new CollisionBuffer[partitions];
+		for (int i = 0; i < partitions; i++) {
+			buffers[i] = new CollisionBuffer();
+		}
+	}
+	
+	public int getPartitionCount() {
+		return buffers.length;
+	}
+	
+	/**
+	 * Returns true if there is more than one partition, so that run() uses
+	 * more than one thread.
+	 * @return
+	 */
+	public boolean isParallel() {
+		return buffers.length > 1;
+	}
+	
+	/**
+	 * Runs a detector over every object of a pass.
+	 * @param count The number of objects.
+	 * @param detector
+	 * @param result The collisions are added to this buffer.
+	 */
+	public void run(int count, Detector detector, CollisionBuffer result) {
+		if (buffers.length == 1 || count < 2) {
+			detector.detect(0, 0, count, result);
+			return;
+		}
+		
+		pool.invoke(new Split(detector, count, 0, buffers.length));
+		for (CollisionBuffer buffer : buffers) {
+			result.addAll(buffer);
+			buffer.clear();
+		}
+	}
+	
+	/**
+	 * Runs a range of partitions, splitting it in half until there is one.
+	 */
+	private class Split extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final Detector detector;
+		private final int count;
+		private final int firstPartition, endPartition;
+		
+		Split(Detector detector, int count, int firstPartition, int endPartition) {
+			this.detector = detector;
+			this.count = count;
+			this.firstPartition = firstPartition;
+			this.endPartition = endPartition;
+		}
+		
+		@Override
+		protected void compute() {
+			if (endPartition - firstPartition == 1) {
+				int partition = firstPartition;
+				detector.detect(partition, startOf(partition), startOf(partition + 1), buffers[partition]);
+				return;
+			}
+			int middle = (firstPartition + endPartition) >>> 1;
+			invokeAll(new Split(detector, count, firstPartition, middle),
+					new Split(detector, count, middle, endPartition));
+		}
+		
+		private int startOf(int partition) {
+			return (int)((long)count * partition / buffers.length);
+		}
+	}
+}
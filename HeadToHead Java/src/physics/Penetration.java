@@ -0,0 +1,16 @@
+package physics;
+
+import geometry.Vector2D;
+
+/**
+ * How deep two objects overlap, and which way to push one of them to
+ * separate them. Reuse one instance to avoid allocating in collision loops.
+ */
+public class Penetration {
+	
+	/** The distance to push the object along the normal to separate the objects. */
+	public double depth;
+	
+	/** A unit vector pointing out of the other object, towards the object. */
+	public final Vector2D normal = new Vector2D();
+}
@@ -7,6 +7,8 @@ public final class PhysicsConstants {
 	private static long DISTANCE_UNIT = 100,
 			TIME_UNIT = 1000;
 	
+	private static final long NANOS_PER_SECOND = 1000000000L;
+	
 	/** The inverse distance unit relates pixels to physics units. */
 	private static double DISTANCE_UNIT_INV = 1d / DISTANCE_UNIT;
 	/** The inverse time unit relates velocity to distance, or acceleration to velocity. */
@@ -17,8 +19,59 @@ public final class PhysicsConstants {
 	private static double ANGULAR_VELOCITY_UNIT = TIME_UNIT_INV,
 			ANGULAR_ACCELERATION_UNIT = ANGULAR_VELOCITY_UNIT * TIME_UNIT_INV;
 	
+	/**
+	 * The number of fractional bits that velocities and accelerations are
+	 * rounded to when objects move, or 0 to move them in floating point.
+	 */
+	private static int FIXED_POINT_BITS = 0;
+	public static final int MAX_FIXED_POINT_BITS = 32;
+	
 	private PhysicsConstants() {}
 	
+	/**
+	 * Turns fixed-point motion on or off. With n bits, objects keep their
+	 * velocities and accelerations as multiples of 2^-n distance units per
+	 * time unit in longs, Integrator moves them with integer math, and keeps
+	 * the part of each position below one distance unit, so slow objects do
+	 * not stall or drift. Only motion is in fixed point. Collision tests and
+	 * responses stay in floating point.
+	 * Set this before a match starts, not while objects are moving.
+	 * @param bits From 1 to MAX_FIXED_POINT_BITS, or 0 for floating point.
+	 */
+	public static void setFixedPointBits(int bits) {
+		if (bits < 0 || bits > MAX_FIXED_POINT_BITS) {
+			throw new IllegalArgumentException("Fixed-point bits must be from 0 to " + MAX_FIXED_POINT_BITS + ".");
+		}
+		FIXED_POINT_BITS = bits;
+	}
+	
+	public static int getFixedPointBits() {
+		return FIXED_POINT_BITS;
+	}
+	
+	public static boolean isFixedPoint() {
+		return FIXED_POINT_BITS != 0;
+	}
+	
+	/**
+	 * Rounds a value to the nearest fixed-point number.
+	 * @param value
+	 * @return
+	 */
+	public static long toFixed(double value) {
+		return Math.round(Math.scalb(value, FIXED_POINT_BITS));
+	}
+	
+	/**
+	 * Converts a fixed-point number to a double. This is exact for numbers
+	 * below 2^53.
+	 * @param fixed
+	 * @return
+	 */
+	public static double fromFixed(long fixed) {
+		return Math.scalb((double)fixed, -FIXED_POINT_BITS);
+	}
+	
 	public static long distance(int pixels) {
 		return pixels * DISTANCE_UNIT;
 	}
@@ -57,6 +110,15 @@ public final class PhysicsConstants {
 		return (long)(seconds * TIME_UNIT);
 	}
 	
+	/**
+	 * Converts nanoseconds to time units, rounding down.
+	 * @param nanos Must not be negative.
+	 * @return
+	 */
+	public static long timeFromNanos(long nanos) {
+		return nanos / NANOS_PER_SECOND * TIME_UNIT + nanos % NANOS_PER_SECOND * TIME_UNIT / NANOS_PER_SECOND;
+	}
+	
 	public static Vector2DLong distanceToPixels(Vector2DLong v) {
 		return new Vector2DLong(PhysicsConstants.DISTANCE_UNIT_INV * v.x,
 				PhysicsConstants.DISTANCE_UNIT_INV * v.y);
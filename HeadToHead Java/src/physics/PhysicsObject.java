@@ -7,6 +7,44 @@ public abstract class PhysicsObject {
 	public Vector2DLong position;
 	public Vector2D velocity, acceleration;
 	
+	/**
+	 * The pose of this object in the most recent world snapshot that contained it.
+	 * Only the simulation thread uses these, to interpolate rendering between ticks.
+	 */
+	public long snapshotNumber = -1;
+	public long snapshotX, snapshotY;
+	public double snapshotAngle;
+	
+	/**
+	 * The broadphase (SpatialHash or SweepAndPrune) this object is in, and its
+	 * place there. Only the broadphases use these.
+	 */
+	Object broadphase;
+	int broadphaseCell, broadphaseSlot, broadphaseIndex;
+	long broadphaseStamp;
+	PhysicsObject broadphasePrevious, broadphaseNext;
+	
+	/**
+	 * The part of the position below one distance unit, in fixed point, when
+	 * PhysicsConstants is in fixed-point mode. Only Integrator uses these.
+	 */
+	long positionFractionX, positionFractionY;
+	
+	/**
+	 * The velocity and acceleration in fixed point, which the object moves by
+	 * in fixed-point mode. The game reads and writes the double vectors, so
+	 * these are only converted from them when the game has changed them since
+	 * the last move, which is found by comparing them with the values they
+	 * were converted from. Only Integrator and BodyStore use these.
+	 */
+	final Vector2DLong fixedVelocity = new Vector2DLong(), fixedAcceleration = new Vector2DLong();
+	double fixedVelocitySourceX = Double.NaN, fixedVelocitySourceY = Double.NaN;
+	double fixedAccelerationSourceX = Double.NaN, fixedAccelerationSourceY = Double.NaN;
+	
+	/** The ObjectPool this object belongs to, and its slot there. Only the pool uses these. */
+	ObjectPool<?> pool;
+	int poolSlot;
+	
 	public PhysicsObject() {
 		position = new Vector2DLong();
 		velocity = new Vector2D();
@@ -17,6 +55,30 @@ public abstract class PhysicsObject {
 		this.position = obj.position.clone();
 		this.velocity = obj.velocity.clone();
 		this.acceleration = obj.acceleration.clone();
+		this.positionFractionX = obj.positionFractionX;
+		this.positionFractionY = obj.positionFractionY;
+		this.fixedVelocity.set(obj.fixedVelocity);
+		this.fixedAcceleration.set(obj.fixedAcceleration);
+		this.fixedVelocitySourceX = obj.fixedVelocitySourceX;
+		this.fixedVelocitySourceY = obj.fixedVelocitySourceY;
+		this.fixedAccelerationSourceX = obj.fixedAccelerationSourceX;
+		this.fixedAccelerationSourceY = obj.fixedAccelerationSourceY;
+	}
+	
+	/**
+	 * Puts this object back in the state of a new object, so that an
+	 * ObjectPool can hand it out again. Subclasses that have state of their
+	 * own must reset it too.
+	 */
+	protected void reset() {
+		position.set(0L, 0L);
+		velocity.set(0d, 0d);
+		acceleration.set(0d, 0d);
+		positionFractionX = 0;
+		positionFractionY = 0;
+		fixedVelocitySourceX = fixedVelocitySourceY = Double.NaN;
+		fixedAccelerationSourceX = fixedAccelerationSourceY = Double.NaN;
+		snapshotNumber = -1;
 	}
 	
 	abstract public long getRadius();
@@ -24,62 +86,52 @@ public abstract class PhysicsObject {
 	abstract public double getMass();
 	
 	public void move(long deltaTime) {
-		position.add(velocity.sum(acceleration.scalarProduct(deltaTime / 2d))
-				.scalarProduct(deltaTime));
-		velocity.add(acceleration.scalarProduct(deltaTime));
+		Integrator.integrate(this, deltaTime);
 	}
 	
+	/**
+	 * Determines if this object touches another object in a wrap-around
+	 * world, using the nearest image of the other object across the edges.
+	 * Neither object is moved, so this may be called on objects that are
+	 * being read elsewhere.
+	 * @param obj
+	 * @param width
+	 * @param height
+	 * @return
+	 */
 	public boolean isTouchingWrapped(PhysicsObject obj, long width, long height) {
-		// Unwrap
-		unwrapPositions(this, obj, width, height);
-		
-		// Calculate
-		boolean touching = isTouching(obj);
-		
-		// Undo the effect of wrapping
-		this.wrapPosition(width, height);
-		obj.wrapPosition(width, height);
-		
-		return touching;
+		return isTouchingOffset(obj,
+				wrappedDelta(position.x - obj.position.x, width),
+				wrappedDelta(position.y - obj.position.y, height));
 	}
 	
 	/**
-	 * If objA and objB are near opposite edges of the universe, unwraps the
-	 * distant one to be at a negative position closer to the origin.
-	 * 
+	 * Gets the squared distance to the nearest image of another object in a
+	 * wrap-around world.
 	 * @param obj
 	 * @param width
 	 * @param height
 	 * @return
 	 */
-	protected static void unwrapPositions(PhysicsObject objA, PhysicsObject objB, long width, long height) {
-		// Check if we need to unwrap in x
-		long xDistance = objA.position.x - objB.position.x;	// positive if A is on the right
-		boolean unwrapX = Math.abs(xDistance) > 0.5d * width;
-		
-		// Unwrap the objects in x
-		if (unwrapX) {
-			boolean unwrapAX = xDistance > 0;
-			if (unwrapAX) {
-				objA.position.x -= width;
-			} else {
-				objB.position.x -= width;
-			}
-		}
-		
-		// Check if we need to unwrap in y
-		long yDistance = objA.position.y - objB.position.y;
-		boolean unwrapY = Math.abs(yDistance) > height / 2;
-		
-		// Unwrap the objects in y
-		if (unwrapY) {
-			boolean unwrapAY = yDistance > 0;
-			if (unwrapAY) {
-				objA.position.y -= height;
-			} else {
-				objB.position.y -= height;
-			}
+	public long wrappedDistanceSquaredTo(PhysicsObject obj, long width, long height) {
+		long deltaX = wrappedDelta(position.x - obj.position.x, width),
+				deltaY = wrappedDelta(position.y - obj.position.y, height);
+		return deltaX * deltaX + deltaY * deltaY;
+	}
+	
+	/**
+	 * Takes the difference between two coordinates in a wrap-around world to
+	 * the nearest image, i.e. the shorter way around if the coordinates are
+	 * more than half the world apart.
+	 * @param delta The difference between two coordinates in the world.
+	 * @param size The width or height of the world.
+	 * @return
+	 */
+	public static long wrappedDelta(long delta, long size) {
+		if (2 * Math.abs(delta) > size) {
+			return delta > 0 ? delta - size : delta + size;
 		}
+		return delta;
 	}
 	
 	public void wrapPosition(long width, long height) {
@@ -116,25 +168,43 @@ public abstract class PhysicsObject {
 	}
 	
 	public boolean isTouching(PhysicsObject obj) {
+		return isTouchingOffset(obj, position.x - obj.position.x, position.y - obj.position.y);
+	}
+	
+	/**
+	 * Determines if this object would touch another object if it were at the
+	 * given offset from it, wherever it actually is. Overrides must only use
+	 * the offset, and not this object's position, so that isTouchingWrapped()
+	 * can pass the offset to the nearest image of the other object.
+	 * @param obj
+	 * @param offsetX
+	 * @param offsetY The position of this object minus the position of obj.
+	 * @return
+	 */
+	protected boolean isTouchingOffset(PhysicsObject obj, long offsetX, long offsetY) {
 		// Do AABB collision first
-		if (!isTouchingAABB(obj)) return false;
+		if (!isTouchingAABB(obj, offsetX, offsetY)) return false;
 		
 		// Do circle collision
-		return isTouchingCircular(obj);
+		return isTouchingCircular(obj, offsetX, offsetY);
 	}
 	
 	protected boolean isTouchingAABB(PhysicsObject obj) {
+		return isTouchingAABB(obj, position.x - obj.position.x, position.y - obj.position.y);
+	}
+	
+	protected boolean isTouchingAABB(PhysicsObject obj, long offsetX, long offsetY) {
 		long radiusSum = getRadius() + obj.getRadius();
-		return Math.abs(position.x - obj.position.x) <= radiusSum &&
-				Math.abs(position.y - obj.position.y) <= radiusSum;
+		return Math.abs(offsetX) <= radiusSum &&
+				Math.abs(offsetY) <= radiusSum;
 	}
 	
-	protected boolean isTouchingCircular(PhysicsObject obj) {
+	protected boolean isTouchingCircular(PhysicsObject obj, long offsetX, long offsetY) {
 		long radiusSum = getRadius() + obj.getRadius();
-		return distanceSquaredTo(obj) <= radiusSum * radiusSum;
+		return offsetX * offsetX + offsetY * offsetY <= radiusSum * radiusSum;
 	}
 	
 	public long distanceSquaredTo(PhysicsObject obj) {
-		return this.position.difference(obj.position).lengthSquared();
+		return this.position.distanceSquared(obj.position);
 	}
 }
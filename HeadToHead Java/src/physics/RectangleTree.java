@@ -0,0 +1,363 @@
+package physics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bounding volume hierarchy over rotated rectangles that do not move, e.g.
+ * the walls of a round. It is built once, and the rectangles' centers, axes
+ * and sizes are copied into arrays at the same time, so that queries only
+ * visit the rectangles near them and do not need to look at the objects.
+ * 
+ * Each node holds the box around the rectangles under it. Leaves hold a few
+ * rectangles each, and the rectangles are split between the two children of
+ * a node at the median along the longer side of the node.
+ * 
+ * Queries return the rectangles in the order of the list the tree was built
+ * from, so replacing a loop over the list with a query does not change which
+ * rectangle is handled first.
+ */
+public class RectangleTree<T extends RotatableRectanglePhysicsObject> {
+	
+	/** The most rectangles in a leaf. */
+	private static final int LEAF_SIZE = 4;
+	
+	private T[] rectangles;
+	private int size = 0;
+	
+	// The baked rectangles, by index in the list
+	private long[] centerX = new long[0], centerY = new long[0];
+	/** The unit normal of the rectangles' left and right sides, i.e. their x axis. */
+	private double[] normalX = new double[0], normalY = new double[0];
+	private double[] halfWidth = new double[0], halfHeight = new double[0];
+	/** The tight axis aligned boxes around the rectangles' corners. */
+	private long[] lowX = new long[0], lowY = new long[0],
+			highX = new long[0], highY = new long[0];
+	
+	/** The rectangles' indices, in the order of the leaves. */
+	private int[] order = new int[0];
+	
+	// The nodes. Node 0 is the root. The children of a node are next to each other.
+	private long[] nodeLowX = new long[0], nodeLowY = new long[0],
+			nodeHighX = new long[0], nodeHighY = new long[0];
+	/** A leaf's first entry in the order, or an inner node's first child. */
+	private int[] nodeStart = new int[0];
+	/** The number of rectangles in a leaf, or 0 for an inner node. */
+	private int[] nodeSize = new int[0];
+	private int nodeCount = 0;
+	
+	// Scratch space for queries
+	private int[] stack = new int[32];
+	private int[] found = new int[16];
+	private final Impact impact = new Impact();
+	
+	/**
+	 * Rebuilds the tree over the rectangles in a list, at their current
+	 * positions and angles. Call this again whenever any of them moves.
+	 * @param list
+	 */
+	@SuppressWarnings("unchecked")
+	public void build(List<? extends T> list) {
+		size = list.size();
+		if (rectangles == null || rectangles.length < size) {
+			int capacity = Math.max(size, 16);
+			rectangles = (T[])new RotatableRectanglePhysicsObject[capacity];
+			centerX = new long[capacity];
+			centerY = new long[capacity];
+			normalX = new double[capacity];
+			normalY = new double[capacity];
+			halfWidth = new double[capacity];
+			halfHeight = new double[capacity];
+			lowX = new long[capacity];
+			lowY = new long[capacity];
+			highX = new long[capacity];
+			highY = new long[capacity];
+			order = new int[capacity];
+			
+			// A tree with leaves of at least one rectangle has fewer than 2n nodes
+			nodeLowX = new long[2 * capacity];
+			nodeLowY = new long[2 * capacity];
+			nodeHighX = new long[2 * capacity];
+			nodeHighY = new long[2 * capacity];
+			nodeStart = new int[2 * capacity];
+			nodeSize = new int[2 * capacity];
+		}
+		Arrays.fill(rectangles, size, rectangles.length, null);
+		
+		for (int i = 0; i < size; i++) {
+			T rectangle = list.get(i);
+			rectangles[i] = rectangle;
+			bake(i, rectangle);
+			order[i] = i;
+		}
+		
+		// An empty tree has no root, and the queries find nothing without looking
+		nodeCount = 0;
+		if (size > 0) {
+			nodeCount = 1;
+			buildNode(0, 0, size);
+		}
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets a rectangle by its index in the list the tree was built from.
+	 * @param index
+	 * @return
+	 */
+	public T get(int index) {
+		return rectangles[index];
+	}
+	
+	/**
+	 * Finds the rectangles whose boxes overlap a box.
+	 * @param queryLowX
+	 * @param queryLowY
+	 * @param queryHighX
+	 * @param queryHighY
+	 * @param result Cleared and filled with the rectangles, in list order.
+	 */
+	public void query(long queryLowX, long queryLowY, long queryHighX, long queryHighY, List<T> result) {
+		result.clear();
+		if (size == 0) {
+			return;
+		}
+		int foundCount = 0;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (nodeLowX[node] > queryHighX || nodeHighX[node] < queryLowX ||
+					nodeLowY[node] > queryHighY || nodeHighY[node] < queryLowY) {
+				continue;
+			}
+			if (nodeSize[node] == 0) {
+				top = push(top, nodeStart[node]);
+				continue;
+			}
+			for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+				int index = order[i];
+				if (lowX[index] <= queryHighX && highX[index] >= queryLowX &&
+						lowY[index] <= queryHighY && highY[index] >= queryLowY) {
+					if (foundCount == found.length) {
+						found = Arrays.copyOf(found, 2 * foundCount);
+					}
+					found[foundCount++] = index;
+				}
+			}
+		}
+		
+		// Put them in list order. There are usually only a few.
+		for (int i = 1; i < foundCount; i++) {
+			int index = found[i];
+			int j = i - 1;
+			while (j >= 0 && found[j] > index) {
+				found[j + 1] = found[j];
+				j--;
+			}
+			found[j + 1] = index;
+		}
+		for (int i = 0; i < foundCount; i++) {
+			result.add(rectangles[found[i]]);
+		}
+	}
+	
+	/**
+	 * Finds the first rectangle in list order whose box overlaps a box,
+	 * starting from an index. Calling this again from one past the index it
+	 * returned visits the same rectangles as a loop over the list, even if
+	 * the query box moves between calls, e.g. when an object is pushed.
+	 * @param queryLowX
+	 * @param queryLowY
+	 * @param queryHighX
+	 * @param queryHighY
+	 * @param firstIndex The smallest index to return.
+	 * @return The index of the rectangle in the list, or -1 if there is none.
+	 */
+	public int queryFirst(long queryLowX, long queryLowY, long queryHighX, long queryHighY, int firstIndex) {
+		if (size == 0) {
+			return -1;
+		}
+		int first = -1;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (nodeLowX[node] > queryHighX || nodeHighX[node] < queryLowX ||
+					nodeLowY[node] > queryHighY || nodeHighY[node] < queryLowY) {
+				continue;
+			}
+			if (nodeSize[node] == 0) {
+				top = push(top, nodeStart[node]);
+				continue;
+			}
+			for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+				int index = order[i];
+				if (index >= firstIndex && (first == -1 || index < first) &&
+						lowX[index] <= queryHighX && highX[index] >= queryLowX &&
+						lowY[index] <= queryHighY && highY[index] >= queryLowY) {
+					first = index;
+				}
+			}
+		}
+		return first;
+	}
+	
+	/**
+	 * Finds the first rectangle that a moving circle touches during a move,
+	 * see SweptCircle. Of the rectangles it touches at the same time, the
+	 * first in the list is chosen.
+	 * @param startX
+	 * @param startY The center of the circle at the start of the move.
+	 * @param moveX
+	 * @param moveY How far the circle moves.
+	 * @param radius
+	 * @param result Filled with the impact, if there is one.
+	 * @return The index of the rectangle in the list, or -1 if the circle
+	 *         does not touch any rectangle.
+	 */
+	public int sweepCircle(long startX, long startY, long moveX, long moveY, long radius, Impact result) {
+		if (size == 0) {
+			return -1;
+		}
+		long pathLowX = Math.min(startX, startX + moveX) - radius,
+				pathHighX = Math.max(startX, startX + moveX) + radius,
+				pathLowY = Math.min(startY, startY + moveY) - radius,
+				pathHighY = Math.max(startY, startY + moveY) + radius;
+		
+		int first = -1;
+		int top = 0;
+		stack[top++] = 0;
+		while (top > 0) {
+			int node = stack[--top];
+			if (nodeLowX[node] > pathHighX || nodeHighX[node] < pathLowX ||
+					nodeLowY[node] > pathHighY || nodeHighY[node] < pathLowY) {
+				continue;
+			}
+			if (nodeSize[node] == 0) {
+				top = push(top, nodeStart[node]);
+				continue;
+			}
+			for (int i = nodeStart[node]; i < nodeStart[node] + nodeSize[node]; i++) {
+				int index = order[i];
+				if (lowX[index] > pathHighX || highX[index] < pathLowX ||
+						lowY[index] > pathHighY || highY[index] < pathLowY) {
+					continue;
+				}
+				if (SweptCircle.againstBox(startX, startY, moveX, moveY, radius,
+						centerX[index], centerY[index], normalX[index], normalY[index],
+						halfWidth[index], halfHeight[index], impact) &&
+						(first == -1 || impact.time < result.time ||
+								impact.time == result.time && index < first)) {
+					first = index;
+					result.set(impact);
+				}
+			}
+		}
+		return first;
+	}
+	
+	/**
+	 * Pushes the two children of a node onto the stack.
+	 * @param top
+	 * @param firstChild
+	 * @return The new top of the stack.
+	 */
+	private int push(int top, int firstChild) {
+		if (top + 2 > stack.length) {
+			stack = Arrays.copyOf(stack, 2 * stack.length);
+		}
+		stack[top++] = firstChild + 1;
+		stack[top++] = firstChild;
+		return top;
+	}
+	
+	/**
+	 * Copies a rectangle's center, axes and size, and finds the box around its corners.
+	 * @param index
+	 * @param rectangle
+	 */
+	private void bake(int index, T rectangle) {
+		final double cos = rectangle.getCos(), sin = rectangle.getSin();
+		final long x = rectangle.position.x, y = rectangle.position.y;
+		centerX[index] = x;
+		centerY[index] = y;
+		normalX[index] = cos;
+		normalY[index] = sin;
+		halfWidth[index] = rectangle.size.x;
+		halfHeight[index] = rectangle.size.y;
+		
+		// The corners are symmetric about the center, so two of them give the box
+		long extentX = (long)Math.ceil(Math.max(Math.abs(rectangle.size.x * cos - rectangle.size.y * sin),
+				Math.abs(rectangle.size.x * cos + rectangle.size.y * sin)));
+		long extentY = (long)Math.ceil(Math.max(Math.abs(rectangle.size.x * sin + rectangle.size.y * cos),
+				Math.abs(rectangle.size.x * sin - rectangle.size.y * cos)));
+		lowX[index] = x - extentX;
+		highX[index] = x + extentX;
+		lowY[index] = y - extentY;
+		highY[index] = y + extentY;
+	}
+	
+	/**
+	 * Fills a node with the rectangles in part of the order, splitting it
+	 * if there are too many for a leaf.
+	 * @param node
+	 * @param start
+	 * @param end
+	 */
+	private void buildNode(int node, int start, int end) {
+		long boxLowX = Long.MAX_VALUE, boxLowY = Long.MAX_VALUE,
+				boxHighX = Long.MIN_VALUE, boxHighY = Long.MIN_VALUE;
+		for (int i = start; i < end; i++) {
+			int index = order[i];
+			boxLowX = Math.min(boxLowX, lowX[index]);
+			boxLowY = Math.min(boxLowY, lowY[index]);
+			boxHighX = Math.max(boxHighX, highX[index]);
+			boxHighY = Math.max(boxHighY, highY[index]);
+		}
+		nodeLowX[node] = boxLowX;
+		nodeLowY[node] = boxLowY;
+		nodeHighX[node] = boxHighX;
+		nodeHighY[node] = boxHighY;
+		
+		if (end - start <= LEAF_SIZE) {
+			nodeStart[node] = start;
+			nodeSize[node] = end - start;
+			return;
+		}
+		
+		// Split at the median center along the longer side
+		long[] centers = boxHighX - boxLowX >= boxHighY - boxLowY ? centerX : centerY;
+		sortByCenter(centers, start, end);
+		int middle = (start + end) >>> 1;
+		
+		int firstChild = nodeCount;
+		nodeCount += 2;
+		nodeStart[node] = firstChild;
+		nodeSize[node] = 0;
+		buildNode(firstChild, start, middle);
+		buildNode(firstChild + 1, middle, end);
+	}
+	
+	/**
+	 * Sorts part of the order by the rectangles' centers along one axis, by
+	 * insertion sort. This only runs when the tree is built.
+	 * @param centers
+	 * @param start
+	 * @param end
+	 */
+	private void sortByCenter(long[] centers, int start, int end) {
+		for (int i = start + 1; i < end; i++) {
+			int index = order[i];
+			int j = i - 1;
+			while (j >= start && centers[order[j]] > centers[index]) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = index;
+		}
+	}
+}
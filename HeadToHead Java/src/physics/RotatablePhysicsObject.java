@@ -1,11 +1,20 @@
 package physics;
 
+import geometry.Vector2DLong;
+
 public abstract class RotatablePhysicsObject extends PhysicsObject {
 	
 	public double angle;
 	public double angularVelocity;
 	public double angularAcceleration;
 	
+	/**
+	 * The cosine and sine of basisAngle. They are recomputed when angle no
+	 * longer equals basisAngle, so rotations through them are plain multiplies.
+	 */
+	private double basisAngle = Double.NaN;
+	private double cos, sin;
+	
 	public RotatablePhysicsObject() {
 		super();
 		angle = 0d;
@@ -27,10 +36,103 @@ public abstract class RotatablePhysicsObject extends PhysicsObject {
 		this.angularAcceleration = obj.angularAcceleration;
 	}
 	
+	@Override
+	protected void reset() {
+		super.reset();
+		angle = 0d;
+		angularVelocity = 0d;
+		angularAcceleration = 0d;
+	}
+	
 	@Override
 	public void move(long deltaTime) {
 		super.move(deltaTime);
-		angle += (angularVelocity + angularAcceleration * deltaTime / 2d) * deltaTime;
+		angle += Integrator.displacement(angularVelocity, angularAcceleration, deltaTime);
 		angularVelocity += angularAcceleration * deltaTime;
 	}
+	
+	/**
+	 * Recomputes the cached cosine and sine if the angle has changed.
+	 */
+	private void updateBasis() {
+		if (angle != basisAngle) {
+			cos = Math.cos(angle);
+			sin = Math.sin(angle);
+			basisAngle = angle;
+		}
+	}
+	
+	/**
+	 * Gets the cosine of this object's angle.
+	 * @return
+	 */
+	public double getCos() {
+		updateBasis();
+		return cos;
+	}
+	
+	/**
+	 * Gets the sine of this object's angle.
+	 * @return
+	 */
+	public double getSin() {
+		updateBasis();
+		return sin;
+	}
+	
+	/**
+	 * Gets the cosine of an angle, from the cache if it is this object's angle.
+	 * @param a
+	 * @return
+	 */
+	protected double cos(double a) {
+		return a == angle ? getCos() : Math.cos(a);
+	}
+	
+	/**
+	 * Gets the sine of an angle, from the cache if it is this object's angle.
+	 * @param a
+	 * @return
+	 */
+	protected double sin(double a) {
+		return a == angle ? getSin() : Math.sin(a);
+	}
+	
+	/**
+	 * Gets the x coordinate of a world-space offset in this object's space,
+	 * i.e. the offset rotated by -angle.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public long toLocalX(long x, long y) {
+		updateBasis();
+		return (long)(x * cos + y * sin);
+	}
+	
+	/**
+	 * Gets the y coordinate of a world-space offset in this object's space,
+	 * i.e. the offset rotated by -angle.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public long toLocalY(long x, long y) {
+		updateBasis();
+		return (long)(y * cos - x * sin);
+	}
+	
+	/**
+	 * Rotates an offset from this object's space into world space, i.e. by angle.
+	 * @param x
+	 * @param y
+	 * @param result The vector to store the offset in.
+	 * @return result
+	 */
+	public Vector2DLong toWorld(double x, double y, Vector2DLong result) {
+		updateBasis();
+		result.x = (long)(x * cos - y * sin);
+		result.y = (long)(x * sin + y * cos);
+		return result;
+	}
 }
@@ -2,45 +2,76 @@ package physics;
 
 import java.awt.Polygon;
 
-import geometry.Vector2D;
-import geometry.Vector2DLong;
 import headtohead.DebugMode;
 
 @Deprecated
 public abstract class RotatablePolygonPhysicsObject extends RotatablePhysicsObject implements IPolygon {
+	
+	/** The vertices of the physics outline, recomputed for each collision test. */
+	private long[] vertexX, vertexY;
+	
+	/**
+	 * Gets the number of vertices of the physics outline.
+	 * @return
+	 */
+	protected abstract int getVertexCount();
+	
+	/**
+	 * Computes the vertices of the physics outline at the current position and
+	 * angle, the same points as getOutlineVectors(0), without allocating.
+	 * @param x The x coordinates are stored in this, getVertexCount() of them.
+	 * @param y The y coordinates are stored in this.
+	 */
+	protected abstract void getVertices(long[] x, long[] y);
+	
+	private void updateVertices() {
+		if (vertexX == null) {
+			vertexX = new long[getVertexCount()];
+			vertexY = new long[getVertexCount()];
+		}
+		getVertices(vertexX, vertexY);
+	}
+	
 	@Override
-	public boolean isTouching(PhysicsObject obj) {
+	protected boolean isTouchingOffset(PhysicsObject obj, long offsetX, long offsetY) {
+		// How far this object's outline must move to be at the offset from obj
+		final long shiftX = obj.position.x + offsetX - position.x,
+				shiftY = obj.position.y + offsetY - position.y;
+		
 		if (!(obj instanceof RotatablePolygonPhysicsObject)) {
 			
 			// Check if any point on the outline is inside the obj
-			Vector2DLong[] outline = getOutlineVectors(0);
+			updateVertices();
 			double objRadiusSqr = Math.pow(obj.getRadius(), 2d);
-			for (Vector2DLong point : outline) {
-				if (point.difference(obj.position).lengthSquared() <= objRadiusSqr) {
+			for (int i = 0; i < vertexX.length; i++) {
+				long pointX = vertexX[i] + shiftX - obj.position.x,
+						pointY = vertexY[i] + shiftY - obj.position.y;
+				if (pointX * pointX + pointY * pointY <= objRadiusSqr) {
 					return true;
 				}
 			}
 			
 			// If the outline isn't touching, do the base collision detection (cirle-circle)
-			return super.isTouching(obj);
+			return super.isTouchingOffset(obj, offsetX, offsetY);
 		}
 		
 		// Do polygon-polygon collision detection
 		RotatablePolygonPhysicsObject obj1 = this;
 		RotatablePolygonPhysicsObject obj2 = (RotatablePolygonPhysicsObject)obj;
 		
-		Vector2D axis = obj2.position.difference(obj1.position).toUnit();
+		final double axisScale = 1d / Math.sqrt(offsetX * offsetX + offsetY * offsetY);
+		final double axisX = axisScale * -offsetX, axisY = axisScale * -offsetY;
 		
-		Vector2DLong[] obj1OutlineVectors = obj1.getOutlineVectors(0);
-		Vector2DLong[] obj2OutlineVectors = obj2.getOutlineVectors(0);
+		obj1.updateVertices();
+		obj2.updateVertices();
 		
-		double obj1Max = obj1.position.dotProduct(axis),
+		double obj1Max = (obj2.position.x + offsetX) * axisX + (obj2.position.y + offsetY) * axisY,
 				obj1Min = obj1Max;
-		double obj2Max = obj2.position.dotProduct(axis),
+		double obj2Max = obj2.position.x * axisX + obj2.position.y * axisY,
 				obj2Min = obj2Max;
 		
-		for (Vector2DLong vertex1 : obj1OutlineVectors) {
-			double obj1ProjectedVertex = vertex1.dotProduct(axis);
+		for (int i = 0; i < obj1.vertexX.length; i++) {
+			double obj1ProjectedVertex = (obj1.vertexX[i] + shiftX) * axisX + (obj1.vertexY[i] + shiftY) * axisY;
 			
 			if (obj1ProjectedVertex > obj1Max) {
 				obj1Max = obj1ProjectedVertex;
@@ -49,8 +80,8 @@ public abstract class RotatablePolygonPhysicsObject extends RotatablePhysicsObje
 			}
 		}
 		
-		for (Vector2DLong vertex2 : obj2OutlineVectors) {
-			double obj2ProjectedVertex = vertex2.dotProduct(axis);
+		for (int i = 0; i < obj2.vertexX.length; i++) {
+			double obj2ProjectedVertex = obj2.vertexX[i] * axisX + obj2.vertexY[i] * axisY;
 			
 			if (obj2ProjectedVertex > obj2Max) {
 				obj2Max = obj2ProjectedVertex;
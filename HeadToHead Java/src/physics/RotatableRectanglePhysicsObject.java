@@ -5,7 +5,6 @@ import java.awt.Polygon;
 import geometry.SpaceVector2DLong;
 import geometry.Vector2D;
 import geometry.Vector2DLong;
-import headtohead.DebugMode;
 
 public class RotatableRectanglePhysicsObject extends RotatablePhysicsObject implements IPolygon {
 	
@@ -16,75 +15,218 @@ public class RotatableRectanglePhysicsObject extends RotatablePhysicsObject impl
 	protected Vector2DLong size;
 	protected long boundingRadius;
 	
+	/** The components of a unit vector at 45 degrees. */
+	private static final double DIAGONAL = Math.sqrt(0.5d);
+	
 	/**
-	 * The angle spanned by the top face of the rectangle.
-	 * The size vector rotated by this angle equals the size vector in quadrant 2.
+	 * The axes of a rectangle pair for the separating axis test: this
+	 * rectangle's x and y axes, then the other rectangle's.
 	 */
-	private double sizeQuad2Angle;
+	private static final int AXES = 4, NO_AXIS = SeparatingAxisCache.NO_AXIS;
 	
 	public RotatableRectanglePhysicsObject(long width, long height) {
 		super();
 		size = new Vector2DLong(width / 2, height / 2);
 		boundingRadius = (long)size.length();
-		sizeQuad2Angle = new Vector2D(-size.x, size.y).angle() - size.angle();
 	}
 	
 	@Override
-	public boolean isTouching(PhysicsObject obj) {
+	protected boolean isTouchingOffset(PhysicsObject obj, long offsetX, long offsetY) {
 		// Do AABB collision first
-		if (!isTouchingAABB(obj)) return false;
+		if (!isTouchingAABB(obj, offsetX, offsetY)) return false;
 		
 		if (!(obj instanceof RotatableRectanglePhysicsObject)) {
-			// The object's position in this rectangle's coordinate space
-			Vector2DLong circleCenter = obj.position.difference(position).getRotated(-angle);
+			// The absolute value of the object's position in this rectangle's coordinate space
+			long relativeX = -offsetX,
+					relativeY = -offsetY;
+			long circleCenterX = Math.abs(toLocalX(relativeX, relativeY)),
+					circleCenterY = Math.abs(toLocalY(relativeX, relativeY));
 			final long circleRadius = obj.getRadius();
 			
-			Vector2DLong wideSize = new Vector2DLong(size.x + circleRadius, size.y);
-			if (Math.abs(circleCenter.x) <= wideSize.x && Math.abs(circleCenter.y) <= wideSize.y) {
+			if (circleCenterX <= size.x + circleRadius && circleCenterY <= size.y) {
 				// Object is touching on the left or right ends of the rectangle, or in the middle
 				return true;
 			}
 			
-			Vector2DLong tallSize = new Vector2DLong(size.x, size.y + circleRadius);
-			if (Math.abs(circleCenter.x) <= tallSize.x && Math.abs(circleCenter.y) <= tallSize.y) {
+			if (circleCenterX <= size.x && circleCenterY <= size.y + circleRadius) {
 				// Object is touching on the top or bottom of the rectangle, or in the middle
 				return true;
 			}
 			
 			// True if any vertex is inside the object's radius
-			Vector2DLong circleCenterAbs = new Vector2DLong(Math.abs(circleCenter.x), Math.abs(circleCenter.y));
-			return circleCenterAbs.difference(size).lengthSquared() <= circleRadius * circleRadius;
+			long vertexX = circleCenterX - size.x,
+					vertexY = circleCenterY - size.y;
+			return vertexX * vertexX + vertexY * vertexY <= circleRadius * circleRadius;
 		}
 		
-		// Do rotated rectangle-rectangle collision detection
-		// WARNING: This implementation only detects when a vertex from one
-		// rectangle is inside the other. It cannot detect crossed rectangles.
-		RotatableRectanglePhysicsObject obj1 = this;
-		RotatableRectanglePhysicsObject obj2 = (RotatableRectanglePhysicsObject)obj;
+		return isTouchingRectangle((RotatableRectanglePhysicsObject)obj, offsetX, offsetY, null);
+	}
+	
+	/**
+	 * Determines if this rectangle overlaps another, trying the axis that
+	 * separated them last time first. Neither rectangle is changed, only the
+	 * cache, so rectangles may be tested on several threads at once as long
+	 * as each thread has its own cache.
+	 * @param other
+	 * @param cache The caller's cache of separating axes.
+	 * @return
+	 */
+	public boolean isTouching(RotatableRectanglePhysicsObject other, SeparatingAxisCache cache) {
+		long offsetX = position.x - other.position.x,
+				offsetY = position.y - other.position.y;
+		return isTouchingAABB(other, offsetX, offsetY) && isTouchingRectangle(other, offsetX, offsetY, cache);
+	}
+	
+	/**
+	 * Determines if two rectangles overlap, by the separating axis test.
+	 * With a cache, the axis that separated them last time is tried first, so
+	 * while they stay apart this usually takes one projection.
+	 * @param other
+	 * @param offsetX
+	 * @param offsetY The position of this rectangle minus the position of the other.
+	 * @param cache The caller's cache of separating axes, or null to test every axis.
+	 * @return
+	 */
+	private boolean isTouchingRectangle(RotatableRectanglePhysicsObject other, long offsetX, long offsetY,
+			SeparatingAxisCache cache) {
+		double dx = offsetX,
+				dy = offsetY;
 		
-		Vector2DLong[] obj1OutlineVectors = obj1.getOutlineVectors(0);
-		for (Vector2DLong vertex1 : obj1OutlineVectors) {
-			if (vertex1 == null) {
-				if (DebugMode.isEnabled()) {
-					System.out.println("null vertex1");
+		int cachedAxis = cache != null ? cache.get(this, other) : NO_AXIS;
+		if (cachedAxis != NO_AXIS && getOverlap(other, cachedAxis, dx, dy) < 0d) {
+			return false;
+		}
+		
+		for (int axis = 0; axis < AXES; axis++) {
+			if (axis != cachedAxis && getOverlap(other, axis, dx, dy) < 0d) {
+				if (cache != null) {
+					cache.put(this, other, axis);
 				}
-				continue;
+				return false;
 			}
-			if (obj2.isPointInside(vertex1)) return true;
 		}
+		if (cachedAxis != NO_AXIS) {
+			cache.put(this, other, NO_AXIS);
+		}
+		return true;
+	}
+	
+	/**
+	 * Finds how deep two rectangles overlap, along the axis where the overlap
+	 * is smallest.
+	 * @param other
+	 * @param result Filled with the depth and the normal that pushes this
+	 *            rectangle out of the other one, if they overlap.
+	 * @return False if the rectangles do not overlap.
+	 */
+	public boolean getPenetration(RotatableRectanglePhysicsObject other, Penetration result) {
+		return getPenetration(other, null, result);
+	}
+	
+	/**
+	 * Finds how deep two rectangles overlap, along the axis where the overlap
+	 * is smallest.
+	 * @param other
+	 * @param cache The caller's cache of separating axes, or null.
+	 * @param result Filled with the depth and the normal that pushes this
+	 *            rectangle out of the other one, if they overlap.
+	 * @return False if the rectangles do not overlap.
+	 */
+	public boolean getPenetration(RotatableRectanglePhysicsObject other, SeparatingAxisCache cache,
+			Penetration result) {
+		long offsetX = position.x - other.position.x,
+				offsetY = position.y - other.position.y;
+		if (!isTouchingAABB(other, offsetX, offsetY) || !isTouchingRectangle(other, offsetX, offsetY, cache)) {
+			return false;
+		}
+		double dx = offsetX,
+				dy = offsetY;
 		
-		Vector2DLong[] obj2OutlineVectors = obj2.getOutlineVectors(0);
-		for (Vector2DLong vertex2 : obj2OutlineVectors) {
-			if (vertex2 == null) {
-				if (DebugMode.isEnabled()) {
-					System.out.println("null vertex2");
-				}
-				continue;
+		int minAxis = 0;
+		double minOverlap = Double.POSITIVE_INFINITY;
+		for (int axis = 0; axis < AXES; axis++) {
+			double overlap = getOverlap(other, axis, dx, dy);
+			if (overlap < minOverlap) {
+				minOverlap = overlap;
+				minAxis = axis;
 			}
-			if (obj1.isPointInside(vertex2)) return true;
 		}
 		
-		return false;
+		// Point the normal from the other rectangle towards this one
+		RotatableRectanglePhysicsObject owner = minAxis < 2 ? this : other;
+		double normalX = (minAxis & 1) == 0 ? owner.getCos() : -owner.getSin(),
+				normalY = (minAxis & 1) == 0 ? owner.getSin() : owner.getCos();
+		if (dx * normalX + dy * normalY < 0d) {
+			normalX = -normalX;
+			normalY = -normalY;
+		}
+		result.depth = minOverlap;
+		result.normal.set(normalX, normalY);
+		return true;
+	}
+	
+	/**
+	 * Pushes this rectangle out of another that does not move, e.g. a wall,
+	 * along the minimum translation vector, so that they no longer overlap
+	 * after one push however deep they were. The part of the velocity that
+	 * points into the other rectangle is removed, and the part along its
+	 * surface is kept, so this rectangle slides along it.
+	 * @param other
+	 * @param cache The caller's cache of separating axes, or null.
+	 * @param penetration Scratch space, filled with the depth and normal of the push.
+	 * @return False if the rectangles do not overlap, in which case nothing is changed.
+	 */
+	public boolean pushOutOf(RotatableRectanglePhysicsObject other, SeparatingAxisCache cache,
+			Penetration penetration) {
+		if (!getPenetration(other, cache, penetration)) {
+			return false;
+		}
+		
+		// Push a unit further, so that rounding to whole units cannot leave them touching
+		final Vector2D normal = penetration.normal;
+		final double push = penetration.depth + 1d;
+		position.x += Math.round(push * normal.x);
+		position.y += Math.round(push * normal.y);
+		
+		double into = velocity.dotProduct(normal);
+		if (into < 0d) {
+			velocity.addScaled(normal, -into);
+		}
+		return true;
+	}
+	
+	/**
+	 * Gets how far two rectangles overlap when projected onto one of the axes.
+	 * @param other
+	 * @param axis From 0 to AXES - 1.
+	 * @param dx The x offset from the other rectangle's center to this one's.
+	 * @param dy The y offset from the other rectangle's center to this one's.
+	 * @return Negative if the axis separates the rectangles.
+	 */
+	private double getOverlap(RotatableRectanglePhysicsObject other, int axis, double dx, double dy) {
+		RotatableRectanglePhysicsObject owner = axis < 2 ? this : other;
+		double axisX, axisY;
+		if ((axis & 1) == 0) {
+			axisX = owner.getCos();
+			axisY = owner.getSin();
+		} else {
+			axisX = -owner.getSin();
+			axisY = owner.getCos();
+		}
+		return getProjectedRadius(axisX, axisY) + other.getProjectedRadius(axisX, axisY) -
+				Math.abs(dx * axisX + dy * axisY);
+	}
+	
+	/**
+	 * Gets half the length of this rectangle's projection onto an axis.
+	 * @param axisX
+	 * @param axisY The axis, a unit vector.
+	 * @return
+	 */
+	private double getProjectedRadius(double axisX, double axisY) {
+		final double cos = getCos(), sin = getSin();
+		return size.x * Math.abs(cos * axisX + sin * axisY) +
+				size.y * Math.abs(cos * axisY - sin * axisX);
 	}
 	
 	/**
@@ -94,9 +236,10 @@ public class RotatableRectanglePhysicsObject extends RotatablePhysicsObject impl
 	 */
 	protected boolean isPointInside(Vector2DLong point) {
 		// Relative point implementation:
-		Vector2DLong pointRel = point.difference(position);
-		pointRel.rotate(-angle);
-		return Math.abs(pointRel.x) <= size.x && Math.abs(pointRel.y) <= size.y;
+		long relativeX = point.x - position.x,
+				relativeY = point.y - position.y;
+		return Math.abs(toLocalX(relativeX, relativeY)) <= size.x &&
+				Math.abs(toLocalY(relativeX, relativeY)) <= size.y;
 	}
 	
 	/**
@@ -107,112 +250,93 @@ public class RotatableRectanglePhysicsObject extends RotatablePhysicsObject impl
 	 */
 	public SpaceVector2DLong getSurfaceNormal(Vector2DLong point) {
 		// The object's position in this rectangle's coordinate space
-		Vector2DLong pointRel = point.difference(position).getRotated(-angle);
+		long relativeX = point.x - position.x,
+				relativeY = point.y - position.y;
+		long pointRelX = toLocalX(relativeX, relativeY),
+				pointRelY = toLocalY(relativeX, relativeY);
 		
-		boolean rightOutside = pointRel.x > size.x,
-				leftOutside = pointRel.x < -size.x;
-		boolean aboveOutside = pointRel.y > size.y,
-				belowOutside = pointRel.y < -size.y;
+		boolean rightOutside = pointRelX > size.x,
+				leftOutside = pointRelX < -size.x;
+		boolean aboveOutside = pointRelY > size.y,
+				belowOutside = pointRelY < -size.y;
 		
-		SpaceVector2DLong surfaceNormal = new SpaceVector2DLong();
+		// The surface point and the normal, in this rectangle's coordinate space
+		long surfaceX, surfaceY;
+		double normalX, normalY;
 		
 		if (rightOutside) {
 			// Right
+			surfaceX = size.x;
 			if (aboveOutside) {
 				// Above right (quad 1)
-				surfaceNormal.position = position.sum(size.getRotated(angle));
-				// surfaceNormal.vector = point.difference(surfaceNormal.position).toUnit();
-				surfaceNormal.vector = new Vector2D(1d, angle + 0.25d * Math.PI, true);
+				surfaceY = size.y;
+				normalX = DIAGONAL;
+				normalY = DIAGONAL;
 			} else if (belowOutside) {
 				// Below right (quad 4)
-				surfaceNormal.position = position.sum(size.getRotated(angle + Math.PI + sizeQuad2Angle));
-				// surfaceNormal.vector = point.difference(surfaceNormal.position).toUnit();
-				surfaceNormal.vector = new Vector2D(1d, angle + 1.75d * Math.PI, true);
+				surfaceY = -size.y;
+				normalX = DIAGONAL;
+				normalY = -DIAGONAL;
 			} else {
 				// Right side
-				Vector2D surfacePosInRectCoords = new Vector2D(size.x, pointRel.y);
-				surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-				surfaceNormal.vector = new Vector2D(1d, angle, true);
+				surfaceY = pointRelY;
+				normalX = 1d;
+				normalY = 0d;
 			}
 		} else if (leftOutside) {
 			// Left
+			surfaceX = -size.x;
 			if (aboveOutside) {
 				// Above left (quad 2)
-				surfaceNormal.position = position.sum(size.getRotated(angle + sizeQuad2Angle));
-				// surfaceNormal.vector = point.difference(surfaceNormal.position).toUnit();
-				surfaceNormal.vector = new Vector2D(1d, angle + 0.75d * Math.PI, true);
+				surfaceY = size.y;
+				normalX = -DIAGONAL;
+				normalY = DIAGONAL;
 			} else if (belowOutside) {
 				// Below left (quad 3)
-				surfaceNormal.position = position.sum(size.getRotated(angle + Math.PI));
-				// surfaceNormal.vector = point.difference(surfaceNormal.position).toUnit();
-				surfaceNormal.vector = new Vector2D(1d, angle + 1.25d * Math.PI, true);
+				surfaceY = -size.y;
+				normalX = -DIAGONAL;
+				normalY = -DIAGONAL;
 			} else {
 				// Left side
-				Vector2D surfacePosInRectCoords = new Vector2D(-size.x, pointRel.y);
-				surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-				surfaceNormal.vector = new Vector2D(-1d, angle, true);
+				surfaceY = pointRelY;
+				normalX = -1d;
+				normalY = 0d;
 			}
 		} else {
 			// Middle x
-			if (aboveOutside) {
-				// Above middle
-				Vector2D surfacePosInRectCoords = new Vector2D(pointRel.x, size.y);
-				surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-				surfaceNormal.vector = new Vector2D(1d, angle + 0.5d * Math.PI, true);
-			} else if (belowOutside) {
-				// Below middle
-				Vector2D surfacePosInRectCoords = new Vector2D(pointRel.x, -size.y);
-				surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-				surfaceNormal.vector = new Vector2D(1d, angle - 0.5d * Math.PI, true);
+			boolean closeToXSide = false;
+			if (!aboveOutside && !belowOutside) {
+				// Inside rectangle, use the nearest side
+				double distanceToXSide = size.x - Math.abs(pointRelX),
+						distanceToYSide = size.y - Math.abs(pointRelY);
+				closeToXSide = distanceToXSide < distanceToYSide;
+			}
+			
+			if (closeToXSide) {
+				// Right or left side
+				boolean rightCenter = pointRelX >= 0;
+				surfaceX = rightCenter ? size.x : -size.x;
+				surfaceY = pointRelY;
+				normalX = rightCenter ? 1d : -1d;
+				normalY = 0d;
 			} else {
-				// Inside rectangle
-				boolean rightCenter = pointRel.x >= 0d,
-						aboveCenter = pointRel.y >= 0d;
-				
-				double distanceToXSide = size.x - Math.abs(pointRel.x),
-						distanceToYSide = size.y - Math.abs(pointRel.y);
-				
-				boolean closeToXSide = distanceToXSide < distanceToYSide;
-				if (closeToXSide) {
-					if (rightCenter) {
-						// TODO same as right side
-						// Right side
-						Vector2D surfacePosInRectCoords = new Vector2D(size.x, pointRel.y);
-						surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-						surfaceNormal.vector = new Vector2D(1d, angle, true);
-					} else {
-						// TODO same as left side
-						// Left side
-						Vector2D surfacePosInRectCoords = new Vector2D(-size.x, pointRel.y);
-						surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-						surfaceNormal.vector = new Vector2D(-1d, angle, true);
-					}
-				} else {
-					if (aboveCenter) {
-						// TODO same as top side
-						// Above middle
-						Vector2D surfacePosInRectCoords = new Vector2D(pointRel.x, size.y);
-						surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-						surfaceNormal.vector = new Vector2D(1d, angle + 0.5d * Math.PI, true);
-					} else {
-						// TODO same as bottom side
-						// Below middle
-						Vector2D surfacePosInRectCoords = new Vector2D(pointRel.x, -size.y);
-						surfaceNormal.position = position.sum(surfacePosInRectCoords.getRotated(angle));
-						surfaceNormal.vector = new Vector2D(1d, angle - 0.5d * Math.PI, true);
-					}
-				}
-				
-				// PLACEHOLDER
-				// surfaceNormal position equals point,
-				// surfaceNormal vector points away from rectangle center
-				/*surfaceNormal.position = point.clone();
-				surfaceNormal.vector = point.difference(position).toUnit();*/
+				// Above or below middle
+				boolean aboveCenter = aboveOutside || !belowOutside && pointRelY >= 0;
+				surfaceX = pointRelX;
+				surfaceY = aboveCenter ? size.y : -size.y;
+				normalX = 0d;
+				normalY = aboveCenter ? 1d : -1d;
 			}
 		}
 		
-		return surfaceNormal;
+		// Rotate into world space
+		SpaceVector2DLong surfaceNormal = new SpaceVector2DLong();
+		surfaceNormal.position = toWorld(surfaceX, surfaceY, new Vector2DLong());
+		surfaceNormal.position.add(position);
+		final double cos = getCos(), sin = getSin();
+		surfaceNormal.vector = new Vector2D(normalX * cos - normalY * sin, normalX * sin + normalY * cos);
 		
+		return surfaceNormal;
 	}
 	
 	@Override
@@ -227,18 +351,28 @@ public class RotatableRectanglePhysicsObject extends RotatablePhysicsObject impl
 	
 	@Override
 	public Vector2DLong[] getOutlineVectors(long extrapolateTime) {
-		Vector2DLong sizeQuad13 = size.getRotated(angle),
+		return getOutlineVectors(position, angle);
+	}
+	
+	protected Vector2DLong[] getOutlineVectors(Vector2DLong outlinePosition, double outlineAngle) {
+		final double cos = cos(outlineAngle), sin = sin(outlineAngle);
+		Vector2DLong sizeQuad13 = size.getRotated(cos, sin, new Vector2DLong()),
 				sizeQuad24 = new Vector2DLong(-size.x, size.y);
-		sizeQuad24.rotate(angle);
+		sizeQuad24.getRotated(cos, sin, sizeQuad24);
 		return new Vector2DLong[] {
-				position.sum(sizeQuad13),
-				position.sum(sizeQuad24),
-				position.difference(sizeQuad13),
-				position.difference(sizeQuad24) };
+				outlinePosition.sum(sizeQuad13),
+				outlinePosition.sum(sizeQuad24),
+				outlinePosition.difference(sizeQuad13),
+				outlinePosition.difference(sizeQuad24) };
 	}
 	
 	@Override
 	public Polygon getOutline(long extrapolateTime) {
 		return IPolygon.vectorsToPolygon(getOutlineVectors(extrapolateTime));
 	}
+	
+	@Override
+	public Polygon getOutline(Vector2DLong outlinePosition, double outlineAngle) {
+		return IPolygon.vectorsToPolygon(getOutlineVectors(outlinePosition, outlineAngle));
+	}
 }
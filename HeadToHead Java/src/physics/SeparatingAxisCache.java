@@ -0,0 +1,84 @@
+package physics;
+
+/**
+ * Remembers the axis that last separated each of a few recent pairs of
+ * rectangles. Objects move little between ticks, so the same axis usually
+ * separates them again, and the separating axis test can stop after one
+ * projection.
+ * 
+ * The cache belongs to whoever tests the pairs, not to the rectangles, so
+ * that testing rectangles never changes them. Use one cache per thread,
+ * e.g. one per collision pass.
+ */
+public class SeparatingAxisCache {
+	
+	static final int NO_AXIS = -1;
+	
+	private final int mask;
+	private final Object[] firsts, seconds;
+	private final int[] axes;
+	
+	/**
+	 * Creates a cache with room for about 64 pairs.
+	 */
+	public SeparatingAxisCache() {
+		this(64);
+	}
+	
+	/**
+	 * Creates a cache.
+	 * @param slots The number of pairs that fit, rounded up to a power of 2.
+	 */
+	public SeparatingAxisCache(int slots) {
+		if (slots < 1) {
+			throw new IllegalArgumentException("A separating axis cache needs at least 1 slot.");
+		}
+		int size = Integer.highestOneBit(slots);
+		if (size < slots) {
+			size <<= 1;
+		}
+		mask = size - 1;
+		firsts = new Object[size];
+		seconds = new Object[size];
+		axes = new int[size];
+	}
+	
+	/**
+	 * Gets the axis that last separated a pair, in the order that it was tested.
+	 * @param first
+	 * @param second
+	 * @return NO_AXIS if the pair is not cached, or was touching last time.
+	 */
+	int get(Object first, Object second) {
+		int slot = getSlot(first, second);
+		return firsts[slot] == first && seconds[slot] == second ? axes[slot] : NO_AXIS;
+	}
+	
+	/**
+	 * Remembers the axis that separated a pair, replacing whatever pair was in its slot.
+	 * @param first
+	 * @param second
+	 * @param axis NO_AXIS if the pair is touching.
+	 */
+	void put(Object first, Object second, int axis) {
+		int slot = getSlot(first, second);
+		firsts[slot] = first;
+		seconds[slot] = second;
+		axes[slot] = axis;
+	}
+	
+	/**
+	 * Forgets every pair, so that the cache does not keep old objects alive.
+	 */
+	public void clear() {
+		for (int i = 0; i <= mask; i++) {
+			firsts[i] = null;
+			seconds[i] = null;
+		}
+	}
+	
+	private int getSlot(Object first, Object second) {
+		int hash = 31 * System.identityHashCode(first) + System.identityHashCode(second);
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+}
@@ -0,0 +1,239 @@
+package physics;
+
+import java.util.List;
+
+/**
+ * A uniform grid over a wrap-around world, for finding the objects that
+ * might touch a circle without testing every object. Cells on opposite edges
+ * of the world are neighbours, so queries near an edge also find the objects
+ * near the other edge, as isTouchingWrapped() does.
+ * 
+ * Each object is linked into the cell that contains its center. sync() brings
+ * the grid up to date with a list once per tick, and only relinks the objects
+ * that have moved to another cell. Queries extend by the largest radius in the
+ * grid, so they find every object whose circle might reach the query circle.
+ * 
+ * An object can only be in one SpatialHash or SweepAndPrune at a time.
+ */
+public class SpatialHash<T extends PhysicsObject> {
+	
+	private final long width, height;
+	private final int columns, rows;
+	
+	/** The first object in each cell. */
+	private final PhysicsObject[] heads;
+	
+	/** The objects in the grid, in no particular order. */
+	private PhysicsObject[] members = new PhysicsObject[16];
+	private int size = 0;
+	
+	/** The largest radius of the objects at the last sync(). */
+	private long maxRadius = 0;
+	
+	/** Marks the objects seen by the current sync(). */
+	private long stamp = 0;
+	
+	/**
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 * @param cellSize The smallest width and height of a cell. The cells are
+	 *            stretched so that a whole number of them fits the world.
+	 */
+	public SpatialHash(long width, long height, long cellSize) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("World size must be positive.");
+		}
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("Cell size must be positive.");
+		}
+		this.width = width;
+		this.height = height;
+		columns = (int)Math.max(width / cellSize, 1);
+		rows = (int)Math.max(height / cellSize, 1);
+		heads = new PhysicsObject[columns * rows];
+	}
+	
+	/**
+	 * Makes the grid hold exactly the objects in a list, at their current
+	 * positions, and remembers each object's index in the list.
+	 * @param objects
+	 */
+	public void sync(List<? extends T> objects) {
+		stamp++;
+		maxRadius = 0;
+		for (int i = 0; i < objects.size(); i++) {
+			T object = objects.get(i);
+			object.broadphaseIndex = i;
+			object.broadphaseStamp = stamp;
+			maxRadius = Math.max(maxRadius, object.getRadius());
+			if (object.broadphase == this) {
+				update(object);
+			} else {
+				add(object);
+			}
+		}
+		
+		// Remove the objects that are no longer in the list
+		for (int slot = size - 1; slot >= 0; slot--) {
+			if (members[slot].broadphaseStamp != stamp) {
+				remove(members[slot]);
+			}
+		}
+	}
+	
+	/**
+	 * Adds an object at its current position.
+	 * @param object
+	 */
+	public void add(T object) {
+		if (object.broadphase != null) {
+			throw new IllegalArgumentException("The object is already in a broadphase.");
+		}
+		if (size == members.length) {
+			PhysicsObject[] newMembers = new PhysicsObject[2 * size];
+			System.arraycopy(members, 0, newMembers, 0, size);
+			members = newMembers;
+		}
+		object.broadphase = this;
+		object.broadphaseSlot = size;
+		members[size++] = object;
+		maxRadius = Math.max(maxRadius, object.getRadius());
+		link(object, cellOf(object.position.x, object.position.y));
+	}
+	
+	/**
+	 * Removes an object. Does nothing if the object is not in this grid.
+	 * @param object
+	 */
+	public void remove(PhysicsObject object) {
+		if (object.broadphase != this) {
+			return;
+		}
+		unlink(object);
+		
+		// Fill the object's slot with the last member
+		PhysicsObject last = members[--size];
+		members[object.broadphaseSlot] = last;
+		last.broadphaseSlot = object.broadphaseSlot;
+		members[size] = null;
+		
+		object.broadphase = null;
+	}
+	
+	/**
+	 * Moves an object to the cell that now contains it, e.g. after it is pushed.
+	 * @param object
+	 */
+	public void update(PhysicsObject object) {
+		if (object.broadphase != this) {
+			return;
+		}
+		int cell = cellOf(object.position.x, object.position.y);
+		if (cell != object.broadphaseCell) {
+			unlink(object);
+			link(object, cell);
+		}
+	}
+	
+	/**
+	 * Removes every object.
+	 */
+	public void clear() {
+		while (size > 0) {
+			remove(members[size - 1]);
+		}
+		maxRadius = 0;
+	}
+	
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Gets the index of an object in the list given to the last sync().
+	 * @param object
+	 * @return
+	 */
+	public int getIndex(T object) {
+		return object.broadphaseIndex;
+	}
+	
+	/**
+	 * Finds the objects that might touch a circle, including across the edges
+	 * of the world. Every object that touches the circle is found, but some
+	 * objects that are found do not touch it.
+	 * @param x
+	 * @param y
+	 * @param radius
+	 * @param result Cleared and filled with the objects. The order only
+	 *            depends on the order of the calls to this grid, so it is the
+	 *            same every time a match is replayed.
+	 */
+	@SuppressWarnings("unchecked")
+	public void query(long x, long y, long radius, List<T> result) {
+		result.clear();
+		long reach = radius + maxRadius;
+		
+		// The cells spanned by the reach, before wrapping
+		long columnLow = Math.floorDiv((x - reach) * columns, width),
+				columnHigh = Math.floorDiv((x + reach) * columns, width);
+		long rowLow = Math.floorDiv((y - reach) * rows, height),
+				rowHigh = Math.floorDiv((y + reach) * rows, height);
+		
+		// Visit each cell only once if the reach wraps all the way around
+		if (columnHigh - columnLow >= columns) {
+			columnLow = 0;
+			columnHigh = columns - 1;
+		}
+		if (rowHigh - rowLow >= rows) {
+			rowLow = 0;
+			rowHigh = rows - 1;
+		}
+		
+		for (long row = rowLow; row <= rowHigh; row++) {
+			int rowStart = (int)Math.floorMod(row, rows) * columns;
+			for (long column = columnLow; column <= columnHigh; column++) {
+				PhysicsObject object = heads[rowStart + (int)Math.floorMod(column, columns)];
+				while (object != null) {
+					result.add((T)object);
+					object = object.broadphaseNext;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Gets the cell that contains a position, wrapping it into the world first.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	private int cellOf(long x, long y) {
+		int column = (int)(Math.floorMod(x, width) * columns / width);
+		int row = (int)(Math.floorMod(y, height) * rows / height);
+		return row * columns + column;
+	}
+	
+	private void link(PhysicsObject object, int cell) {
+		object.broadphaseCell = cell;
+		object.broadphasePrevious = null;
+		object.broadphaseNext = heads[cell];
+		if (heads[cell] != null) {
+			heads[cell].broadphasePrevious = object;
+		}
+		heads[cell] = object;
+	}
+	
+	private void unlink(PhysicsObject object) {
+		if (object.broadphasePrevious != null) {
+			object.broadphasePrevious.broadphaseNext = object.broadphaseNext;
+		} else {
+			heads[object.broadphaseCell] = object.broadphaseNext;
+		}
+		if (object.broadphaseNext != null) {
+			object.broadphaseNext.broadphasePrevious = object.broadphasePrevious;
+		}
+		object.broadphasePrevious = null;
+		object.broadphaseNext = null;
+	}
+}
@@ -0,0 +1,840 @@
+package physics;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Sweep and prune over the objects' bounding boxes. The box ends are kept
+ * sorted along x and y, and each tick they are re-sorted by insertion sort.
+ * Objects move very little between ticks, so the lists are nearly sorted and
+ * this takes close to linear time. Each swap of a box start past a box end
+ * begins or ends an overlap, so the set of overlapping pairs is kept up to
+ * date without testing every pair. New objects are merged into the lists
+ * together, with one sweep to find their pairs.
+ * 
+ * In a wrap-around world an object whose box crosses an edge also gets a copy
+ * shifted to the opposite edge, so pairs across the edges are found as
+ * isTouchingWrapped() finds them. Each pair of objects is reported once, however
+ * many of their copies overlap.
+ * 
+ * An object can only be in one SpatialHash or SweepAndPrune at a time.
+ */
+public class SweepAndPrune<T extends PhysicsObject> {
+	
+	/**
+	 * Is told when two objects' boxes begin or end overlapping.
+	 */
+	public interface PairListener<T> {
+		public void pairBegan(T a, T b);
+		
+		public void pairEnded(T a, T b);
+	}
+	
+	private static final int X = 0, Y = 1;
+	
+	/** The proxies of an object: itself, and its copies shifted in x, in y and in both. */
+	private static final int PROXIES_PER_OBJECT = 4;
+	
+	private static final int NO_PROXY = -1, NO_OBJECT = -1;
+	
+	private final long width, height;
+	private final boolean wrap;
+	
+	private PairListener<? super T> listener;
+	
+	// Objects, by id
+	private PhysicsObject[] objects = new PhysicsObject[16];
+	private int[] objectProxies = new int[16 * PROXIES_PER_OBJECT];
+	private final IdPool objectIds = new IdPool();
+	/** The ids of the objects that each object is paired with. */
+	private int[][] partners = new int[16][];
+	private int[] partnerCount = new int[16];
+	
+	// Proxies, by id
+	private long[] minX = new long[16], maxX = new long[16],
+			minY = new long[16], maxY = new long[16];
+	private int[] proxyObject = new int[16];
+	private final IdPool proxyIds = new IdPool();
+	/** The number of removed proxies whose ends are still in the lists. */
+	private int deadProxyCount = 0;
+	/** The proxies added since the last endUpdate(), whose ends are not in the lists yet. */
+	private int[] newProxies = new int[16];
+	private int newProxyCount = 0;
+	
+	// Scratch space for inserting the new proxies
+	private int[] newEnds = new int[32], mergeBuffer = new int[32];
+	private int[] openOld = new int[16], openNew = new int[16], openPosition = new int[16];
+	
+	/**
+	 * The box ends along each axis. An end is its proxy's id times 2,
+	 * plus 1 for the max end.
+	 */
+	private int[][] ends = new int[][] { new int[32], new int[32] };
+	private int endCount = 0;
+	
+	/** The overlapping pairs of proxies. */
+	private final PairTable proxyPairs = new PairTable();
+	
+	// The overlapping pairs of objects
+	private final PairTable objectPairs = new PairTable();
+	private int[] pairA = new int[16], pairB = new int[16], pairReferences = new int[16];
+	private int pairCount = 0;
+	
+	/** Marks the objects seen by the current update. */
+	private long stamp = 0;
+	
+	/** How far back along its velocity each box is stretched, or 0. */
+	private long sweepTime = 0;
+	
+	/**
+	 * @param width The width of the world.
+	 * @param height The height of the world.
+	 * @param wrap True if objects near one edge can touch objects near the
+	 *            opposite edge.
+	 */
+	public SweepAndPrune(long width, long height, boolean wrap) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("World size must be positive.");
+		}
+		this.width = width;
+		this.height = height;
+		this.wrap = wrap;
+	}
+	
+	/**
+	 * Sets the listener that is told about pairs as they begin and end.
+	 * @param listener The listener, or null.
+	 */
+	public void setPairListener(PairListener<? super T> listener) {
+		this.listener = listener;
+	}
+	
+	/**
+	 * Stretches each box back along its object's velocity, so that it covers
+	 * the path the object moved along during the last tick. Then the pairs
+	 * include everything that a continuous collision test could hit.
+	 * @param sweepTime The length of the tick, or 0 to not stretch the boxes.
+	 */
+	public void setSweepTime(long sweepTime) {
+		if (sweepTime < 0) {
+			throw new IllegalArgumentException("Sweep time cannot be negative.");
+		}
+		this.sweepTime = sweepTime;
+	}
+	
+	/**
+	 * Makes the boxes match exactly the objects in a list, at their current
+	 * positions, and updates the overlapping pairs.
+	 * @param objects
+	 */
+	public void sync(List<? extends T> objects) {
+		beginUpdate();
+		update(objects);
+		endUpdate();
+	}
+	
+	/**
+	 * Starts updating the boxes from one or more lists. Call update() for
+	 * each list, and then endUpdate().
+	 */
+	public void beginUpdate() {
+		stamp++;
+	}
+	
+	/**
+	 * Adds the objects in a list, or moves their boxes to their current positions.
+	 * @param objects
+	 */
+	public void update(List<? extends T> objects) {
+		for (int i = 0; i < objects.size(); i++) {
+			T object = objects.get(i);
+			if (object.broadphase == null) {
+				int id = objectIds.take();
+				if (id == this.objects.length) {
+					this.objects = Arrays.copyOf(this.objects, 2 * id);
+					objectProxies = Arrays.copyOf(objectProxies, 2 * id * PROXIES_PER_OBJECT);
+					partners = Arrays.copyOf(partners, 2 * id);
+					partnerCount = Arrays.copyOf(partnerCount, 2 * id);
+				}
+				this.objects[id] = object;
+				for (int k = 0; k < PROXIES_PER_OBJECT; k++) {
+					objectProxies[id * PROXIES_PER_OBJECT + k] = NO_PROXY;
+				}
+				object.broadphase = this;
+				object.broadphaseSlot = id;
+			} else if (object.broadphase != this) {
+				throw new IllegalArgumentException("The object is already in another broadphase.");
+			}
+			object.broadphaseIndex = i;
+			object.broadphaseStamp = stamp;
+			updateProxies(object);
+		}
+	}
+	
+	/**
+	 * Removes the objects that were not in any list since beginUpdate(), and
+	 * re-sorts the boxes.
+	 */
+	public void endUpdate() {
+		for (int id = 0; id < objectIds.getHighWater(); id++) {
+			if (objects[id] != null && objects[id].broadphaseStamp != stamp) {
+				remove(objects[id]);
+			}
+		}
+		forgetRemovedNewProxies();
+		removeDeadEnds();
+		sort(X);
+		sort(Y);
+		insertNewProxies();
+	}
+	
+	/**
+	 * Removes an object and ends its pairs. Does nothing if it is not in this broadphase.
+	 * @param object
+	 */
+	public void remove(PhysicsObject object) {
+		if (object.broadphase != this) {
+			return;
+		}
+		int id = object.broadphaseSlot;
+		for (int k = 0; k < PROXIES_PER_OBJECT; k++) {
+			int proxy = objectProxies[id * PROXIES_PER_OBJECT + k];
+			if (proxy != NO_PROXY) {
+				removeProxy(proxy);
+				objectProxies[id * PROXIES_PER_OBJECT + k] = NO_PROXY;
+			}
+		}
+		objects[id] = null;
+		objectIds.give(id);
+		object.broadphase = null;
+	}
+	
+	/**
+	 * Removes every object, ending all the pairs.
+	 */
+	public void clear() {
+		for (int id = 0; id < objectIds.getHighWater(); id++) {
+			if (objects[id] != null) {
+				remove(objects[id]);
+			}
+		}
+		forgetRemovedNewProxies();
+		removeDeadEnds();
+		insertNewProxies();
+	}
+	
+	/**
+	 * Returns true if the object is in this broadphase.
+	 * @param object
+	 * @return
+	 */
+	public boolean contains(PhysicsObject object) {
+		return object.broadphase == this;
+	}
+	
+	/**
+	 * Gets the index of an object in the list it was last updated from.
+	 * @param object
+	 * @return
+	 */
+	public int getIndex(T object) {
+		return object.broadphaseIndex;
+	}
+	
+	/**
+	 * Gets the number of pairs of objects whose boxes overlap.
+	 * @return
+	 */
+	public int getPairCount() {
+		return pairCount;
+	}
+	
+	/**
+	 * Gets the first object of an overlapping pair.
+	 * @param pair From 0 to getPairCount() - 1.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public T getPairA(int pair) {
+		return (T)objects[pairA[pair]];
+	}
+	
+	/**
+	 * Gets the second object of an overlapping pair.
+	 * @param pair From 0 to getPairCount() - 1.
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public T getPairB(int pair) {
+		return (T)objects[pairB[pair]];
+	}
+	
+	/**
+	 * Sets an object's proxy boxes to its current position, adding and
+	 * removing the shifted copies as it crosses the edges.
+	 * @param object
+	 */
+	private void updateProxies(PhysicsObject object) {
+		long radius = object.getRadius();
+		long x = object.position.x, y = object.position.y;
+		if (wrap) {
+			x = Math.floorMod(x, width);
+			y = Math.floorMod(y, height);
+		}
+		
+		// The box around the object, and around its path if it is swept
+		long lowX = x - radius, highX = x + radius,
+				lowY = y - radius, highY = y + radius;
+		if (sweepTime > 0) {
+			long moveX = (long)Integrator.displacement(object.velocity.x, object.acceleration.x, sweepTime),
+					moveY = (long)Integrator.displacement(object.velocity.y, object.acceleration.y, sweepTime);
+			lowX -= Math.max(moveX, 0);
+			highX -= Math.min(moveX, 0);
+			lowY -= Math.max(moveY, 0);
+			highY -= Math.min(moveY, 0);
+		}
+		
+		// The shift of the copy that is needed across each edge
+		long shiftX = 0, shiftY = 0;
+		if (wrap) {
+			if (lowX < 0) {
+				shiftX = width;
+			} else if (highX >= width) {
+				shiftX = -width;
+			}
+			if (lowY < 0) {
+				shiftY = height;
+			} else if (highY >= height) {
+				shiftY = -height;
+			}
+		}
+		
+		int base = object.broadphaseSlot * PROXIES_PER_OBJECT;
+		for (int k = 0; k < PROXIES_PER_OBJECT; k++) {
+			long dx = (k & 1) != 0 ? shiftX : 0,
+					dy = (k & 2) != 0 ? shiftY : 0;
+			boolean needed = ((k & 1) == 0 || shiftX != 0) && ((k & 2) == 0 || shiftY != 0);
+			int proxy = objectProxies[base + k];
+			if (!needed) {
+				if (proxy != NO_PROXY) {
+					removeProxy(proxy);
+					objectProxies[base + k] = NO_PROXY;
+				}
+				continue;
+			}
+			if (proxy == NO_PROXY) {
+				proxy = addProxy(object.broadphaseSlot);
+				objectProxies[base + k] = proxy;
+			}
+			minX[proxy] = lowX + dx;
+			maxX[proxy] = highX + dx;
+			minY[proxy] = lowY + dy;
+			maxY[proxy] = highY + dy;
+		}
+	}
+	
+	/**
+	 * Creates a proxy. Its ends are put into the lists and its pairs are found
+	 * by the next insertNewProxies().
+	 * @param object
+	 * @return
+	 */
+	private int addProxy(int object) {
+		int proxy = proxyIds.take();
+		if (proxy == proxyObject.length) {
+			int capacity = 2 * proxy;
+			minX = Arrays.copyOf(minX, capacity);
+			maxX = Arrays.copyOf(maxX, capacity);
+			minY = Arrays.copyOf(minY, capacity);
+			maxY = Arrays.copyOf(maxY, capacity);
+			proxyObject = Arrays.copyOf(proxyObject, capacity);
+		}
+		proxyObject[proxy] = object;
+		
+		if (newProxyCount == newProxies.length) {
+			newProxies = Arrays.copyOf(newProxies, 2 * newProxyCount);
+		}
+		newProxies[newProxyCount++] = proxy;
+		return proxy;
+	}
+	
+	/**
+	 * Ends a proxy's pairs and marks it as removed. Its ends stay in the lists
+	 * until the next removeDeadEnds(), so that removing many proxies only
+	 * compacts the lists once.
+	 * @param proxy
+	 */
+	private void removeProxy(int proxy) {
+		// Only the copies of the object's partners can overlap the proxy.
+		// Ending a pair swaps the last partner into its place, and that one has
+		// already been visited.
+		int object = proxyObject[proxy];
+		for (int i = partnerCount[object] - 1; i >= 0; i--) {
+			int partner = partners[object][i];
+			for (int k = 0; k < PROXIES_PER_OBJECT; k++) {
+				int other = objectProxies[partner * PROXIES_PER_OBJECT + k];
+				if (other != NO_PROXY) {
+					removeProxyPair(proxy, other);
+				}
+			}
+		}
+		proxyObject[proxy] = NO_OBJECT;
+		deadProxyCount++;
+	}
+	
+	/**
+	 * Drops the new proxies that were removed before their ends were put into
+	 * the lists, and frees their ids. removeProxy() counted them as dead, but
+	 * they have no ends for removeDeadEnds() to remove, so this must run first
+	 * for deadProxyCount to only count the proxies that do.
+	 */
+	private void forgetRemovedNewProxies() {
+		int count = 0;
+		for (int i = 0; i < newProxyCount; i++) {
+			int proxy = newProxies[i];
+			if (proxyObject[proxy] != NO_OBJECT) {
+				newProxies[count++] = proxy;
+			} else {
+				proxyIds.give(proxy);
+				deadProxyCount--;
+			}
+		}
+		newProxyCount = count;
+	}
+	
+	/**
+	 * Removes the ends of the removed proxies, keeping the rest in order, and
+	 * frees their ids.
+	 */
+	private void removeDeadEnds() {
+		if (deadProxyCount == 0) {
+			return;
+		}
+		int kept = 0;
+		for (int axis = X; axis <= Y; axis++) {
+			int[] axisEnds = ends[axis];
+			kept = 0;
+			for (int i = 0; i < endCount; i++) {
+				int proxy = axisEnds[i] >>> 1;
+				if (proxyObject[proxy] != NO_OBJECT) {
+					axisEnds[kept++] = axisEnds[i];
+				} else if (axis == X && (axisEnds[i] & 1) == 0) {
+					proxyIds.give(proxy);
+				}
+			}
+		}
+		endCount = kept;
+		deadProxyCount = 0;
+	}
+	
+	/**
+	 * Merges the ends of the new proxies into the sorted lists, and finds
+	 * their pairs with one sweep along x. Inserting them one at a time would
+	 * walk each of them along the whole list.
+	 */
+	private void insertNewProxies() {
+		// A listener may have removed some of them while the lists were sorted
+		forgetRemovedNewProxies();
+		final int count = newProxyCount;
+		newProxyCount = 0;
+		if (count == 0) {
+			return;
+		}
+		
+		int newEndCount = 2 * count;
+		if (newEnds.length < newEndCount) {
+			newEnds = new int[2 * newEndCount];
+			mergeBuffer = new int[2 * newEndCount];
+		}
+		if (endCount + newEndCount > ends[X].length) {
+			int capacity = Math.max(2 * ends[X].length, endCount + newEndCount);
+			ends[X] = Arrays.copyOf(ends[X], capacity);
+			ends[Y] = Arrays.copyOf(ends[Y], capacity);
+		}
+		if (openPosition.length < proxyObject.length) {
+			openOld = new int[proxyObject.length];
+			openNew = new int[proxyObject.length];
+			openPosition = new int[proxyObject.length];
+		}
+		
+		for (int axis = X; axis <= Y; axis++) {
+			for (int i = 0; i < count; i++) {
+				newEnds[2 * i] = 2 * newProxies[i];
+				newEnds[2 * i + 1] = 2 * newProxies[i] + 1;
+			}
+			mergeSort(axis, newEnds, 0, newEndCount);
+			if (axis == X) {
+				findNewPairs(newEndCount);
+			}
+			
+			// Merge from the back, so that the old ends can stay in place
+			int[] axisEnds = ends[axis];
+			int i = endCount - 1, j = newEndCount - 1;
+			for (int k = endCount + newEndCount - 1; j >= 0; k--) {
+				if (i >= 0 && comesBefore(axis, newEnds[j], axisEnds[i])) {
+					axisEnds[k] = axisEnds[i--];
+				} else {
+					axisEnds[k] = newEnds[j--];
+				}
+			}
+		}
+		endCount += newEndCount;
+	}
+	
+	/**
+	 * Sweeps along the old and the sorted new x ends together, keeping the
+	 * boxes that are open. Each new box is tested against every open box, and
+	 * each old box only against the open new boxes.
+	 * @param newEndCount
+	 */
+	private void findNewPairs(int newEndCount) {
+		int[] axisEnds = ends[X];
+		int oldCount = 0, newCount = 0;
+		int i = 0, j = 0;
+		while (i < endCount || j < newEndCount) {
+			boolean isNew = i == endCount ||
+					j < newEndCount && comesBefore(X, newEnds[j], axisEnds[i]);
+			int end = isNew ? newEnds[j++] : axisEnds[i++];
+			int proxy = end >>> 1;
+			int[] open = isNew ? openNew : openOld;
+			
+			if ((end & 1) != 0) {
+				// Close the box, moving the last open box into its place
+				int position = openPosition[proxy];
+				int last = isNew ? openNew[--newCount] : openOld[--oldCount];
+				open[position] = last;
+				openPosition[last] = position;
+				continue;
+			}
+			
+			if (isNew) {
+				for (int k = 0; k < oldCount; k++) {
+					if (overlaps(proxy, openOld[k])) {
+						addProxyPair(proxy, openOld[k]);
+					}
+				}
+			}
+			for (int k = 0; k < newCount; k++) {
+				if (overlaps(proxy, openNew[k])) {
+					addProxyPair(proxy, openNew[k]);
+				}
+			}
+			
+			int position = isNew ? newCount++ : oldCount++;
+			open[position] = proxy;
+			openPosition[proxy] = position;
+		}
+	}
+	
+	/**
+	 * Sorts ends by merge sort, which is stable and does not depend on how
+	 * sorted they already are.
+	 * @param axis
+	 * @param array
+	 * @param from
+	 * @param to
+	 */
+	private void mergeSort(int axis, int[] array, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(axis, array, from, middle);
+		mergeSort(axis, array, middle, to);
+		
+		System.arraycopy(array, from, mergeBuffer, from, to - from);
+		int i = from, j = middle;
+		for (int k = from; k < to; k++) {
+			if (j == to || i < middle && !comesBefore(axis, mergeBuffer[j], mergeBuffer[i])) {
+				array[k] = mergeBuffer[i++];
+			} else {
+				array[k] = mergeBuffer[j++];
+			}
+		}
+	}
+	
+	/**
+	 * Returns true if one end belongs before another. Starts come before ends
+	 * at the same value, so touching boxes overlap.
+	 * @param axis
+	 * @param end
+	 * @param other
+	 * @return
+	 */
+	private boolean comesBefore(int axis, int end, int other) {
+		long value = valueOf(axis, end), otherValue = valueOf(axis, other);
+		return value < otherValue || value == otherValue && (end & 1) == 0 && (other & 1) != 0;
+	}
+	
+	/**
+	 * Re-sorts the ends along an axis by insertion sort, beginning and ending
+	 * pairs as starts and ends pass each other.
+	 * @param axis
+	 */
+	private void sort(int axis) {
+		int[] axisEnds = ends[axis];
+		for (int i = 1; i < endCount; i++) {
+			int end = axisEnds[i];
+			long value = valueOf(axis, end);
+			boolean isMax = (end & 1) != 0;
+			
+			int j = i - 1;
+			while (j >= 0) {
+				int other = axisEnds[j];
+				long otherValue = valueOf(axis, other);
+				boolean otherIsMax = (other & 1) != 0;
+				
+				// Starts come before ends at the same value, so touching boxes overlap
+				if (otherValue < value || otherValue == value && (!otherIsMax || isMax)) {
+					break;
+				}
+				
+				if (!isMax && otherIsMax) {
+					// A start moved before an end, so the boxes may now overlap
+					if (overlaps(end >>> 1, other >>> 1)) {
+						addProxyPair(end >>> 1, other >>> 1);
+					}
+				} else if (isMax && !otherIsMax) {
+					// An end moved before a start, so the boxes no longer overlap
+					removeProxyPair(end >>> 1, other >>> 1);
+				}
+				
+				axisEnds[j + 1] = other;
+				j--;
+			}
+			axisEnds[j + 1] = end;
+		}
+	}
+	
+	private long valueOf(int axis, int end) {
+		int proxy = end >>> 1;
+		if (axis == X) {
+			return (end & 1) != 0 ? maxX[proxy] : minX[proxy];
+		}
+		return (end & 1) != 0 ? maxY[proxy] : minY[proxy];
+	}
+	
+	private boolean overlaps(int proxyA, int proxyB) {
+		return minX[proxyA] <= maxX[proxyB] && minX[proxyB] <= maxX[proxyA] &&
+				minY[proxyA] <= maxY[proxyB] && minY[proxyB] <= maxY[proxyA];
+	}
+	
+	private static long key(int a, int b) {
+		return a < b ? (long)a << 32 | b : (long)b << 32 | a;
+	}
+	
+	/**
+	 * Records that two proxies overlap, and begins their objects' pair if it is new.
+	 * Copies of the same object never pair.
+	 * @param proxyA
+	 * @param proxyB
+	 */
+	private void addProxyPair(int proxyA, int proxyB) {
+		int objectA = proxyObject[proxyA], objectB = proxyObject[proxyB];
+		if (objectA == objectB) {
+			return;
+		}
+		long proxyKey = key(proxyA, proxyB);
+		if (proxyPairs.get(proxyKey) >= 0) {
+			return;
+		}
+		
+		proxyPairs.put(proxyKey, 0);
+		
+		long objectKey = key(objectA, objectB);
+		int pair = objectPairs.get(objectKey);
+		if (pair >= 0) {
+			// Another copy of a pair of objects that already overlap
+			pairReferences[pair]++;
+			return;
+		}
+		
+		// A new pair of objects
+		if (pairCount == pairA.length) {
+			pairA = Arrays.copyOf(pairA, 2 * pairCount);
+			pairB = Arrays.copyOf(pairB, 2 * pairCount);
+			pairReferences = Arrays.copyOf(pairReferences, 2 * pairCount);
+		}
+		pair = pairCount++;
+		pairA[pair] = Math.min(objectA, objectB);
+		pairB[pair] = Math.max(objectA, objectB);
+		pairReferences[pair] = 1;
+		objectPairs.put(objectKey, pair);
+		addPartner(objectA, objectB);
+		addPartner(objectB, objectA);
+		if (listener != null) {
+			listener.pairBegan(getPairA(pair), getPairB(pair));
+		}
+	}
+	
+	/**
+	 * Records that two proxies no longer overlap, and ends their objects'
+	 * pair if no other copies overlap.
+	 * @param proxyA
+	 * @param proxyB
+	 */
+	private void removeProxyPair(int proxyA, int proxyB) {
+		if (!proxyPairs.remove(key(proxyA, proxyB))) {
+			return;
+		}
+		long objectKey = key(proxyObject[proxyA], proxyObject[proxyB]);
+		int pair = objectPairs.get(objectKey);
+		if (--pairReferences[pair] > 0) {
+			return;
+		}
+		
+		T a = getPairA(pair), b = getPairB(pair);
+		objectPairs.remove(objectKey);
+		removePartner(pairA[pair], pairB[pair]);
+		removePartner(pairB[pair], pairA[pair]);
+		
+		// Fill the pair's index with the last pair
+		int last = --pairCount;
+		if (pair != last) {
+			pairA[pair] = pairA[last];
+			pairB[pair] = pairB[last];
+			pairReferences[pair] = pairReferences[last];
+			objectPairs.put(key(pairA[pair], pairB[pair]), pair);
+		}
+		
+		if (listener != null) {
+			listener.pairEnded(a, b);
+		}
+	}
+	
+	private void addPartner(int object, int partner) {
+		int count = partnerCount[object];
+		if (partners[object] == null) {
+			partners[object] = new int[4];
+		} else if (count == partners[object].length) {
+			partners[object] = Arrays.copyOf(partners[object], 2 * count);
+		}
+		partners[object][count] = partner;
+		partnerCount[object] = count + 1;
+	}
+	
+	private void removePartner(int object, int partner) {
+		int[] objectPartners = partners[object];
+		int last = --partnerCount[object];
+		for (int i = 0; i <= last; i++) {
+			if (objectPartners[i] == partner) {
+				objectPartners[i] = objectPartners[last];
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Hands out small ids, reusing the ids that are given back.
+	 */
+	private static final class IdPool {
+		private int[] free = new int[16];
+		private int freeCount = 0;
+		private int highWater = 0;
+		
+		int take() {
+			return freeCount > 0 ? free[--freeCount] : highWater++;
+		}
+		
+		void give(int id) {
+			if (freeCount == free.length) {
+				free = Arrays.copyOf(free, 2 * freeCount);
+			}
+			free[freeCount++] = id;
+		}
+		
+		/** Gets one more than the largest id ever handed out. */
+		int getHighWater() {
+			return highWater;
+		}
+	}
+	
+	/**
+	 * A hash table from non-negative long keys to non-negative ints, with
+	 * open addressing, so that it does not allocate once it is big enough.
+	 */
+	private static final class PairTable {
+		private static final long EMPTY = -1L;
+		
+		private long[] keys = newKeys(64);
+		private int[] values = new int[64];
+		private int size = 0;
+		
+		private static long[] newKeys(int capacity) {
+			long[] keys = new long[capacity];
+			Arrays.fill(keys, EMPTY);
+			return keys;
+		}
+		
+		private int slotOf(long key) {
+			long hash = key * 0x9E3779B97F4A7C15L;
+			return (int)(hash >>> 32) & (keys.length - 1);
+		}
+		
+		/** Gets the value of a key, or -1 if it is not in the table. */
+		int get(long key) {
+			int mask = keys.length - 1;
+			for (int slot = slotOf(key); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+				if (keys[slot] == key) {
+					return values[slot];
+				}
+			}
+			return -1;
+		}
+		
+		void put(long key, int value) {
+			if (2 * (size + 1) > keys.length) {
+				grow();
+			}
+			int mask = keys.length - 1;
+			int slot = slotOf(key);
+			while (keys[slot] != EMPTY && keys[slot] != key) {
+				slot = (slot + 1) & mask;
+			}
+			if (keys[slot] == EMPTY) {
+				size++;
+			}
+			keys[slot] = key;
+			values[slot] = value;
+		}
+		
+		/** Removes a key. Returns false if it was not in the table. */
+		boolean remove(long key) {
+			int mask = keys.length - 1;
+			int slot = slotOf(key);
+			while (keys[slot] != key) {
+				if (keys[slot] == EMPTY) {
+					return false;
+				}
+				slot = (slot + 1) & mask;
+			}
+			
+			// Shift back the following entries that would no longer be found
+			int hole = slot;
+			for (int next = (hole + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+				int home = slotOf(keys[next]);
+				if (((next - home) & mask) >= ((next - hole) & mask)) {
+					keys[hole] = keys[next];
+					values[hole] = values[next];
+					hole = next;
+				}
+			}
+			keys[hole] = EMPTY;
+			size--;
+			return true;
+		}
+		
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldValues = values;
+			keys = newKeys(2 * oldKeys.length);
+			values = new int[2 * oldValues.length];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY) {
+					put(oldKeys[i], oldValues[i]);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package physics;
+
+/**
+ * Continuous collision tests for a circle that moves in a straight line
+ * during a tick, e.g. a bullet. Testing only where the circle ends up lets a
+ * fast or small circle pass through a thin object between two ticks; these
+ * tests find the first time in the move at which it touches the object.
+ * 
+ * The other object is treated as still, so for two moving objects pass the
+ * move of the circle relative to the other object. A circle that starts out
+ * touching the object only hits it if it is moving further in.
+ */
+public final class SweptCircle {
+	
+	private SweptCircle() {}
+	
+	/**
+	 * Finds when a moving circle first touches a still circle.
+	 * @param startX
+	 * @param startY The center of the moving circle at the start of the move.
+	 * @param moveX
+	 * @param moveY How far the moving circle moves.
+	 * @param radius The radius of the moving circle.
+	 * @param target The still circle, at its current position and radius.
+	 * @param result Filled with the impact, if there is one.
+	 * @return True if the circles touch during the move.
+	 */
+	public static boolean againstCircle(long startX, long startY, long moveX, long moveY, long radius,
+			PhysicsObject target, Impact result) {
+		final long targetRadius = target.getRadius();
+		final double radiusSum = radius + targetRadius;
+		
+		// Work relative to the still circle
+		double x = startX - target.position.x,
+				y = startY - target.position.y;
+		double c = x * x + y * y - radiusSum * radiusSum;
+		double b = x * moveX + y * moveY;
+		double time;
+		if (c <= 0d) {
+			// Already touching, so it only hits if it is moving closer
+			if (b >= 0d) {
+				return false;
+			}
+			time = 0d;
+		} else {
+			// Solve |start + time * move| = radiusSum for the first time
+			double a = (double)moveX * moveX + (double)moveY * moveY;
+			if (b >= 0d || a == 0d) {
+				return false;
+			}
+			double discriminant = b * b - a * c;
+			if (discriminant < 0d) {
+				return false;
+			}
+			time = (-b - Math.sqrt(discriminant)) / a;
+			if (time > 1d) {
+				return false;
+			}
+		}
+		
+		// The normal points from the still circle's center to the moving one's
+		double centerX = x + time * moveX,
+				centerY = y + time * moveY;
+		double distance = Math.sqrt(centerX * centerX + centerY * centerY);
+		double normalX = distance > 0d ? centerX / distance : 1d,
+				normalY = distance > 0d ? centerY / distance : 0d;
+		
+		result.time = time;
+		result.normal.set(normalX, normalY);
+		result.point.set(target.position.x + (long)(normalX * targetRadius),
+				target.position.y + (long)(normalY * targetRadius));
+		return true;
+	}
+	
+	/**
+	 * Finds when a moving circle first touches a still rotated rectangle.
+	 * @param startX
+	 * @param startY The center of the moving circle at the start of the move.
+	 * @param moveX
+	 * @param moveY How far the moving circle moves.
+	 * @param radius The radius of the moving circle.
+	 * @param target The still rectangle, at its current position and angle.
+	 * @param result Filled with the impact, if there is one.
+	 * @return True if the circle touches the rectangle during the move.
+	 */
+	public static boolean againstRectangle(long startX, long startY, long moveX, long moveY, long radius,
+			RotatableRectanglePhysicsObject target, Impact result) {
+		// Skip the rectangles that are not near the path
+		long reach = radius + target.getRadius();
+		if (Math.min(startX, startX + moveX) - reach > target.position.x ||
+				Math.max(startX, startX + moveX) + reach < target.position.x ||
+				Math.min(startY, startY + moveY) - reach > target.position.y ||
+				Math.max(startY, startY + moveY) + reach < target.position.y) {
+			return false;
+		}
+		return againstBox(startX, startY, moveX, moveY, radius, target.position.x, target.position.y,
+				target.getCos(), target.getSin(), target.size.x, target.size.y, result);
+	}
+	
+	/**
+	 * Finds when a moving circle first touches a still rotated box, given by
+	 * its center, its rotation and its size.
+	 * @param startX
+	 * @param startY The center of the moving circle at the start of the move.
+	 * @param moveX
+	 * @param moveY How far the moving circle moves.
+	 * @param radius The radius of the moving circle.
+	 * @param centerX
+	 * @param centerY The center of the box.
+	 * @param cos
+	 * @param sin The cosine and sine of the box's angle.
+	 * @param halfWidth
+	 * @param halfHeight Half the size of the box, along its own axes.
+	 * @param result Filled with the impact, if there is one.
+	 * @return True if the circle touches the box during the move.
+	 */
+	public static boolean againstBox(long startX, long startY, long moveX, long moveY, long radius,
+			long centerX, long centerY, double cos, double sin, double halfWidth, double halfHeight,
+			Impact result) {
+		// Work in the box's coordinate space, where it is axis aligned
+		double relativeX = startX - centerX,
+				relativeY = startY - centerY;
+		double x = relativeX * cos + relativeY * sin,
+				y = relativeY * cos - relativeX * sin;
+		double dx = moveX * cos + moveY * sin,
+				dy = moveY * cos - moveX * sin;
+		
+		double time, pointX, pointY, normalX, normalY;
+		
+		// The nearest point of the box to the start of the move
+		double nearestX = Math.max(-halfWidth, Math.min(halfWidth, x)),
+				nearestY = Math.max(-halfHeight, Math.min(halfHeight, y));
+		double offsetX = x - nearestX, offsetY = y - nearestY;
+		double distanceSqr = offsetX * offsetX + offsetY * offsetY;
+		if (distanceSqr <= (double)radius * radius) {
+			// Already touching, so it only hits if it is moving further in
+			if (distanceSqr > 0d) {
+				double distance = Math.sqrt(distanceSqr);
+				normalX = offsetX / distance;
+				normalY = offsetY / distance;
+			} else if (halfWidth - Math.abs(x) < halfHeight - Math.abs(y)) {
+				// The center is inside, nearest to a left or right side
+				normalX = x >= 0d ? 1d : -1d;
+				normalY = 0d;
+				nearestX = normalX * halfWidth;
+			} else {
+				// The center is inside, nearest to the top or bottom
+				normalX = 0d;
+				normalY = y >= 0d ? 1d : -1d;
+				nearestY = normalY * halfHeight;
+			}
+			if (dx * normalX + dy * normalY >= 0d) {
+				return false;
+			}
+			time = 0d;
+			pointX = nearestX;
+			pointY = nearestY;
+		} else {
+			// Find where the center enters the box grown by the radius
+			double enter = 0d, exit = 1d;
+			boolean enterX = false;
+			double outerWidth = halfWidth + radius, outerHeight = halfHeight + radius;
+			if (dx != 0d) {
+				double t0 = (-outerWidth - x) / dx, t1 = (outerWidth - x) / dx;
+				if (t0 > t1) {
+					double swap = t0;
+					t0 = t1;
+					t1 = swap;
+				}
+				if (t0 > enter) {
+					enter = t0;
+					enterX = true;
+				}
+				exit = Math.min(exit, t1);
+			} else if (Math.abs(x) > outerWidth) {
+				return false;
+			}
+			if (dy != 0d) {
+				double t0 = (-outerHeight - y) / dy, t1 = (outerHeight - y) / dy;
+				if (t0 > t1) {
+					double swap = t0;
+					t0 = t1;
+					t1 = swap;
+				}
+				if (t0 > enter) {
+					enter = t0;
+					enterX = false;
+				}
+				exit = Math.min(exit, t1);
+			} else if (Math.abs(y) > outerHeight) {
+				return false;
+			}
+			if (enter > exit) {
+				return false;
+			}
+			
+			double hitX = x + enter * dx, hitY = y + enter * dy;
+			if (Math.abs(hitX) > halfWidth && Math.abs(hitY) > halfHeight) {
+				// The grown box has round corners, so test against the circle
+				// around the corner. Missing it misses the box.
+				double cornerX = hitX > 0d ? halfWidth : -halfWidth,
+						cornerY = hitY > 0d ? halfHeight : -halfHeight;
+				double fromCornerX = x - cornerX, fromCornerY = y - cornerY;
+				double a = dx * dx + dy * dy,
+						b = fromCornerX * dx + fromCornerY * dy,
+						c = fromCornerX * fromCornerX + fromCornerY * fromCornerY - (double)radius * radius;
+				double discriminant = b * b - a * c;
+				if (b >= 0d || discriminant < 0d) {
+					return false;
+				}
+				time = (-b - Math.sqrt(discriminant)) / a;
+				if (time > 1d) {
+					return false;
+				}
+				normalX = (fromCornerX + time * dx) / radius;
+				normalY = (fromCornerY + time * dy) / radius;
+				pointX = cornerX;
+				pointY = cornerY;
+			} else {
+				// A flat side
+				time = enter;
+				if (enterX) {
+					normalX = hitX > 0d ? 1d : -1d;
+					normalY = 0d;
+				} else {
+					normalX = 0d;
+					normalY = hitY > 0d ? 1d : -1d;
+				}
+				pointX = hitX - normalX * radius;
+				pointY = hitY - normalY * radius;
+			}
+		}
+		
+		// Rotate back into world space
+		result.time = time;
+		result.normal.set(normalX * cos - normalY * sin, normalX * sin + normalY * cos);
+		result.point.set(centerX + (long)(pointX * cos - pointY * sin),
+				centerY + (long)(pointX * sin + pointY * cos));
+		return true;
+	}
+}
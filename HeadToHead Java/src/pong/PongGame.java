@@ -0,0 +1,255 @@
+package pong;
+
+import button.IButton;
+import headtohead.HeadToHeadGame;
+import headtohead.MatchRandom;
+import headtohead.Player;
+import headtohead.WorldSnapshot;
+
+/**
+ * A very bad Pong implementation for API testing.
+ * PongGameCanvas draws it.
+ * 
+ * @author Thomas
+ * 
+ */
+public class PongGame extends HeadToHeadGame {
+	
+	// Paddles
+	private Paddle[] paddles;
+	final int paddleWidth = 25;
+	final int paddleHeight = 4;
+	final int paddleSpeed = 4;
+	
+	// Ball
+	static final int ballSize = 9;
+	private int xBall = 0, yBall = 0,
+			vxBall = 0, vyBall = 0;
+	
+	// Serve
+	int server = 0;
+	boolean ballOnPaddle = false;
+	
+	// Positions in the previous snapshot, for interpolation
+	private int[] snapshotPaddleX;
+	private int snapshotXBall, snapshotYBall;
+	
+	public PongGame() {
+		super(160);
+		
+		// Create the paddles
+		paddles = new Paddle[2];
+		paddles[0] = new Paddle(0, 20, paddleWidth, paddleHeight);
+		paddles[1] = new Paddle(0, getGameHeightPixels() - 20 - paddleHeight, paddleWidth, paddleHeight);
+		
+		snapshotPaddleX = new int[paddles.length];
+	}
+	
+	@Override
+	public void newGame() {
+		super.newGame();
+		
+		// Center the paddles
+		for (int i = 0; i < paddles.length; i++) {
+			paddles[i].x = (getGameWidthPixels() - paddles[i].w) / 2;
+		}
+		
+		newRound();
+		
+		// Reset player scores
+		for (Player player : players) {
+			player.score = 0;
+		}
+	}
+	
+	@Override
+	public void newRound() {
+		// Put the ball on the server's paddle
+		putBallOnServerPaddle();
+		players[server].getButton(1).resetPressCounter();
+		
+		// Center the ball
+		// xBall = (gameWidth - ballSize) / 2;
+		// yBall = (gameHeight - ballSize) / 2;
+		
+		// DEBUG
+		// Start the ball moving
+		// Random random = new Random();
+		// vxBall = (random.nextBoolean() ? 1 : -1) * (random.nextInt(3) + 1);
+		// vyBall = (random.nextBoolean() ? 1 : -1) * (random.nextInt(3) + 2);
+	}
+	
+	@Override
+	public long getPhysicsTickNanos() {
+		return 33333333L;	// 30 ticks per second
+	}
+	
+	private void putBallOnServerPaddle() {
+		xBall = paddles[server].x + (paddles[server].w - ballSize) / 2;
+		if (server == 0) {
+			yBall = paddles[0].h + paddles[0].h;
+		} else {
+			yBall = paddles[1].y - ballSize;
+		}
+		ballOnPaddle = true;
+	}
+	
+	@Override
+	public void physicsTick() {
+		super.physicsTick();
+		
+		// Move the paddles
+		for (int i = 0; i < players.length; i++) {
+			boolean leftPressed = players[i].getButton(0).isPressed(),
+					rightPressed = players[i].getButton(2).isPressed();
+			
+			if (leftPressed ^ rightPressed) {
+				paddles[i].x += rightPressed ? paddleSpeed : -paddleSpeed;
+			}
+			
+			// Stay on screen
+			paddles[i].x = Math.max(0,
+					Math.min(paddles[i].x, getGameWidthPixels() - paddles[i].w));
+		}
+		
+		// Move the ball
+		if (ballOnPaddle) {
+			putBallOnServerPaddle();
+		} else {
+			xBall += vxBall;
+			yBall += vyBall;
+		}
+		
+		// Serve
+		if (ballOnPaddle) {
+			IButton serveButton = players[server].getButton(1);
+			if (serveButton.getPressCounter() > 0) {
+				ballOnPaddle = false;
+				
+				// Set ball x speed
+				boolean leftPressed = players[server].getButton(0).isPressed(),
+						rightPressed = players[server].getButton(2).isPressed();
+				vxBall = (leftPressed ? -paddleSpeed : 0) + (rightPressed ? paddleSpeed : 0);
+				
+				// Set ball y speed
+				int direction = server == 0 ? 1 : -1;
+				vyBall = direction * (serveButton.getPressCounter() + 1);
+			}
+		}
+		
+		// Bounce
+		if (xBall <= 0) {
+			xBall = 0;
+			vxBall = Math.abs(vxBall);
+		} else if ((xBall + ballSize) >= getGameWidthPixels()) {
+			xBall = getGameWidthPixels() - ballSize;
+			vxBall = -Math.abs(vxBall);
+		}
+		
+		// Collision detection
+		
+		int yOverlap = paddles[0].y + paddles[0].h - yBall;
+		int leftOverlap = xBall + ballSize - paddles[0].x;
+		int rightOverlap = paddles[0].x + paddles[0].w - xBall;
+		
+		if (yOverlap >= 0) {
+			// Ball might be touching top paddle
+			
+			// TODO Make functions for these
+			final boolean centerHit = leftOverlap >= ballSize && rightOverlap >= ballSize;
+			final boolean leftHit = leftOverlap >= 0 && leftOverlap < ballSize;
+			final boolean rightHit = rightOverlap >= 0 && rightOverlap < ballSize;
+			
+			// Bounce vertically off top paddle
+			if (leftHit || centerHit || rightHit) {
+				yBall = paddles[0].y + paddles[0].h;
+				vyBall = Math.abs(vyBall);
+				
+				// Randomly change x speed
+				// TODO Apply spin if paddle is moving
+				vxBall += random.get(MatchRandom.Stream.BALL).nextInt(3) - 1;
+			} else if (yBall < paddles[0].y + paddles[0].h) {
+				// Doomed
+			}
+			
+			// Bounce off left side of top paddle
+			if (vxBall > 0 && leftHit) {
+				xBall = paddles[0].x - ballSize;
+				vxBall = -Math.abs(vxBall);
+			}
+			
+			// Bounce off right side of top paddle
+			if (vxBall < 0 && rightHit) {
+				xBall = paddles[0].x + paddles[0].w;
+				vxBall = Math.abs(vxBall);
+			}
+			
+		} else if (yBall + ballSize >= paddles[1].y) {
+			// Ball might be touching bottom paddle
+			if (xBall + ballSize >= paddles[1].x && xBall <= paddles[1].x + paddles[1].w) {
+				// Bounce off bottom paddle
+				// TODO Make corner-to-corner bounce reverse vxBall
+				yBall = paddles[1].y - ballSize;
+				vyBall = -Math.abs(vyBall);
+				
+				// Randomly change x speed
+				vxBall += random.get(MatchRandom.Stream.BALL).nextInt(3) - 1;
+			}
+		}
+		
+		// Point
+		boolean player0Lost = yBall <= 0;
+		boolean player1Lost = yBall + ballSize >= getGameHeightPixels();
+		if (player0Lost) {
+			server = 1;
+			players[1].score++;
+			yBall = 0;
+		} else if (player1Lost) {
+			server = 0;
+			players[0].score++;
+			yBall = getGameHeightPixels() - ballSize;
+		}
+		if (player0Lost || player1Lost) {
+			// vxBall = 0;
+			// vyBall = 0;
+			newRound();
+		}
+	}
+	
+	@Override
+	protected WorldSnapshot createSnapshot() {
+		return new PongSnapshot(players.length);
+	}
+	
+	@Override
+	protected void captureSnapshot(WorldSnapshot worldSnapshot) {
+		PongSnapshot snapshot = (PongSnapshot)worldSnapshot;
+		
+		// Paddles
+		for (int i = 0; i < paddles.length; i++) {
+			snapshot.paddleX[i] = paddles[i].x;
+			snapshot.previousPaddleX[i] = snapshotPaddleX[i];
+			snapshot.paddleY[i] = paddles[i].y;
+			snapshot.paddleW[i] = paddles[i].w;
+			snapshot.paddleH[i] = paddles[i].h;
+			snapshotPaddleX[i] = paddles[i].x;
+		}
+		
+		// Ball
+		snapshot.xBall = xBall;
+		snapshot.yBall = yBall;
+		snapshot.previousXBall = snapshotXBall;
+		snapshot.previousYBall = snapshotYBall;
+		snapshotXBall = xBall;
+		snapshotYBall = yBall;
+		
+		for (int i = 0; i < players.length; i++) {
+			snapshot.scores[i] = players[i].score;
+		}
+	}
+	
+	@Override
+	protected int[] getLeftHandedButtonRemap() {
+		return null;
+	}
+}
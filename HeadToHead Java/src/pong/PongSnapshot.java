@@ -0,0 +1,37 @@
+package pong;
+
+import headtohead.WorldSnapshot;
+
+/**
+ * Everything needed to draw a frame of Pong.
+ */
+public class PongSnapshot extends WorldSnapshot {
+	
+	// Paddles
+	protected final int[] paddleX, previousPaddleX, paddleY, paddleW, paddleH;
+	
+	// Ball
+	protected int xBall, yBall, previousXBall, previousYBall;
+	
+	protected final int[] scores;
+	
+	public PongSnapshot(int playerCount) {
+		paddleX = new int[playerCount];
+		previousPaddleX = new int[playerCount];
+		paddleY = new int[playerCount];
+		paddleW = new int[playerCount];
+		paddleH = new int[playerCount];
+		scores = new int[playerCount];
+	}
+	
+	/**
+	 * Interpolates between two pixel positions.
+	 * @param previous
+	 * @param current
+	 * @param alpha
+	 * @return
+	 */
+	protected static int interpolate(int previous, int current, double alpha) {
+		return (int)Math.round(previous + alpha * (current - previous));
+	}
+}
@@ -0,0 +1,25 @@
+package sound;
+
+/**
+ * Receives the sounds requested by a game. The game requests sounds during a
+ * physics tick and plays them all at the end of the tick.
+ */
+public interface ISoundSink {
+	
+	/**
+	 * Requests that a sound be played at the end of this tick.
+	 * 
+	 * @param soundName
+	 */
+	public void request(SoundName soundName);
+	
+	/**
+	 * Forgets all the requests made since the last call to playRequestedSounds().
+	 */
+	public void clearRequests();
+	
+	/**
+	 * Plays all the requested sounds and clears the requests.
+	 */
+	public void playRequestedSounds();
+}
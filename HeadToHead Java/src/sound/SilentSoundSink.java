@@ -0,0 +1,16 @@
+package sound;
+
+/**
+ * A sound sink that ignores all requests, for running games without audio.
+ */
+public class SilentSoundSink implements ISoundSink {
+	
+	@Override
+	public void request(SoundName soundName) {}
+	
+	@Override
+	public void clearRequests() {}
+	
+	@Override
+	public void playRequestedSounds() {}
+}
@@ -2,7 +2,7 @@ package sound;
 
 import java.net.URL;
 
-public class SoundPlayer {
+public class SoundPlayer implements ISoundSink {
 	
 	private boolean[] soundRequests;
 	
@@ -26,16 +26,19 @@ public class SoundPlayer {
 		this.soundOn = soundOn;
 	}
 	
+	@Override
 	public void clearRequests() {
 		for (int i = 0; i < soundRequests.length; i++) {
 			soundRequests[i] = false;
 		}
 	}
 	
+	@Override
 	public void request(SoundName soundName) {
 		if (soundOn) soundRequests[soundName.ordinal()] = true;
 	}
 	
+	@Override
 	public void playRequestedSounds() {
 		if (!soundOn) {
 			clearRequests();
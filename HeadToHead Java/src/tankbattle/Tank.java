@@ -1,9 +1,8 @@
 package tankbattle;
 
 import java.awt.Polygon;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Random;
+import java.util.SplittableRandom;
 
 import blasteroids.Bullet;
 import blasteroids.Fragment;
@@ -14,6 +13,7 @@ import headtohead.IOwnable;
 import headtohead.IScorable;
 import headtohead.Player;
 import physics.IPolygon;
+import physics.ObjectPool;
 import physics.PhysicsConstants;
 import physics.RotatableRectanglePhysicsObject;
 
@@ -48,9 +48,10 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 	 * Gets a bullet moving at this spaceship's heading angle relative to this
 	 * spaceship.
 	 * 
-	 * @return
+	 * @param bulletPool The pool to take the bullet from.
+	 * @return The bullet, or null if the tank is out of ammo.
 	 */
-	public Bullet shoot() {
+	public Bullet shoot(ObjectPool<Bullet> bulletPool) {
 		// Can't shoot if out of ammo
 		if (ammo <= 0) {
 			return null;
@@ -62,11 +63,13 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 		if (DebugMode.isEnabled() && ammo == 0) ammo = 1;
 		
 		// Starting position is front of tank + 1.5 * bullet radius
-		Bullet bullet = new Bullet(owner);
-		Vector2D forwardUnit = new Vector2D(1d, angle, true);
-		bullet.position = this.position.sum(forwardUnit.scalarProduct(
-				size.x + 1.5d * bullet.getRadius()));
-		bullet.velocity = this.velocity.sum(forwardUnit.scalarProduct(bulletSpeed));
+		Bullet bullet = bulletPool.acquire();
+		bullet.setOwner(owner);
+		final double offset = size.x + 1.5d * bullet.getRadius();
+		bullet.position.set(position.x + (long)(offset * getCos()),
+				position.y + (long)(offset * getSin()));
+		bullet.velocity.set(velocity.x + bulletSpeed * getCos(),
+				velocity.y + bulletSpeed * getSin());
 		return bullet;
 	}
 	
@@ -97,6 +100,11 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 	
 	@Override
 	public Polygon getOutline(long extrapolateTime) {
+		return getOutline(IPolygon.extrapolatePosition(this, extrapolateTime), angle);
+	}
+	
+	@Override
+	public Polygon getOutline(Vector2DLong outlinePosition, double outlineAngle) {
 		
 		final Vector2D corner2 = new Vector2D(size.x, 0.6d * size.y),
 				corner1 = new Vector2D(0.85d * corner2.x, corner2.y);
@@ -119,45 +127,43 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 		
 		// TODO Clean up this redundant garbage
 		
-		Vector2DLong outlinePosition = IPolygon.extrapolatePosition(this, extrapolateTime);
-		
 		Vector2DLong[] outlineVectors = new Vector2DLong[] {
 				outlinePosition.sum(new Vector2DLong(
-						barrelBaseRadius, angle - barrelBaseAngle, true)),	// Barrel
+						barrelBaseRadius, outlineAngle - barrelBaseAngle, true)),	// Barrel
 				outlinePosition.sum(new Vector2DLong(
-						barrelEndRadius, angle - barrelEndAngle, true)),
+						barrelEndRadius, outlineAngle - barrelEndAngle, true)),
 				outlinePosition.sum(new Vector2DLong(
-						barrelEndRadius, angle + barrelEndAngle, true)),
+						barrelEndRadius, outlineAngle + barrelEndAngle, true)),
 				outlinePosition.sum(new Vector2DLong(
-						barrelBaseRadius, angle + barrelBaseAngle, true)),
+						barrelBaseRadius, outlineAngle + barrelBaseAngle, true)),
 				
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius1, angle + cornerAngle1, true)),	// Front left
+						cornerRadius1, outlineAngle + cornerAngle1, true)),	// Front left
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius2, angle + cornerAngle2, true)),
+						cornerRadius2, outlineAngle + cornerAngle2, true)),
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius3, angle + cornerAngle3, true)),
+						cornerRadius3, outlineAngle + cornerAngle3, true)),
 				
 				outlinePosition.sum(new Vector2DLong(new Vector2D(
-						cornerRadius3, angle + Math.PI - cornerAngle3, true))),	// Rear left
+						cornerRadius3, outlineAngle + Math.PI - cornerAngle3, true))),	// Rear left
 				outlinePosition.sum(new Vector2DLong(new Vector2D(
-						cornerRadius2, angle + Math.PI - cornerAngle2, true))),
+						cornerRadius2, outlineAngle + Math.PI - cornerAngle2, true))),
 				outlinePosition.sum(new Vector2DLong(new Vector2D(
-						cornerRadius1, angle + Math.PI - cornerAngle1, true))),
+						cornerRadius1, outlineAngle + Math.PI - cornerAngle1, true))),
 				
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius1, angle + Math.PI + cornerAngle1, true)),	// Rear right
+						cornerRadius1, outlineAngle + Math.PI + cornerAngle1, true)),	// Rear right
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius2, angle + Math.PI + cornerAngle2, true)),
+						cornerRadius2, outlineAngle + Math.PI + cornerAngle2, true)),
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius3, angle + Math.PI + cornerAngle3, true)),
+						cornerRadius3, outlineAngle + Math.PI + cornerAngle3, true)),
 				
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius3, angle - cornerAngle3, true)),	// Front right
+						cornerRadius3, outlineAngle - cornerAngle3, true)),	// Front right
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius2, angle - cornerAngle2, true)),
+						cornerRadius2, outlineAngle - cornerAngle2, true)),
 				outlinePosition.sum(new Vector2DLong(
-						cornerRadius1, angle - cornerAngle1, true)) };
+						cornerRadius1, outlineAngle - cornerAngle1, true)) };
 		
 		return IPolygon.vectorsToPolygon(outlineVectors);
 	}
@@ -165,23 +171,24 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 	/**
 	 * Gets the pieces that this ship would break into if it just died.
 	 * The ship is broken from its center to the midpoint of each edge.
-	 * @return
+	 * @param random
+	 * @param fragmentPool The pool to take the fragments from.
+	 * @param fragments The fragments are added to this.
 	 */
-	public Collection<Fragment> getFragments() {
+	public void addFragments(SplittableRandom random, ObjectPool<Fragment> fragmentPool,
+			Collection<Fragment> fragments) {
 		// Create arrays
 		Vector2DLong[] shipOutline = getOutlineVectors(0);
 		Vector2DLong[] shipOutlineMidpoints = new Vector2DLong[shipOutline.length];
-		Collection<Fragment> fragments = new ArrayList<Fragment>(shipOutline.length + 1);
 		
 		// The proportional speed at which fragments move away from the tank center
 		final double fragmentSplitSpeedMax = PhysicsConstants.integral(5d);
 		final double fragmentRotationSpeedMax = PhysicsConstants.angularVelocity(10d);
 		
-		Random random = new Random();
-		
 		// Create a little man-shaped fragment
 		double headAngle = this.angle + Math.PI;
-		Fragment fragmentMan = new Fragment(new Vector2DLong[] {
+		Fragment fragmentMan = fragmentPool.acquire();
+		fragmentMan.set(new Vector2DLong[] {
 				this.position,	// Shoulder
 				this.position.sum(new Vector2DLong(
 						PhysicsConstants.distance(2d), headAngle, true)),	// Head
@@ -221,7 +228,8 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 		
 		// Create fragments
 		for (int i = 0; i < shipOutline.length; i++) {
-			Fragment fragment = new Fragment(new Vector2DLong[] {
+			Fragment fragment = fragmentPool.acquire();
+			fragment.set(new Vector2DLong[] {
 					this.position,
 					shipOutlineMidpoints[i],
 					shipOutline[i],
@@ -236,8 +244,6 @@ public class Tank extends RotatableRectanglePhysicsObject implements IOwnable, I
 			
 			fragments.add(fragment);
 		}
-		
-		return fragments;
 	}
 	
 	@Override
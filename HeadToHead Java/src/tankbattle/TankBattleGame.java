@@ -0,0 +1,992 @@
+package tankbattle;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import blasteroids.Bullet;
+import blasteroids.Fragment;
+import blasteroids.ScoreMarker;
+import geometry.Vector2D;
+import geometry.Vector2DLong;
+import headtohead.HeadToHeadGame;
+import headtohead.IOwnable;
+import headtohead.IScorable;
+import headtohead.MatchRandom;
+import headtohead.Player;
+import headtohead.TimingWheel;
+import headtohead.WorldSnapshot;
+import physics.AgedRing;
+import physics.Broadphase;
+import physics.CollisionBuffer;
+import physics.Impact;
+import physics.Integrator;
+import physics.Penetration;
+import physics.PhysicsConstants;
+import physics.PhysicsObject;
+import physics.RectangleTree;
+import physics.SeparatingAxisCache;
+import physics.SweepAndPrune;
+import physics.SweptCircle;
+import sound.SoundName;
+
+/**
+ * The Tank Battle simulation. TankBattleGameCanvas draws it.
+ */
+public class TankBattleGame extends HeadToHeadGame {
+	
+	// Physics constants
+	private static final int gameTimerFPS = 60;
+	private static final double tankMaxSpeed = PhysicsConstants.velocity(70d);
+	private static final double tankThrust = PhysicsConstants.acceleration(180d);
+	private static final double tankDrag = PhysicsConstants.integral(2d);
+	private static final double tankSteeringAccel = PhysicsConstants.angularAcceleration(8d);
+	private static final double tankSteeringDrag = PhysicsConstants.integral(6d);
+	private static final double bulletMaxAge = PhysicsConstants.time(3.333d);
+	
+	@Override
+	public long getPhysicsTickNanos() {
+		return Math.round(1e9d / gameTimerFPS);
+	}
+	
+	// Physics objects
+	protected Tank[] tanks;
+	protected List<Wall> walls;
+	protected AgedRing<Bullet> bullets;
+	protected List<Fragment> fragments;
+	
+	// Pools of the short-lived objects, so that shooting and dying do not create garbage
+	private final Bullet.Pool bulletPool = new Bullet.Pool();
+	private final Fragment.Pool fragmentPool = new Fragment.Pool();
+	private final ScoreMarker.Pool scoreMarkerPool = new ScoreMarker.Pool();
+	
+	// Continuous collision
+	private final Impact impact = new Impact(), firstImpact = new Impact();
+	
+	/** Scratch space for pushing tanks out of walls. */
+	private final Penetration penetration = new Penetration();
+	/** The axes that last separated each tank from the walls and the other tanks. */
+	private final SeparatingAxisCache axisCache = new SeparatingAxisCache();
+	
+	// Broadphase
+	private Broadphase broadphase = Broadphase.TREE;
+	/** The walls of the round, baked when the round starts. */
+	private final RectangleTree<Wall> wallTree = new RectangleTree<Wall>();
+	/** Holds the walls, bullets and live tanks when sweep and prune is used. */
+	private final SweepAndPrune<PhysicsObject> sweep;
+	private final List<Tank> liveTanks = new ArrayList<Tank>();
+	private Wall[] firstWalls = new Wall[16];
+	private double[] firstImpactTimes = new double[16];
+	private final List<Tank> hitTanks = new ArrayList<Tank>();
+	
+	// Collisions found by the detection passes, for the resolve passes to act on
+	private final CollisionBuffer collisions = new CollisionBuffer();
+	/** The slots of the bullets that have hit something, so that each bullet hits once. */
+	private final BitSet hitBulletSlots = new BitSet();
+	
+	// Game timing
+	static final int roundStartTicks = gameTimerFPS;
+	private long roundStartTick;
+	static final int roundOverTicks = (int)(2d * gameTimerFPS);
+	static final int gameOverTicks = roundOverTicks + (int)(2.5d * gameTimerFPS);
+	static final int roundsPerGame = 3;
+	/** The tick on which the round ended, or -1 if it is not over. */
+	private long roundOverTick;
+	private int round;
+	private final TimingWheel.Entry roundOverTimer = new TimingWheel.Entry(new Runnable() {
+		@Override
+		public void run() {
+			roundOverTimeElapsed();
+		}
+	});
+	private final TimingWheel.Entry gameOverTimer = new TimingWheel.Entry(new Runnable() {
+		@Override
+		public void run() {
+			// Game over time has elapsed
+			endGame();
+		}
+	});
+	
+	// Buttons
+	protected final int BUTTON_LEFT = 0, BUTTON_SHOOT = 1, BUTTON_RIGHT = 2;
+	protected int[] lastShotCounters;
+	protected boolean[] shootWasPressed;
+	
+	// Score/text
+	private static final int scoreMarkerTicks = (int)(0.5d * gameTimerFPS);
+	/** Ephemeral markers that show points as they are earned. */
+	protected AgedRing<ScoreMarker> scoreMarkers;
+	/** Permanent markers that show each player's score. */
+	protected List<ScoreMarker> playerScoreMarkers;
+	
+	public TankBattleGame() {
+		super(400);
+		
+		// Create lists
+		tanks = new Tank[players.length];
+		walls = new ArrayList<Wall>();
+		bullets = new AgedRing<Bullet>();
+		fragments = new ArrayList<Fragment>();
+		
+		Bullet.setRadius(PhysicsConstants.distance(2d));
+		
+		lastShotCounters = new int[players.length];
+		shootWasPressed = new boolean[players.length];
+		
+		scoreMarkers = new AgedRing<ScoreMarker>();
+		
+		// The walls stop things at the edges, so the world does not wrap
+		sweep = new SweepAndPrune<PhysicsObject>(getGameWidthPhysics(), getGameHeightPhysics(), false);
+	}
+	
+	/**
+	 * Supports TREE, the default, NESTED_LOOPS and SWEEP_AND_PRUNE.
+	 */
+	@Override
+	public boolean setBroadphase(Broadphase broadphase) {
+		switch (broadphase) {
+			case TREE:
+			case NESTED_LOOPS:
+			case SWEEP_AND_PRUNE:
+				break;
+			default:
+				return false;
+		}
+		sweep.clear();
+		this.broadphase = broadphase;
+		return true;
+	}
+	
+	@Override
+	protected void initializePlayers() {
+		super.initializePlayers();
+		
+		players[0].setColor(new Color(0x00c0ff));
+		
+		// Create score markers
+		playerScoreMarkers = new ArrayList<ScoreMarker>();
+		for (int i = 0; i < players.length; i++) {
+			Player player = players[i];
+			
+			Vector2DLong position1 = new Vector2DLong(
+					(i != 0 ? 0.07d : 0.93d) * getGameWidthPhysics(),
+					(i != 0 ? 0.90d : 0.10d) * getGameHeightPhysics());
+			playerScoreMarkers.add(new ScoreMarker(String.valueOf(0),
+					position1, player, isPlayerInverted(player)));
+			
+			Vector2DLong position2 = new Vector2DLong(
+					(i != 0 ? 0.93d : 0.07d) * getGameWidthPhysics(),
+					(i != 0 ? 0.10d : 0.90d) * getGameHeightPhysics() + (i != 0 ? 15 : -15));
+			playerScoreMarkers.add(new ScoreMarker(String.valueOf(0),
+					position2, player, !isPlayerInverted(player)));
+		}
+	}
+	
+	@Override
+	protected int[] getLeftHandedButtonRemap() {
+		return new int[] { 0, 1, 2 };
+	}
+	
+	@Override
+	public void newGame() {
+		super.newGame();
+		
+		// Reset the objects for a new round
+		round = 0;
+		newRound();
+		
+		// Reset player scores
+		for (Player player : players) {
+			setPlayerScore(player, 0);
+		}
+		
+		// Reset all button press counters
+		for (Player player : players) {
+			player.getInputSource().resetPressCounters();
+		}
+	}
+	
+	@Override
+	public void newRound() {
+		// Create player ships
+		if (players.length >= 1) {
+			Tank player0Tank = new Tank(0.25d * 2d * Math.PI, players[0]);
+			player0Tank.position.x = getGameWidthPhysics() / 2;
+			player0Tank.position.y = getGameHeightPhysics() / 10;
+			tanks[0] = player0Tank;
+		}
+		
+		if (players.length >= 2) {
+			Tank player1Tank = new Tank(0.75d * 2d * Math.PI, players[1]);
+			player1Tank.position.x = getGameWidthPhysics() / 2;
+			player1Tank.position.y = getGameHeightPhysics() * 9 / 10;
+			tanks[1] = player1Tank;
+		}
+		
+		// Reset shot counters
+		for (int i = 0; i < players.length; i++) {
+			players[i].getButton(BUTTON_SHOOT).resetPressCounter();
+			lastShotCounters[i] = 0;
+		}
+		
+		// Clear lists
+		walls.clear();
+		axisCache.clear();
+		bulletPool.releaseAll(bullets);
+		fragmentPool.releaseAll(fragments);
+		sound.clearRequests();
+		scoreMarkerPool.releaseAll(scoreMarkers);
+		
+		// Place walls
+		createWalls();
+		bakeWalls();
+		
+		// Reset the round timers
+		roundOverTimer.cancel();
+		gameOverTimer.cancel();
+		roundStartTick = timers.getTick();
+		roundOverTick = -1;
+		
+		round++;
+	}
+	
+	/**
+	 * Rebuilds the tree over the walls. The walls do not move during a round,
+	 * so this is only needed when they are created.
+	 */
+	void bakeWalls() {
+		wallTree.build(walls);
+	}
+	
+	private void createWalls() {
+		SplittableRandom random = this.random.get(MatchRandom.Stream.LAYOUT);
+		
+		final int MINIMUM_WALLS = 15;
+		final long wallLength = PhysicsConstants.distance(100),
+				wallWidth = PhysicsConstants.distance(10),
+				wallSpacing = (wallLength - wallWidth) / 2;
+		final long clearance = PhysicsConstants.distance(100);
+		
+		do {
+			// Create building
+			// Choose a random position, not too close to any tanks
+			Vector2DLong buildingCenter = randomPositionNotNearObjects(random, clearance, tanks);
+			
+			// Rotate the building randomly
+			int angleIndex = random.nextInt(6);
+			double buildingAngle = angleIndex * Math.PI / 6d;
+			
+			// Create walls
+			for (int i = 0; i < 3; i++) {
+				Wall wall = new Wall(random.nextDouble() < 0.30d ? wallLength / 2 : wallLength, wallWidth);
+				double angle = buildingAngle + i * Math.PI / 2d;
+				wall.position = buildingCenter.sum(
+						new Vector2D(wallSpacing, angle, true));
+				wall.angle = angle + Math.PI / 2d;
+				walls.add(wall);
+			}
+			
+		} while (walls.size() < MINIMUM_WALLS);
+	}
+	
+	/**
+	 * Returns true if any button's press counter is greater than zero.
+	 * 
+	 * @return
+	 */
+	@SuppressWarnings("unused")
+	private boolean wasAnyButtonPressed() {
+		for (Player player : players) {
+			for (int i = 0; i < 3; i++) {
+				if (player.getButton(i).getPressCounter() > 0) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+	
+	@Override
+	public void physicsTick() {
+		try {
+			super.physicsTick();
+			
+			// Do the game tick
+			if (!isRoundOver()) {
+				physicsTickAlive();
+				
+				// Start the round over timer if someone died during this tick
+				if (isRoundOver()) {
+					roundOverTick = timers.getTick();
+					timers.schedule(roundOverTimer, roundOverTicks);
+				}
+			} else {
+				physicsTickDead();
+			}
+			
+			// Play all the sounds that were requested during this tick
+			sound.playRequestedSounds();
+		} catch (Exception ex) {
+			ex.printStackTrace();
+			newGame();
+		}
+	}
+	
+	/**
+	 * The normal game tick.
+	 */
+	private void physicsTickAlive() {
+		final long deltaTime = getDeltaTime();
+		
+		// Physics stuff
+		setThrusts();
+		moveEverything(deltaTime);
+		shootBullets();
+		
+		collideTankToWall();
+		collideTankToTank();
+		collideBulletToWall(deltaTime);
+		collideBulletToTank();
+	}
+	
+	/**
+	 * The game tick after someone has died.
+	 */
+	private void physicsTickDead() {
+		// Everything moves in slow motion
+		final long deltaTime = getDeltaTime() / 4;
+		
+		// Physics stuff
+		setThrusts();
+		moveEverything(deltaTime);
+		shootBullets();
+		
+		collideTankToWall();
+		collideBulletToWall(deltaTime);
+	}
+	
+	/**
+	 * Starts the next round, or the end of the game, once the round over
+	 * time has elapsed.
+	 */
+	private void roundOverTimeElapsed() {
+		if (demoMode) {
+			// Start a new game for demo mode
+			newGame();
+			return;
+		}
+		
+		// It's not the final round if the scores are tied
+		boolean finalRound = round >= roundsPerGame &&
+				players.length >= 2 && !(players[0].score == players[1].score);
+		
+		if (finalRound) {
+			// Play the game over sound, and end the game after the game over time
+			sound.request(SoundName.GAMEOVER);
+			timers.schedule(gameOverTimer, gameOverTicks - roundOverTicks);
+		} else {
+			newRound();
+		}
+	}
+	
+	private void setThrusts() {
+		// Read buttons, set spaceship thrusts
+		for (int i = 0; i < players.length; i++) {
+			Player player = players[i];
+			
+			// Apply drag always
+			tanks[i].velocity.scalarProduct(-tankDrag, tanks[i].acceleration);
+			tanks[i].angularAcceleration = -tanks[i].angularVelocity * tankSteeringDrag;
+			
+			// Skip if dead
+			if (!tanks[i].isAlive()) {
+				continue;
+			}
+			
+			// Get skid steer button presses
+			boolean leftPressed = player.getButton(BUTTON_LEFT).isPressed();
+			boolean rightPressed = player.getButton(BUTTON_RIGHT).isPressed();
+			
+			if (leftPressed) {
+				if (rightPressed) {
+					// Forward
+					tanks[i].acceleration.addPolar(tankThrust, tanks[i].angle);
+				} else {
+					// Left
+					// tanks[i].angle -= Math.PI / stepsPerHalfTurn;
+					tanks[i].angularAcceleration -= tankSteeringAccel;
+				}
+			} else {
+				if (rightPressed) {
+					// Right
+					// tanks[i].angle += Math.PI / stepsPerHalfTurn;
+					tanks[i].angularAcceleration += tankSteeringAccel;
+				} else {
+					// Stop
+				}
+			}
+			
+			// Rotate velocity so that the tanks can't slide sideways
+			/*Vector2D unit = new Vector2D(1d, tanks[i].angle, true);
+			double velocityMagnitude = tanks[i].velocity.dotProduct(unit);
+			tanks[i].velocity = new Vector2D(velocityMagnitude, tanks[i].angle, true);*/
+			tanks[i].velocity.setAngle(tanks[i].angle);
+		}
+	}
+	
+	private void moveEverything(long deltaTime) {
+		// Move all tanks
+		for (Tank tank : tanks) {
+			tank.move(deltaTime);
+			
+			// Clamp the speed
+			if (tank.velocity.length() > tankMaxSpeed) {
+				tank.velocity.setLength(tankMaxSpeed);
+			}
+			
+			// Choose a sound based on the velocity
+			double unitVelocity = tank.velocity.length() / tankMaxSpeed,
+					unitAngularVel = Math.abs(tank.angularVelocity) *
+							tankSteeringDrag / tankSteeringAccel;
+			double unitNoise = Math.max(unitVelocity, unitAngularVel);
+			if (unitNoise > 0.9d) {
+				sound.request(SoundName.ENGINE_3);
+			} else if (unitNoise > 0.5d) {
+				sound.request(SoundName.ENGINE_2);
+			} else if (unitNoise > 0.2d) {
+				sound.request(SoundName.ENGINE_1);
+			} else if (tank.isAlive()) {
+				sound.request(SoundName.ENGINE_IDLE);
+			}
+			
+			tank.wrapPosition(getGameWidthPhysics(), getGameHeightPhysics());
+		}
+		
+		// Move bullets
+		for (int i = 0; i < bullets.getSlotCount(); i++) {
+			Bullet bullet = bullets.getSlot(i);
+			if (bullet == null) {
+				continue;
+			}
+			bullet.move(deltaTime);
+			
+			// Remove the bullet if it is too old. Bounces age bullets, so they
+			// do not all expire from the head.
+			if (bullet.getAge() > bulletMaxAge) {
+				bulletPool.release(bullets.removeSlot(i));
+				continue;
+			}
+			
+			bullet.wrapPosition(getGameWidthPhysics(), getGameHeightPhysics());
+		}
+		
+		// Move fragments
+		for (int i = 0; i < fragments.size(); i++) {
+			fragments.get(i).move(deltaTime);
+		}
+	}
+	
+	/**
+	 * Shows an ephemeral score marker until scoreMarkerTicks have passed.
+	 * @param value
+	 * @param position
+	 * @param owner
+	 * @param inverted
+	 */
+	private void showScoreMarker(String value, Vector2DLong position, Player owner, boolean inverted) {
+		ScoreMarker scoreMarker = scoreMarkerPool.acquire();
+		scoreMarker.set(value, position, owner, inverted);
+		scoreMarkers.add(scoreMarker);
+		
+		scoreMarker.expireAfter(timers, scoreMarkerTicks, scoreMarkers, scoreMarkerPool);
+	}
+	
+	private void shootBullets() {
+		// Shoot new bullets
+		for (int i = 0; i < players.length; i++) {
+			Player player = players[i];
+			
+			// Cannot shoot when dead
+			if (!tanks[i].isAlive()) {
+				continue;
+			}
+			
+			// Shoot a single bullet if the press counter increased
+			int shotCounter = player.getButton(BUTTON_SHOOT)
+					.getPressCounter();
+			if (shotCounter > lastShotCounters[i]) {
+				Bullet shot = tanks[i].shoot(bulletPool);
+				if (shot != null) {
+					bullets.add(shot);
+					sound.request(SoundName.PWANK_C);
+				}
+				lastShotCounters[i] = shotCounter;
+			}
+		}
+	}
+	
+	void collideTankToWall() {
+		if (broadphase == Broadphase.SWEEP_AND_PRUNE) {
+			sweepTankToWall();
+			return;
+		}
+		if (broadphase == Broadphase.TREE) {
+			treeTankToWall();
+			return;
+		}
+		
+		for (Tank tank : tanks) {
+			if (!tank.isAlive()) {
+				continue;
+			}
+			
+			for (int i = 0; i < walls.size(); i++) {
+				// Tank is touching wall - push it out and slide along the wall
+				tank.pushOutOf(walls.get(i), axisCache, penetration);
+			}
+		}
+	}
+	
+	private void collideTankToTank() {
+		// Calculate tank-tank collisions
+		for (int a = 0; a < tanks.length - 1; a++) {
+			Tank tankA = tanks[a];
+			if (!tankA.isAlive()) {
+				continue;
+			}
+			
+			for (int b = a + 1; b < tanks.length; b++) {
+				Tank tankB = tanks[b];
+				if (!tankB.isAlive()) {
+					continue;
+				}
+				
+				if (tankA.isTouching(tankB, axisCache)) {
+					// Push
+					long differenceX = tankA.position.x - tankB.position.x,
+							differenceY = tankA.position.y - tankB.position.y;
+					double radiusSum = tankA.getRadius() + tankB.getRadius();
+					double distance = Math.sqrt(differenceX * differenceX + differenceY * differenceY);
+					double overlap = radiusSum - distance;
+					overlap = Math.max(overlap, 1d);
+					double scale = overlap / 2d / distance;
+					differenceX = (long)(scale * differenceX);
+					differenceY = (long)(scale * differenceY);
+					tankA.position.x += differenceX;
+					tankA.position.y += differenceY;
+					tankB.position.x -= differenceX;
+					tankB.position.y -= differenceY;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Bounces the bullets off the first wall they hit during the tick, testing
+	 * the whole path of each bullet so that fast bullets cannot pass through.
+	 * @param deltaTime The time the bullets moved for in this tick.
+	 */
+	void collideBulletToWall(long deltaTime) {
+		if (broadphase == Broadphase.SWEEP_AND_PRUNE) {
+			sweepBulletToWall(deltaTime);
+			return;
+		}
+		if (broadphase == Broadphase.TREE) {
+			treeBulletToWall(deltaTime);
+			return;
+		}
+		
+		for (int i = 0; i < bullets.getSlotCount(); i++) {
+			Bullet bullet = bullets.getSlot(i);
+			if (bullet == null) {
+				continue;
+			}
+			
+			// Find the first wall on the bullet's path
+			Wall firstWall = null;
+			for (int w = 0; w < walls.size(); w++) {
+				Wall wall = walls.get(w);
+				if (sweepBullet(bullet, wall, deltaTime, impact) &&
+						(firstWall == null || impact.time < firstImpact.time)) {
+					firstWall = wall;
+					firstImpact.set(impact);
+				}
+			}
+			
+			// Only collide with one wall to prevent hugging
+			if (firstWall != null) {
+				bounceBullet(bullet, firstImpact);
+			}
+		}
+	}
+	
+	/**
+	 * Finds where a bullet first touched a wall during the tick.
+	 * @param bullet
+	 * @param wall
+	 * @param deltaTime The time the bullet moved for in this tick.
+	 * @param result
+	 * @return False if the bullet did not touch the wall.
+	 */
+	private static boolean sweepBullet(Bullet bullet, Wall wall, long deltaTime, Impact result) {
+		long moveX = (long)Integrator.displacement(bullet.velocity.x, bullet.acceleration.x, deltaTime),
+				moveY = (long)Integrator.displacement(bullet.velocity.y, bullet.acceleration.y, deltaTime);
+		return SweptCircle.againstRectangle(bullet.position.x - moveX, bullet.position.y - moveY,
+				moveX, moveY, bullet.getRadius(), wall, result);
+	}
+	
+	/**
+	 * Reflects a bullet off a wall at the point where it touched the wall.
+	 * @param bullet
+	 * @param impact
+	 */
+	private static void bounceBullet(Bullet bullet, Impact impact) {
+		// Reflect the velocity about the normal
+		Vector2D normal = impact.normal;
+		bullet.velocity.addScaled(normal, -2d * bullet.velocity.dotProduct(normal));
+		
+		// Put the bullet where it touched the wall
+		bullet.position.set(impact.point);
+		bullet.position.addScaled(normal, bullet.getRadius());
+		
+		// Reduce the life of the bullet
+		bullet.addAge(PhysicsConstants.time(0.1d));
+	}
+	
+	private void collideBulletToTank() {
+		if (broadphase == Broadphase.SWEEP_AND_PRUNE) {
+			sweepBulletToTank();
+			return;
+		}
+		
+		// Find the tank-bullet collisions, each tank and each bullet at most once
+		hitBulletSlots.clear();
+		for (int t = 0; t < tanks.length; t++) {
+			Tank tank = tanks[t];
+			if (!tank.isAlive()) {
+				continue;
+			}
+			
+			for (int i = 0; i < bullets.getSlotCount(); i++) {
+				Bullet bullet = bullets.getSlot(i);
+				if (bullet == null || hitBulletSlots.get(i)) {
+					continue;
+				}
+				
+				if (tank.isTouching(bullet)) {
+					collisions.add(i, t, bullet, tank);
+					hitBulletSlots.set(i);
+					break;
+				}
+			}
+		}
+		
+		resolveBulletToTank();
+	}
+	
+	/**
+	 * Hits the tanks and removes the bullets of the bullet-tank collisions.
+	 * The first id of each collision is the bullet's slot, and the second is
+	 * the tank's index.
+	 */
+	private void resolveBulletToTank() {
+		while (collisions.next()) {
+			Bullet bullet = bullets.getSlot(collisions.getA());
+			Tank tank = tanks[collisions.getB()];
+			
+			// Bullet hits the tank
+			tank.takeHit();
+			
+			// Bullet owner gets points
+			// (or loses point for friendly fire)
+			scorePoints(bullet, tank);
+			
+			if (tank.isAlive()) {
+				sound.request(SoundName.PWANK_E);
+			} else {
+				tankDied(tank);
+			}
+			
+			// Remove the bullet
+			bullets.removeSlot(collisions.getA());
+			sweep.remove(bullet);
+			bulletPool.release(bullet);
+		}
+	}
+	
+	private void treeTankToWall() {
+		for (Tank tank : tanks) {
+			if (!tank.isAlive()) {
+				continue;
+			}
+			
+			// Visit the walls near the tank in list order. The tank moves when
+			// it is pushed, so each wall is found around its new position.
+			int index = -1;
+			while ((index = wallTree.queryFirst(tank.position.x - tank.getRadius(), tank.position.y - tank.getRadius(),
+					tank.position.x + tank.getRadius(), tank.position.y + tank.getRadius(), index + 1)) >= 0) {
+				// Tank is touching wall - push it out and slide along the wall
+				tank.pushOutOf(wallTree.get(index), axisCache, penetration);
+			}
+		}
+	}
+	
+	private void treeBulletToWall(long deltaTime) {
+		for (int i = 0; i < bullets.size(); i++) {
+			Bullet bullet = bullets.get(i);
+			long moveX = (long)Integrator.displacement(bullet.velocity.x, bullet.acceleration.x, deltaTime),
+					moveY = (long)Integrator.displacement(bullet.velocity.y, bullet.acceleration.y, deltaTime);
+			
+			// Only collide with the first wall to prevent hugging
+			if (wallTree.sweepCircle(bullet.position.x - moveX, bullet.position.y - moveY,
+					moveX, moveY, bullet.getRadius(), firstImpact) >= 0) {
+				bounceBullet(bullet, firstImpact);
+			}
+		}
+	}
+	
+	/**
+	 * Brings the sweep and prune boxes up to date with the walls, bullets and
+	 * live tanks.
+	 */
+	private void updateSweep() {
+		liveTanks.clear();
+		for (Tank tank : tanks) {
+			if (tank.isAlive()) {
+				liveTanks.add(tank);
+			}
+		}
+		
+		sweep.beginUpdate();
+		sweep.update(walls);
+		sweep.update(bullets);
+		sweep.update(liveTanks);
+		sweep.endUpdate();
+	}
+	
+	private void sweepTankToWall() {
+		updateSweep();
+		for (int p = 0; p < sweep.getPairCount(); p++) {
+			PhysicsObject a = sweep.getPairA(p), b = sweep.getPairB(p);
+			Tank tank;
+			Wall wall;
+			if (a instanceof Tank && b instanceof Wall) {
+				tank = (Tank)a;
+				wall = (Wall)b;
+			} else if (a instanceof Wall && b instanceof Tank) {
+				tank = (Tank)b;
+				wall = (Wall)a;
+			} else {
+				continue;
+			}
+			
+			// Tank is touching wall - push it out and slide along the wall
+			tank.pushOutOf(wall, axisCache, penetration);
+		}
+	}
+	
+	private void sweepBulletToWall(long deltaTime) {
+		// Stretch the boxes over the paths, so that the pairs include every wall a bullet passed
+		sweep.setSweepTime(deltaTime);
+		updateSweep();
+		
+		// Find the first wall on each bullet's path
+		if (firstWalls.length < bullets.size()) {
+			firstWalls = new Wall[2 * bullets.size()];
+			firstImpactTimes = new double[2 * bullets.size()];
+		}
+		Arrays.fill(firstWalls, 0, bullets.size(), null);
+		for (int p = 0; p < sweep.getPairCount(); p++) {
+			PhysicsObject a = sweep.getPairA(p), b = sweep.getPairB(p);
+			Bullet bullet;
+			Wall wall;
+			if (a instanceof Bullet && b instanceof Wall) {
+				bullet = (Bullet)a;
+				wall = (Wall)b;
+			} else if (a instanceof Wall && b instanceof Bullet) {
+				bullet = (Bullet)b;
+				wall = (Wall)a;
+			} else {
+				continue;
+			}
+			
+			int i = sweep.getIndex(bullet);
+			if (sweepBullet(bullet, wall, deltaTime, impact) &&
+					(firstWalls[i] == null || impact.time < firstImpactTimes[i])) {
+				firstWalls[i] = wall;
+				firstImpactTimes[i] = impact.time;
+			}
+		}
+		
+		// Only collide with one wall to prevent hugging
+		for (int i = 0; i < bullets.size(); i++) {
+			if (firstWalls[i] != null) {
+				Bullet bullet = bullets.get(i);
+				sweepBullet(bullet, firstWalls[i], deltaTime, impact);
+				bounceBullet(bullet, impact);
+			}
+		}
+	}
+	
+	private void sweepBulletToTank() {
+		// Find the tank-bullet collisions among the pairs whose boxes overlap,
+		// each tank and each bullet at most once
+		updateSweep();
+		hitTanks.clear();
+		hitBulletSlots.clear();
+		for (int p = 0; p < sweep.getPairCount(); p++) {
+			PhysicsObject a = sweep.getPairA(p), b = sweep.getPairB(p);
+			Bullet bullet;
+			Tank tank;
+			if (a instanceof Bullet && b instanceof Tank) {
+				bullet = (Bullet)a;
+				tank = (Tank)b;
+			} else if (a instanceof Tank && b instanceof Bullet) {
+				bullet = (Bullet)b;
+				tank = (Tank)a;
+			} else {
+				continue;
+			}
+			
+			int slot = bullets.getSlotOf(bullet);
+			if (hitBulletSlots.get(slot) || hitTanks.contains(tank)) {
+				continue;
+			}
+			
+			if (tank.isTouching(bullet)) {
+				int t = 0;
+				while (tanks[t] != tank) {
+					t++;
+				}
+				collisions.add(slot, t, bullet, tank);
+				hitBulletSlots.set(slot);
+				hitTanks.add(tank);
+			}
+		}
+		
+		resolveBulletToTank();
+	}
+	
+	private void tankDied(Tank tank) {
+		tank.addFragments(random.get(MatchRandom.Stream.FRAGMENTS), fragmentPool, fragments);
+		sound.request(SoundName.EXPLODE);
+	}
+	
+	private void scorePoints(IOwnable playerObj, IScorable scoreObj) {
+		Player owner = playerObj.getOwner();
+		if (owner == null) {
+			return;
+		}
+		
+		// Determine if the player scored against themself
+		boolean friendlyFire = false;
+		if (scoreObj instanceof IOwnable) {
+			Player scoredAgainst = ((IOwnable)scoreObj).getOwner();
+			friendlyFire = owner == scoredAgainst;	// Self-own
+		}
+		
+		// Add points and update score marker
+		int score = scoreObj.getScore();
+		if (friendlyFire) score = -score;
+		
+		setPlayerScore(owner, owner.score + score);
+		
+		// Create a score marker if the object is physical
+		if (scoreObj instanceof PhysicsObject) {
+			PhysicsObject physicsObj = (PhysicsObject)scoreObj;
+			showScoreMarker(String.valueOf(score),
+					physicsObj.position, friendlyFire ? null : owner, isPlayerInverted(owner));
+		}
+	}
+	
+	/**
+	 * Sets a player's score to the given value and updates the score markers.
+	 * 
+	 * @param player
+	 * @param newScore
+	 */
+	private void setPlayerScore(Player player, int newScore) {
+		player.score = Math.max(newScore, 0);
+		for (ScoreMarker scoreMarker : playerScoreMarkers) {
+			if (scoreMarker.getOwner() == player) {
+				scoreMarker.value = String.valueOf(player.score);
+			}
+		}
+	}
+	
+	private boolean isPlayerInverted(Player player) {
+		return player == players[0];
+	}
+	
+	public boolean isRoundOver() {
+		// State of the game
+		int numberOfLiving = 0;
+		boolean nobodyHasAmmo = true;
+		
+		for (int i = 0; i < players.length; i++) {
+			// The round is over if someone is dead
+			if (tanks[i].isAlive()) {
+				numberOfLiving++;
+			}
+			nobodyHasAmmo &= tanks[i].getAmmo() == 0;
+		}
+		
+		// Return true if one or none players are living, or stalemate
+		return numberOfLiving <= 1 || (nobodyHasAmmo && bullets.isEmpty());
+	}
+	
+	@Override
+	protected WorldSnapshot createSnapshot() {
+		return new TankBattleSnapshot(getGameWidthPhysics(), getGameHeightPhysics(), players.length);
+	}
+	
+	@Override
+	protected void captureSnapshot(WorldSnapshot worldSnapshot) {
+		TankBattleSnapshot snapshot = (TankBattleSnapshot)worldSnapshot;
+		
+		// Physics objects
+		for (Fragment fragment : fragments) {
+			snapshot.fragments.add(fragment, snapshot);
+		}
+		for (Wall wall : walls) {
+			snapshot.walls.add(wall, snapshot);
+		}
+		for (Tank tank : tanks) {
+			if (tank != null && tank.isAlive()) {
+				snapshot.tanks.add(tank, snapshot);
+			}
+		}
+		for (Bullet bullet : bullets) {
+			snapshot.bullets.add(bullet, snapshot);
+		}
+		
+		// Score markers
+		for (ScoreMarker scoreMarker : scoreMarkers) {
+			addScoreMarker(snapshot.scoreMarkers, scoreMarker);
+		}
+		for (ScoreMarker scoreMarker : playerScoreMarkers) {
+			addScoreMarker(snapshot.playerScoreMarkers, scoreMarker);
+		}
+		
+		// Player state
+		for (int i = 0; i < players.length; i++) {
+			snapshot.health[i] = tanks[i] != null ? tanks[i].getHealth() : 0;
+			snapshot.ammo[i] = tanks[i] != null ? tanks[i].getAmmo() : 0;
+			snapshot.scores[i] = players[i].score;
+		}
+		
+		// Game timing
+		snapshot.round = round;
+		snapshot.roundStartCounter = (int)timers.getTicksSince(roundStartTick);
+		snapshot.roundOverCounter = roundOverTick >= 0 ? (int)timers.getTicksSince(roundOverTick) : 0;
+		snapshot.demoMode = demoMode;
+	}
+	
+	private static void addScoreMarker(WorldSnapshot.TextList list, ScoreMarker scoreMarker) {
+		list.add(scoreMarker.value, scoreMarker.position.x, scoreMarker.position.y,
+				scoreMarker.getOwner(), scoreMarker.isInverted());
+	}
+}
@@ -0,0 +1,45 @@
+package tankbattle;
+
+import headtohead.WorldSnapshot;
+
+/**
+ * Everything needed to draw a frame of Tank Battle.
+ */
+public class TankBattleSnapshot extends WorldSnapshot {
+	
+	// Physics objects
+	protected final BodyList fragments, walls, tanks, bullets;
+	
+	// Score/text
+	protected final TextList scoreMarkers = new TextList(),
+			playerScoreMarkers = new TextList();
+	
+	// Player state
+	protected final int[] health, ammo, scores;
+	
+	// Game timing
+	protected int round, roundStartCounter, roundOverCounter;
+	protected boolean demoMode;
+	
+	public TankBattleSnapshot(long width, long height, int playerCount) {
+		fragments = new BodyList(0, 0);
+		walls = new BodyList(0, 0);
+		tanks = new BodyList(width, height);
+		bullets = new BodyList(width, height);
+		
+		health = new int[playerCount];
+		ammo = new int[playerCount];
+		scores = new int[playerCount];
+	}
+	
+	@Override
+	public void clear(long number, long timeNanos) {
+		super.clear(number, timeNanos);
+		fragments.clear();
+		walls.clear();
+		tanks.clear();
+		bullets.clear();
+		scoreMarkers.clear();
+		playerScoreMarkers.clear();
+	}
+}